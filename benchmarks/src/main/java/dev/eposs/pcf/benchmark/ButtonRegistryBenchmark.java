@@ -0,0 +1,82 @@
+package dev.eposs.pcf.benchmark;
+
+import dev.eposs.pcf.button.ButtonHandler;
+import dev.eposs.pcf.button.ButtonRegistry;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the prefix lookup of {@link ButtonRegistry#getButton(String)} with a growing number of registered
+ * prefixes. The registry is static, so every parameter value runs in its own fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ButtonRegistryBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int prefixes;
+
+    private String firstId;
+    private String lastId;
+    private String missId;
+
+    @Setup
+    public void setup() {
+        ButtonHandler[] handlers = new ButtonHandler[prefixes];
+        for (int i = 0; i < prefixes; i++) handlers[i] = new NoopButton("paginator-" + i + ":");
+        ButtonRegistry.register(handlers);
+
+        firstId = "paginator-0:page:12";
+        lastId = "paginator-" + (prefixes - 1) + ":page:12";
+        missId = "ticket:close:1234567890";
+    }
+
+    @Benchmark
+    public Optional<ButtonHandler> firstPrefix() {
+        return ButtonRegistry.getButton(firstId);
+    }
+
+    @Benchmark
+    public Optional<ButtonHandler> lastPrefix() {
+        return ButtonRegistry.getButton(lastId);
+    }
+
+    @Benchmark
+    public Optional<ButtonHandler> miss() {
+        return ButtonRegistry.getButton(missId);
+    }
+
+    static final class NoopButton implements ButtonHandler {
+        private final String prefix;
+
+        NoopButton(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public String getIdPrefix() {
+            return prefix;
+        }
+
+        @Override
+        public void execute(@NotNull ButtonInteractionEvent event) {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dev.eposs.pcf.benchmark;
+
+import dev.eposs.pcf.command.CommandHandler;
+import dev.eposs.pcf.command.CommandRegistry;
+import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CommandRegistry#getCommand(String)} for global, guild and unknown command names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandRegistryBenchmark {
+    private static final int COMMANDS = 100;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < COMMANDS; i++) {
+            CommandRegistry.register(CommandRegistry.Type.GLOBAL, new NoopCommand("global-" + i));
+            CommandRegistry.register(CommandRegistry.Type.GUILD, new NoopCommand("guild-" + i));
+        }
+    }
+
+    @Benchmark
+    public Optional<CommandHandler> globalHit() {
+        return CommandRegistry.getCommand("global-42");
+    }
+
+    @Benchmark
+    public Optional<CommandHandler> guildHit() {
+        return CommandRegistry.getCommand("guild-42");
+    }
+
+    @Benchmark
+    public Optional<CommandHandler> miss() {
+        return CommandRegistry.getCommand("unknown");
+    }
+
+    static final class NoopCommand implements CommandHandler {
+        private final CommandData data;
+
+        NoopCommand(String name) {
+            this.data = Commands.slash(name, "benchmark");
+        }
+
+        @Override
+        public CommandData getCommandData() {
+            return data;
+        }
+
+        @Override
+        public Set<String> getTargetGuildIDs() {
+            return Set.of();
+        }
+
+        @Override
+        public void execute(GenericCommandInteractionEvent genericEvent) {
+        }
+    }
+}
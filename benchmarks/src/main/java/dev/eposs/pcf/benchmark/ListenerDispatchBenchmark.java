@@ -0,0 +1,88 @@
+package dev.eposs.pcf.benchmark;
+
+import dev.eposs.pcf.button.ButtonRegistry;
+import dev.eposs.pcf.command.CommandRegistry;
+import dev.eposs.pcf.dispatch.DeferralWatchdog;
+import dev.eposs.pcf.dispatch.DispatchStats;
+import dev.eposs.pcf.dispatch.IDispatchExecutor;
+import dev.eposs.pcf.event.IExceptionHandler;
+import dev.eposs.pcf.event.PCFEventListener;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full pass through {@link PCFEventListener}: handler resolution, deferral tracking, metrics and
+ * handler invocation. The dispatch executor runs tasks inline, so thread start-up cost is excluded and only
+ * the framework overhead is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+    private PCFEventListener listener;
+    private DeferralWatchdog watchdog;
+    private SlashCommandInteractionEvent slashEvent;
+    private ButtonInteractionEvent buttonEvent;
+
+    @Setup
+    public void setup() {
+        CommandRegistry.register(CommandRegistry.Type.GLOBAL, new CommandRegistryBenchmark.NoopCommand("bench"));
+        ButtonRegistry.register(new ButtonRegistryBenchmark.NoopButton("paginator:"));
+
+        // A short budget keeps the watchdog queue small at benchmark rates.
+        watchdog = new DeferralWatchdog(Duration.ofMillis(1), Duration.ofMillis(1));
+        listener = new PCFEventListener(new IExceptionHandler() {
+        }, new InlineExecutor(), watchdog);
+
+        slashEvent = Stubs.slashCommand("bench", "sub");
+        buttonEvent = Stubs.button("paginator:page:12");
+    }
+
+    @TearDown
+    public void tearDown() {
+        watchdog.shutdown();
+    }
+
+    @Benchmark
+    public void slashCommand() {
+        listener.onSlashCommandInteraction(slashEvent);
+    }
+
+    @Benchmark
+    public void button() {
+        listener.onButtonInteraction(buttonEvent);
+    }
+
+    static final class InlineExecutor implements IDispatchExecutor {
+        @Override
+        public boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task) {
+            task.run();
+            return true;
+        }
+
+        @NotNull
+        @Override
+        public DispatchStats getStats() {
+            return new DispatchStats(0, 0, 0, 0, 0);
+        }
+    }
+}
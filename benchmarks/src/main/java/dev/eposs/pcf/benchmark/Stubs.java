@@ -0,0 +1,95 @@
+package dev.eposs.pcf.benchmark;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.components.buttons.Button;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.SlashCommandInteraction;
+import net.dv8tion.jda.api.interactions.components.buttons.ButtonInteraction;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JDA stand-ins for the benchmarks.
+ * <p>
+ * The interaction interfaces are implemented with dynamic proxies that answer a fixed set of methods by name
+ * and return {@code null}, {@code false} or {@code 0} for everything else. The proxies allocate an argument
+ * array for calls with arguments, which is negligible next to the code under test.
+ * </p>
+ */
+final class Stubs {
+    private Stubs() {
+    }
+
+    static final JDA JDA = stub(JDA.class, Map.of());
+    static final User USER = stub(User.class, Map.of(
+            "getIdLong", 1L,
+            "getId", "1",
+            "getName", "benchmark"
+    ));
+
+    @NotNull
+    static SlashCommandInteractionEvent slashCommand(@NotNull String name, @NotNull String subcommand) {
+        Map<String, Object> answers = new HashMap<>(interaction());
+        answers.put("getName", name);
+        answers.put("getSubcommandName", subcommand);
+        answers.put("getFullCommandName", name + " " + subcommand);
+        answers.put("getOptions", List.of());
+        return new SlashCommandInteractionEvent(JDA, 0, stub(SlashCommandInteraction.class, answers));
+    }
+
+    @NotNull
+    static ButtonInteractionEvent button(@NotNull String customId) {
+        Map<String, Object> answers = new HashMap<>(interaction());
+        Button button = Button.primary(customId, "benchmark");
+        answers.put("getButton", button);
+        answers.put("getComponent", button);
+        answers.put("getComponentId", customId);
+        return new ButtonInteractionEvent(JDA, 0, stub(ButtonInteraction.class, answers));
+    }
+
+    @NotNull
+    private static Map<String, Object> interaction() {
+        return Map.of(
+                "getUser", USER,
+                "getJDA", JDA,
+                "getIdLong", 2L,
+                "getId", "2",
+                "getChannelIdLong", 3L,
+                "getEntitlements", Collections.emptyList()
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    static <T> T stub(@NotNull Class<T> type, @NotNull Map<String, Object> answers) {
+        return (T) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object answer = answers.get(method.getName());
+            if (answer != null) return answer;
+
+            switch (method.getName()) {
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "toString" -> {
+                    return type.getSimpleName() + "Stub";
+                }
+            }
+
+            Class<?> returnType = method.getReturnType();
+            if (returnType == boolean.class) return false;
+            if (returnType == int.class) return 0;
+            if (returnType == long.class) return 0L;
+            return null;
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package dev.eposs.pcf.benchmark;
+
+import dev.eposs.pcf.command.AbstractSlashCommand;
+import dev.eposs.pcf.command.SubCommandHandler;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link dev.eposs.pcf.command.SlashCommandHandler#executeSubCommand(SlashCommandInteractionEvent)}
+ * for a command with 20 sub-commands.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubCommandBenchmark {
+    private BenchmarkCommand command;
+    private SlashCommandInteractionEvent event;
+
+    @Setup
+    public void setup() {
+        command = new BenchmarkCommand();
+        for (int i = 0; i < 20; i++) command.registerSubCommand(new NoopSubCommand("sub-" + i));
+        event = Stubs.slashCommand("bench", "sub-7");
+    }
+
+    @Benchmark
+    public void executeSubCommand() throws Exception {
+        command.executeSubCommand(event);
+    }
+
+    static final class BenchmarkCommand extends AbstractSlashCommand {
+        private final CommandData data = Commands.slash("bench", "benchmark");
+
+        @Override
+        public CommandData getCommandData() {
+            return data;
+        }
+
+        @Override
+        public Set<String> getTargetGuildIDs() {
+            return Set.of();
+        }
+    }
+
+    static final class NoopSubCommand implements SubCommandHandler {
+        private final SubcommandData data;
+
+        NoopSubCommand(String name) {
+            this.data = new SubcommandData(name, "benchmark");
+        }
+
+        @Override
+        public SubcommandData getSubCommandData() {
+            return data;
+        }
+
+        @Override
+        public void execute(SlashCommandInteractionEvent event) {
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package dev.eposs.pcf.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a static {@code IHandlerIndex} from all classes annotated with {@code @AutoRegister}.
+ * <p>
+ * The index instantiates every annotated class once and adds it to a {@code HandlerTransaction} for each handler
+ * interface it implements. It is also listed in {@code META-INF/services}, so {@code HandlerDiscovery} can find it.
+ * The index is written in the first round that contains annotated classes; annotated classes generated by other
+ * processors in later rounds are reported as errors.
+ * </p>
+ * <p>
+ * The index class is named {@code GeneratedHandlerIndex} and placed in the deepest package containing all
+ * annotated classes, so modules with their own packages get their own index. The name can be set with
+ * {@code -Apcf.indexClass=<qualified name>}, which is required if the annotated classes share no package.
+ * </p>
+ */
+@SupportedAnnotationTypes(HandlerIndexProcessor.AUTO_REGISTER)
+@SupportedOptions(HandlerIndexProcessor.INDEX_CLASS_OPTION)
+public class HandlerIndexProcessor extends AbstractProcessor {
+    static final String AUTO_REGISTER = "dev.eposs.pcf.discovery.AutoRegister";
+    static final String INDEX_CLASS_OPTION = "pcf.indexClass";
+
+    private static final String INDEX_SIMPLE_NAME = "GeneratedHandlerIndex";
+    private static final String INDEX_INTERFACE = "dev.eposs.pcf.discovery.IHandlerIndex";
+    private static final String TRANSACTION = "dev.eposs.pcf.reload.HandlerTransaction";
+    private static final String SCOPE = "dev.eposs.pcf.command.CommandRegistry.Type";
+
+    /**
+     * Handler interfaces and the {@code HandlerTransaction} method registering them.
+     */
+    private static final List<String[]> HANDLER_TYPES = List.of(
+            new String[]{"dev.eposs.pcf.command.CommandHandler", "registerCommand"},
+            new String[]{"dev.eposs.pcf.button.ButtonHandler", "registerButton"},
+            new String[]{"dev.eposs.pcf.modal.ModalHandler", "registerModal"},
+            new String[]{"dev.eposs.pcf.stringselect.StringSelectHandler", "registerStringSelect"},
+            new String[]{"dev.eposs.pcf.entityselect.EntitySelectHandler", "registerEntitySelect"}
+    );
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(AUTO_REGISTER);
+        if (annotation == null || roundEnv.processingOver()) return false;
+
+        Set<? extends Element> annotated = roundEnv.getElementsAnnotatedWith(annotation);
+        if (annotated.isEmpty()) return false;
+
+        if (generated) {
+            annotated.forEach(element -> error(element, "@AutoRegister classes must not be generated by other annotation processors"));
+            return true;
+        }
+
+        List<String> registrations = new ArrayList<>();
+        String commonPackage = null;
+        for (Element element : annotated) {
+            if (!isValid(element)) continue;
+            registrations.addAll(registrationsOf((TypeElement) element));
+            String packageName = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+            commonPackage = commonPackage == null ? packageName : commonPackage(commonPackage, packageName);
+        }
+
+        generated = true;
+        String indexClass = indexClass(commonPackage);
+        if (indexClass != null) writeIndex(indexClass, registrations);
+        return true;
+    }
+
+    /**
+     * Returns the qualified name of the index class: the configured one, or one in the common package of the
+     * annotated classes. Reports an error and returns {@code null} if neither exists.
+     */
+    private String indexClass(String commonPackage) {
+        String configured = processingEnv.getOptions().get(INDEX_CLASS_OPTION);
+        if (configured != null && !configured.isBlank()) return configured;
+        if (commonPackage == null) return null;
+        if (commonPackage.isEmpty()) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "@AutoRegister classes share no package, set the handler index class with -A" + INDEX_CLASS_OPTION + "=<qualified name>");
+            return null;
+        }
+        return commonPackage + "." + INDEX_SIMPLE_NAME;
+    }
+
+    /**
+     * Returns the deepest package containing both packages, empty if there is none.
+     */
+    private static String commonPackage(String first, String second) {
+        String[] a = first.split("\\.");
+        String[] b = second.split("\\.");
+        int common = 0;
+        while (common < a.length && common < b.length && a[common].equals(b[common])) common++;
+        return String.join(".", Arrays.asList(a).subList(0, common));
+    }
+
+    private boolean isValid(Element element) {
+        if (element.getKind() != ElementKind.CLASS) {
+            error(element, "@AutoRegister can only be used on classes");
+            return false;
+        }
+        TypeElement type = (TypeElement) element;
+        if (!type.getModifiers().contains(Modifier.PUBLIC) || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(element, "@AutoRegister classes must be public and not abstract");
+            return false;
+        }
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            error(element, "@AutoRegister classes must not be inner classes");
+            return false;
+        }
+        boolean hasConstructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC));
+        if (!hasConstructor) {
+            error(element, "@AutoRegister classes need a public no-argument constructor");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the block instantiating a handler class and registering it for every handler interface it implements.
+     */
+    private List<String> registrationsOf(TypeElement type) {
+        String className = type.getQualifiedName().toString();
+        List<String> statements = new ArrayList<>();
+        statements.add(className + " handler = new " + className + "()");
+        for (String[] handlerType : HANDLER_TYPES) {
+            TypeElement handler = processingEnv.getElementUtils().getTypeElement(handlerType[0]);
+            if (handler == null) continue;
+
+            TypeMirror erased = processingEnv.getTypeUtils().erasure(handler.asType());
+            if (!processingEnv.getTypeUtils().isAssignable(type.asType(), erased)) continue;
+
+            String arguments = handlerType[1].equals("registerCommand") ? SCOPE + "." + scopeOf(type) + ", handler" : "handler";
+            statements.add("transaction." + handlerType[1] + "(" + arguments + ")");
+        }
+
+        if (statements.size() == 1) {
+            error(type, "@AutoRegister classes must implement a handler interface");
+            return List.of();
+        }
+        return List.of(String.join(";\n            ", statements));
+    }
+
+    private String scopeOf(TypeElement type) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (!((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(AUTO_REGISTER)) continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues().entrySet()) {
+                if (value.getKey().getSimpleName().contentEquals("scope")) return value.getValue().getValue().toString();
+            }
+        }
+        return "GLOBAL";
+    }
+
+    private void writeIndex(String indexClass, List<String> registrations) {
+        int lastDot = indexClass.lastIndexOf('.');
+        String packageName = lastDot < 0 ? "" : indexClass.substring(0, lastDot);
+        String simpleName = indexClass.substring(lastDot + 1);
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) source.append("package ").append(packageName).append(";\n\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(HandlerIndexProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(simpleName).append(" implements ").append(INDEX_INTERFACE).append(" {\n");
+        source.append("    @Override\n");
+        source.append("    public void register(").append(TRANSACTION).append(" transaction) {\n");
+        for (String registration : registrations) {
+            source.append("        {\n            ").append(registration).append(";\n        }\n");
+        }
+        source.append("    }\n}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(indexClass);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+            FileObject services = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + INDEX_INTERFACE);
+            try (Writer writer = services.openWriter()) {
+                writer.write(indexClass + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write handler index: " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,184 @@
+package dev.eposs.pcf.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HandlerIndexProcessorTest {
+    /**
+     * Minimal stand-ins for the framework types, the processor only works on their names.
+     */
+    private static final Map<String, String> FRAMEWORK = Map.of(
+            "dev.eposs.pcf.command.CommandRegistry", "package dev.eposs.pcf.command; public class CommandRegistry { public enum Type {GLOBAL, GUILD} }",
+            "dev.eposs.pcf.command.CommandHandler", "package dev.eposs.pcf.command; public interface CommandHandler {}",
+            "dev.eposs.pcf.button.ButtonHandler", "package dev.eposs.pcf.button; public interface ButtonHandler {}",
+            "dev.eposs.pcf.modal.ModalHandler", "package dev.eposs.pcf.modal; public interface ModalHandler {}",
+            "dev.eposs.pcf.discovery.AutoRegister", """
+                    package dev.eposs.pcf.discovery;
+                    public @interface AutoRegister {
+                        dev.eposs.pcf.command.CommandRegistry.Type scope() default dev.eposs.pcf.command.CommandRegistry.Type.GLOBAL;
+                    }""",
+            "dev.eposs.pcf.discovery.IHandlerIndex", """
+                    package dev.eposs.pcf.discovery;
+                    public interface IHandlerIndex { void register(dev.eposs.pcf.reload.HandlerTransaction transaction); }""",
+            "dev.eposs.pcf.reload.HandlerTransaction", """
+                    package dev.eposs.pcf.reload;
+                    public class HandlerTransaction {
+                        public HandlerTransaction registerCommand(dev.eposs.pcf.command.CommandRegistry.Type type, dev.eposs.pcf.command.CommandHandler command) { return this; }
+                        public HandlerTransaction registerButton(dev.eposs.pcf.button.ButtonHandler action) { return this; }
+                        public HandlerTransaction registerModal(dev.eposs.pcf.modal.ModalHandler action) { return this; }
+                    }""");
+
+    @TempDir
+    Path output;
+
+    @Test
+    void registersMultiInterfaceClassOnceForEveryInterface() throws IOException {
+        Result result = compile(List.of(), Map.of("com.example.bot.Confirm", """
+                package com.example.bot;
+                @dev.eposs.pcf.discovery.AutoRegister
+                public class Confirm implements dev.eposs.pcf.button.ButtonHandler, dev.eposs.pcf.modal.ModalHandler {}"""));
+
+        assertTrue(result.errors().isEmpty(), result.errors()::toString);
+        String index = result.source("com/example/bot/GeneratedHandlerIndex.java");
+        assertEquals(1, count(index, "new com.example.bot.Confirm()"));
+        assertTrue(index.contains("transaction.registerButton(handler)"));
+        assertTrue(index.contains("transaction.registerModal(handler)"));
+        assertFalse(index.contains("registerCommand"));
+    }
+
+    @Test
+    void usesTheScopeOfTheAnnotation() throws IOException {
+        Result result = compile(List.of(), Map.of(
+                "com.example.bot.Ping", """
+                        package com.example.bot;
+                        @dev.eposs.pcf.discovery.AutoRegister
+                        public class Ping implements dev.eposs.pcf.command.CommandHandler {}""",
+                "com.example.bot.Setup", """
+                        package com.example.bot;
+                        import dev.eposs.pcf.command.CommandRegistry;
+                        @dev.eposs.pcf.discovery.AutoRegister(scope = CommandRegistry.Type.GUILD)
+                        public class Setup implements dev.eposs.pcf.command.CommandHandler {}"""));
+
+        assertTrue(result.errors().isEmpty(), result.errors()::toString);
+        String index = result.source("com/example/bot/GeneratedHandlerIndex.java");
+        assertTrue(index.contains("new com.example.bot.Ping();\n            transaction.registerCommand(dev.eposs.pcf.command.CommandRegistry.Type.GLOBAL, handler)"));
+        assertTrue(index.contains("new com.example.bot.Setup();\n            transaction.registerCommand(dev.eposs.pcf.command.CommandRegistry.Type.GUILD, handler)"));
+    }
+
+    @Test
+    void placesTheIndexInTheCommonPackage() throws IOException {
+        Result result = compile(List.of(), Map.of(
+                "com.example.bot.buttons.Accept", """
+                        package com.example.bot.buttons;
+                        @dev.eposs.pcf.discovery.AutoRegister
+                        public class Accept implements dev.eposs.pcf.button.ButtonHandler {}""",
+                "com.example.bot.modals.Feedback", """
+                        package com.example.bot.modals;
+                        @dev.eposs.pcf.discovery.AutoRegister
+                        public class Feedback implements dev.eposs.pcf.modal.ModalHandler {}"""));
+
+        assertTrue(result.errors().isEmpty(), result.errors()::toString);
+        assertTrue(result.source("com/example/bot/GeneratedHandlerIndex.java").startsWith("package com.example.bot;"));
+        assertEquals("com.example.bot.GeneratedHandlerIndex\n",
+                Files.readString(output.resolve("classes/META-INF/services/dev.eposs.pcf.discovery.IHandlerIndex")));
+    }
+
+    @Test
+    void requiresTheIndexClassIfNoPackageIsShared() throws IOException {
+        Map<String, String> sources = Map.of(
+                "com.example.Accept", """
+                        package com.example;
+                        @dev.eposs.pcf.discovery.AutoRegister
+                        public class Accept implements dev.eposs.pcf.button.ButtonHandler {}""",
+                "org.example.Feedback", """
+                        package org.example;
+                        @dev.eposs.pcf.discovery.AutoRegister
+                        public class Feedback implements dev.eposs.pcf.modal.ModalHandler {}""");
+
+        Result failed = compile(List.of(), sources);
+        assertEquals(1, failed.errors().size());
+        assertTrue(failed.errors().getFirst().contains("-Apcf.indexClass"));
+
+        Result configured = compile(List.of("-A" + HandlerIndexProcessor.INDEX_CLASS_OPTION + "=com.example.BotIndex"), sources);
+        assertTrue(configured.errors().isEmpty(), configured.errors()::toString);
+        assertTrue(configured.source("com/example/BotIndex.java").contains("public final class BotIndex"));
+    }
+
+    @Test
+    void rejectsClassesWithoutHandlerInterface() throws IOException {
+        Result result = compile(List.of(), Map.of("com.example.bot.Helper", """
+                package com.example.bot;
+                @dev.eposs.pcf.discovery.AutoRegister
+                public class Helper {}"""));
+
+        assertEquals(List.of("@AutoRegister classes must implement a handler interface"), result.errors());
+    }
+
+    private Result compile(List<String> options, Map<String, String> sources) throws IOException {
+        Path classes = Files.createDirectories(output.resolve("classes"));
+        Path generated = Files.createDirectories(output.resolve("generated"));
+
+        List<JavaFileObject> units = new ArrayList<>();
+        FRAMEWORK.forEach((name, source) -> units.add(new Source(name, source)));
+        sources.forEach((name, source) -> units.add(new Source(name, source)));
+
+        List<String> arguments = new ArrayList<>(options);
+        arguments.addAll(List.of("-d", classes.toString(), "-s", generated.toString()));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics, arguments, null, units);
+            task.setProcessors(List.of(new HandlerIndexProcessor()));
+            task.call();
+        }
+
+        List<String> errors = diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                .map(diagnostic -> diagnostic.getMessage(null))
+                .toList();
+        return new Result(generated, errors);
+    }
+
+    private static int count(String text, String part) {
+        return text.split(Pattern.quote(part), -1).length - 1;
+    }
+
+    private record Result(Path generated, List<String> errors) {
+        String source(String path) throws IOException {
+            return Files.readString(generated.resolve(path));
+        }
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        private Source(String name, String code) {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
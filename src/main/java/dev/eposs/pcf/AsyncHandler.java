@@ -0,0 +1,50 @@
+package dev.eposs.pcf;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Common base of the asynchronous handler interfaces, whose {@code executeAsync} returns a {@link CompletionStage}
+ * instead of blocking until the work is done.
+ * <p>
+ * The {@link dev.eposs.pcf.event.PCFEventListener} calls {@code executeAsync} on the dispatch thread and composes
+ * the returned stage without blocking. If the stage does not complete within {@link #getTimeout()}, it is
+ * cancelled and a {@link java.util.concurrent.TimeoutException} is passed to the
+ * {@link dev.eposs.pcf.event.IExceptionHandler}, as are exceptions the stage completes with. Cancelling only
+ * reaches the work if the returned stage owns it, e.g. the future of {@code RestAction.submit()}; stages derived
+ * with {@code thenApply} and the like do not cancel their source.
+ * </p>
+ */
+public interface AsyncHandler {
+    Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * How long the stage returned by {@code executeAsync} may take. Must return the same value on every call.
+     *
+     * @return the timeout, or {@code null} to wait indefinitely
+     */
+    @Nullable
+    default Duration getTimeout() {
+        return DEFAULT_TIMEOUT;
+    }
+
+    /**
+     * Blocks until a stage completes. Used by the synchronous {@code execute} methods of the asynchronous handler
+     * interfaces, for callers that are not aware of them.
+     *
+     * @param stage the stage to wait for
+     * @throws Exception the exception the stage completed with, or {@link InterruptedException}
+     */
+    static void await(@NotNull CompletionStage<?> stage) throws Exception {
+        try {
+            stage.toCompletableFuture().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package dev.eposs.pcf;
+
+import dev.eposs.pcf.permission.PermissionPolicy;
+import dev.eposs.pcf.ratelimit.RateLimit;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Common base of all handler interfaces, declaring the checks the
+ * {@link dev.eposs.pcf.event.PCFEventListener} runs before an interaction is dispatched.
+ * <p>
+ * Sharing one declaration lets a class implement several handler interfaces without conflicting defaults.
+ * </p>
+ */
+public interface GuardedHandler {
+
+    /**
+     * The permission policy checked before this handler is dispatched. Must return the same instance on every call.
+     *
+     * @return the permission policy, or {@code null} if the handler is not restricted
+     */
+    @Nullable
+    default PermissionPolicy getPermissionPolicy() {
+        return null;
+    }
+
+    /**
+     * The rate limit checked before this handler is dispatched. Must return the same instance on every call.
+     *
+     * @return the rate limit, or {@code null} if the handler is not rate limited
+     */
+    @Nullable
+    default RateLimit getRateLimit() {
+        return null;
+    }
+}
@@ -1,11 +1,14 @@
 package dev.eposs.pcf;
 
+import dev.eposs.pcf.metrics.IMetricsSink;
+import dev.eposs.pcf.util.SnowflakeSet;
+import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Central static holder for global configuration used by the Phoenix Command Framework.
@@ -15,9 +18,13 @@ import java.util.concurrent.ConcurrentHashMap;
  * therefore process-wide. Initialize it once during application bootstrap via {@link #init(String, Set)}.
  * </p>
  * <p>
- * Thread-safety: the internal set of trusted users is backed by a {@link ConcurrentHashMap}
- * and is safe for concurrent access and modification. The {@code botOwnerID} is written once
- * during initialization and then read concurrently.
+ * Thread-safety: the internal set of trusted users is a {@link SnowflakeSet} and is safe for
+ * concurrent access and modification. The bot owner ID is written once during initialization
+ * and then read concurrently.
+ * </p>
+ * <p>
+ * IDs are stored as {@code long} snowflakes. The {@code long} overloads, used by the
+ * {@link dev.eposs.pcf.permission.PermissionChecker}, check identities without allocating.
  * </p>
  */
 public class PhoenixCommandFramework {
@@ -34,13 +41,17 @@ public class PhoenixCommandFramework {
     /**
      * Discord user ID of the bot owner. Must be set via {@link #init(String, Set)} before use.
      */
-    private static String botOwnerID;
+    private static long botOwnerID;
+
+    /**
+     * A thread-safe set of trusted user IDs. The content is replaced on each call to {@link #init(String, Set)}.
+     */
+    private static final SnowflakeSet trustedUsersIDs = new SnowflakeSet();
 
     /**
-     * A live, thread-safe set of trusted user IDs. The content is cleared and optionally
-     * repopulated on each call to {@link #init(String, Set)}.
+     * Receiver of the dispatch metrics. Discards everything until a sink is set via {@link #setMetricsSink(IMetricsSink)}.
      */
-    private static final Set<String> trustedUsersIDs = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private static volatile IMetricsSink metricsSink = IMetricsSink.NOOP;
 
     /**
      * Initializes the PhoenixCommandFramework with the given bot owner ID and an initial set of trusted user IDs.
@@ -49,23 +60,34 @@ public class PhoenixCommandFramework {
      * @param botOwnerID          the Discord user ID of the bot owner, must not be null or blank
      * @param initialTrustedUsers a set of Discord user IDs to initialize as trusted users, can be null
      * @throws IllegalStateException    if the framework is already initialized
-     * @throws IllegalArgumentException if the bot owner ID is null or blank
+     * @throws IllegalArgumentException if the bot owner ID is null or blank, or an ID is not a valid snowflake
      */
     public static synchronized void init(String botOwnerID, Set<String> initialTrustedUsers) throws IllegalStateException, IllegalArgumentException {
-        if (initialized) {
-            throw new IllegalStateException("PhoenixCommandFramework has already been initialized.");
-        }
-
         if (botOwnerID == null || botOwnerID.isBlank()) {
             throw new IllegalArgumentException("Owner ID cannot be null or blank.");
         }
 
-        PhoenixCommandFramework.botOwnerID = botOwnerID;
-        trustedUsersIDs.clear();
-        if (initialTrustedUsers != null) {
-            trustedUsersIDs.addAll(initialTrustedUsers);
+        long[] trustedUsers = initialTrustedUsers == null ? new long[0]
+                : initialTrustedUsers.stream().mapToLong(PhoenixCommandFramework::parseID).toArray();
+        init(parseID(botOwnerID), trustedUsers);
+    }
+
+    /**
+     * Initializes the PhoenixCommandFramework with the given bot owner ID and an initial set of trusted user IDs.
+     * This method must be called before using any other functionality of the framework.
+     *
+     * @param botOwnerID          the Discord user ID of the bot owner
+     * @param initialTrustedUsers Discord user IDs to initialize as trusted users
+     * @throws IllegalStateException if the framework is already initialized
+     */
+    public static synchronized void init(long botOwnerID, long... initialTrustedUsers) throws IllegalStateException {
+        if (initialized) {
+            throw new IllegalStateException("PhoenixCommandFramework has already been initialized.");
         }
 
+        PhoenixCommandFramework.botOwnerID = botOwnerID;
+        trustedUsersIDs.replaceAll(initialTrustedUsers);
+
         initialized = true;
     }
 
@@ -86,20 +108,62 @@ public class PhoenixCommandFramework {
      * @throws IllegalStateException if the framework has not been initialized
      */
     public static String getBotOwnerID() throws IllegalStateException {
+        checkInitialized();
+        return Long.toUnsignedString(botOwnerID);
+    }
+
+    /**
+     * Retrieves the Discord user ID of the bot owner.
+     * This method can only be used after the framework has been initialized.
+     *
+     * @return the Discord user ID of the bot owner
+     * @throws IllegalStateException if the framework has not been initialized
+     */
+    public static long getBotOwnerIdLong() throws IllegalStateException {
         checkInitialized();
         return botOwnerID;
     }
 
+    /**
+     * Checks if the given user ID is the bot owner.
+     * This method can only be used after the framework has been initialized.
+     *
+     * @param userID the Discord user ID to check
+     * @return true if the user is the bot owner, false otherwise
+     * @throws IllegalStateException if the framework has not been initialized
+     */
+    public static boolean isBotOwner(long userID) throws IllegalStateException {
+        checkInitialized();
+        return botOwnerID == userID;
+    }
+
     /**
      * Retrieves the set of trusted user IDs configured in the framework.
      * This method can only be used if the framework has been initialized.
+     * <p>
+     * The IDs are stored as a {@link SnowflakeSet}, so every call builds a new set of strings from it instead of
+     * returning the live set. The returned set is a snapshot and does not reflect later changes; use
+     * {@link #isTrustedUser(long)} or {@link #getTrustedUserIdsLong()} for frequent checks.
+     * </p>
      *
-     * @return a {@code Set} containing the Discord user IDs of trusted users
+     * @return an unmodifiable copy of the Discord user IDs of trusted users
      * @throws IllegalStateException if the framework has not been initialized
      */
     public static Set<String> getTrustedUsers() throws IllegalStateException {
         checkInitialized();
-        return trustedUsersIDs;
+        return Arrays.stream(trustedUsersIDs.toArray()).mapToObj(Long::toUnsignedString).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Retrieves the trusted user IDs configured in the framework.
+     * This method can only be used if the framework has been initialized.
+     *
+     * @return a sorted copy of the Discord user IDs of trusted users
+     * @throws IllegalStateException if the framework has not been initialized
+     */
+    public static long[] getTrustedUserIdsLong() throws IllegalStateException {
+        checkInitialized();
+        return trustedUsersIDs.toArray();
     }
 
     /**
@@ -107,9 +171,21 @@ public class PhoenixCommandFramework {
      * This method can only be used after the framework has been initialized.
      *
      * @param userID the Discord user ID to add to the trusted users set, must not be null
+     * @throws IllegalStateException    if the framework has not been initialized
+     * @throws IllegalArgumentException if the ID is not a valid snowflake
+     */
+    public static void addTrustedUser(String userID) throws IllegalStateException, IllegalArgumentException {
+        addTrustedUser(parseID(userID));
+    }
+
+    /**
+     * Adds a user ID to the set of trusted user IDs.
+     * This method can only be used after the framework has been initialized.
+     *
+     * @param userID the Discord user ID to add to the trusted users set
      * @throws IllegalStateException if the framework has not been initialized
      */
-    public static void addTrustedUser(String userID) throws IllegalStateException {
+    public static void addTrustedUser(long userID) throws IllegalStateException {
         checkInitialized();
         trustedUsersIDs.add(userID);
     }
@@ -119,9 +195,21 @@ public class PhoenixCommandFramework {
      * This method can only be used after the framework has been initialized.
      *
      * @param userID the Discord user ID to remove, must not be null
+     * @throws IllegalStateException    if the framework has not been initialized
+     * @throws IllegalArgumentException if the ID is not a valid snowflake
+     */
+    public static void removeTrustedUser(String userID) throws IllegalStateException, IllegalArgumentException {
+        removeTrustedUser(parseID(userID));
+    }
+
+    /**
+     * Removes a user ID from the set of trusted user IDs.
+     * This method can only be used after the framework has been initialized.
+     *
+     * @param userID the Discord user ID to remove
      * @throws IllegalStateException if the framework has not been initialized
      */
-    public static void removeTrustedUser(String userID) throws IllegalStateException {
+    public static void removeTrustedUser(long userID) throws IllegalStateException {
         checkInitialized();
         trustedUsersIDs.remove(userID);
     }
@@ -135,10 +223,48 @@ public class PhoenixCommandFramework {
      * @throws IllegalStateException if the framework has not been initialized
      */
     public static boolean isTrustedUser(String userID) throws IllegalStateException {
+        checkInitialized();
+        try {
+            return trustedUsersIDs.contains(Long.parseUnsignedLong(userID));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks if the given user ID is in the set of trusted user IDs.
+     * This method can only be used after the framework has been initialized.
+     *
+     * @param userID the Discord user ID to check
+     * @return true if the user ID is in the trusted users set, false otherwise
+     * @throws IllegalStateException if the framework has not been initialized
+     */
+    public static boolean isTrustedUser(long userID) throws IllegalStateException {
         checkInitialized();
         return trustedUsersIDs.contains(userID);
     }
 
+    /**
+     * Retrieves the sink that receives the dispatch metrics.
+     * This method can be used before the framework has been initialized.
+     *
+     * @return the current metrics sink, {@link IMetricsSink#NOOP} if none was set
+     */
+    @NotNull
+    public static IMetricsSink getMetricsSink() {
+        return metricsSink;
+    }
+
+    /**
+     * Sets the sink that receives the dispatch metrics.
+     * This method can be used before the framework has been initialized.
+     *
+     * @param sink the new metrics sink, must not be null
+     */
+    public static void setMetricsSink(@NotNull IMetricsSink sink) {
+        metricsSink = sink;
+    }
+
     /**
      * Ensures that the PhoenixCommandFramework has been properly initialized
      * prior to any operation that depends on its state.
@@ -151,4 +277,17 @@ public class PhoenixCommandFramework {
     private static void checkInitialized() throws IllegalStateException {
         if (!initialized) throw new IllegalStateException("PhoenixCommandFramework.init() must be called before use.");
     }
+
+    /**
+     * Parses a Discord snowflake ID.
+     *
+     * @throws IllegalArgumentException if the ID is not a valid snowflake
+     */
+    private static long parseID(String id) throws IllegalArgumentException {
+        try {
+            return Long.parseUnsignedLong(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid user ID \"" + id + "\"", e);
+        }
+    }
 }
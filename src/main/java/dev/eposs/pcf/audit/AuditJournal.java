@@ -0,0 +1,354 @@
+package dev.eposs.pcf.audit;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.metrics.HandlerType;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Append-only binary journal of all dispatched interactions, replacing the per-interaction log lines as usage audit.
+ * <p>
+ * Dispatch threads only put a fixed-layout record (timestamp, user, guild and channel snowflakes, handler type and
+ * tag, outcome and latency) into a lock-free {@link AuditRingBuffer}; formatting and I/O never happen on them.
+ * If the buffer is full, records are dropped and counted. A background thread drains the buffer into memory-mapped
+ * segment files of {@code segmentSize} bytes, starting a new segment when the current one is full and deleting
+ * the oldest segments beyond {@code maxSegments}. Segments are forced to disk once per second while records arrive.
+ * The writer parks with an increasing backoff while the buffer is empty and is woken by the next record.
+ * </p>
+ * <p>
+ * Handler ids are stored as {@linkplain #tagOf(String) 32-bit tags}; the id of every tag is appended once to
+ * {@value #HANDLERS_FILE}. Two handler ids sharing a tag are logged and {@linkplain #getTagCollisionCount() counted},
+ * as their records cannot be told apart. Use the {@link AuditJournalReader} to query a journal directory.
+ * </p>
+ * <p>
+ * Segment layout: a header of {@value #HEADER_SIZE} bytes (magic, version, record size), followed by records of
+ * {@value #RECORD_SIZE} bytes in big-endian order: timestamp, user, guild, channel and latency as longs, the
+ * handler tag as int, handler type ordinal and outcome ordinal as bytes and two bytes of padding. Unused space is
+ * zero, so the first record with a zero timestamp ends a segment.
+ * </p>
+ */
+public class AuditJournal implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+    public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+    static final int MAGIC = 0x50434641;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 48;
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String HANDLERS_FILE = "handlers.tsv";
+
+    private static final long FORCE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MIN_IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxSegments;
+    private final AuditRingBuffer buffer;
+    private final Map<String, Boolean> knownHandlers = new ConcurrentHashMap<>();
+    private final Map<Integer, String> tagOwners = new ConcurrentHashMap<>();
+    private final Queue<String> newHandlers = new ConcurrentLinkedQueue<>();
+    private final Thread writer;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder tagCollisions = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile boolean idle;
+    private MappedByteBuffer segment;
+    private long lastSegmentStart;
+    private long lastForce;
+    private boolean dirty;
+
+    /**
+     * Creates a journal with the default buffer capacity, segment size and retention.
+     *
+     * @param directory the directory holding the segments, created if necessary
+     * @throws UncheckedIOException if the directory cannot be created
+     */
+    public AuditJournal(@NotNull Path directory) throws UncheckedIOException {
+        this(directory, DEFAULT_CAPACITY, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * Creates a journal.
+     *
+     * @param directory   the directory holding the segments, created if necessary
+     * @param capacity    number of records buffered before records are dropped, must be positive
+     * @param segmentSize size of a segment file in bytes, must hold at least one record
+     * @param maxSegments number of segments kept, must be positive
+     * @throws IllegalArgumentException if a value is out of range
+     * @throws UncheckedIOException     if the directory cannot be created
+     */
+    public AuditJournal(@NotNull Path directory, int capacity, long segmentSize, int maxSegments) throws IllegalArgumentException, UncheckedIOException {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive.");
+        if (segmentSize < HEADER_SIZE + RECORD_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between " + (HEADER_SIZE + RECORD_SIZE) + " and " + Integer.MAX_VALUE + " bytes.");
+        }
+        if (maxSegments <= 0) throw new IllegalArgumentException("Max segments must be positive.");
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.buffer = new AuditRingBuffer(capacity);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create audit directory " + directory, e);
+        }
+        this.writer = Thread.ofPlatform().name("PCF-Audit-Writer").daemon().start(this::run);
+    }
+
+    /**
+     * Records the outcome of an interaction. Does not block and does not allocate once the handler id is known.
+     *
+     * @param event        the interaction
+     * @param timestamp    when the interaction was dispatched, in epoch milliseconds
+     * @param type         the type of the handler
+     * @param handlerId    the id of the handler
+     * @param outcome      how the handling ended
+     * @param latencyNanos time from dispatch until the handler completed
+     */
+    public void record(@NotNull IReplyCallback event, long timestamp, @NotNull HandlerType type, @NotNull String handlerId,
+                       @NotNull AuditOutcome outcome, long latencyNanos) {
+        Guild guild = event.getGuild();
+        record(timestamp, event.getUser().getIdLong(), guild == null ? 0 : guild.getIdLong(),
+                event.getChannelIdLong(), type, handlerId, outcome, latencyNanos);
+    }
+
+    /**
+     * Records the outcome of an interaction. Does not block and does not allocate once the handler id is known.
+     * Records arriving after {@link #close()} are dropped.
+     *
+     * @param timestamp    when the interaction was dispatched, in epoch milliseconds
+     * @param userId       the user of the interaction
+     * @param guildId      the guild of the interaction, or 0 outside of guilds
+     * @param channelId    the channel of the interaction
+     * @param type         the type of the handler
+     * @param handlerId    the id of the handler
+     * @param outcome      how the handling ended
+     * @param latencyNanos time from dispatch until the handler completed
+     */
+    public void record(long timestamp, long userId, long guildId, long channelId, @NotNull HandlerType type,
+                       @NotNull String handlerId, @NotNull AuditOutcome outcome, long latencyNanos) {
+        if (!running) {
+            dropped.increment();
+            return;
+        }
+        if (!knownHandlers.containsKey(handlerId) && knownHandlers.putIfAbsent(handlerId, Boolean.TRUE) == null) {
+            addHandler(handlerId);
+        }
+        long packed = AuditRingBuffer.pack(tagOf(handlerId), type.ordinal(), outcome.ordinal());
+        if (!buffer.offer(timestamp, userId, guildId, channelId, latencyNanos, packed)) dropped.increment();
+        else if (idle) LockSupport.unpark(writer);
+    }
+
+    /**
+     * Returns the tag a handler id is stored as. Tags are stable across restarts.
+     *
+     * @param handlerId the handler id
+     * @return the tag
+     */
+    public static int tagOf(@NotNull String handlerId) {
+        return handlerId.hashCode();
+    }
+
+    /**
+     * @return the directory holding the segments
+     */
+    @NotNull
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of records dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the number of records written to segments
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * @return the number of handler ids whose tag was already used by another handler id
+     */
+    public long getTagCollisionCount() {
+        return tagCollisions.sum();
+    }
+
+    /**
+     * Stops accepting records, writes the buffered ones and forces the current segment to disk.
+     * Records still arriving while the journal closes are dropped.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // The writer is done, so this thread is the only consumer now
+        long[] fields = new long[AuditRingBuffer.FIELDS];
+        while (buffer.poll(fields)) dropped.increment();
+    }
+
+    private void addHandler(@NotNull String handlerId) {
+        int tag = tagOf(handlerId);
+        String owner = tagOwners.putIfAbsent(tag, handlerId);
+        if (owner != null) {
+            tagCollisions.increment();
+            PhoenixCommandFramework.LOGGER.warn("Audit handler ids \"{}\" and \"{}\" share the tag {}, their records cannot be told apart",
+                    owner, handlerId, tag);
+        }
+        newHandlers.add(handlerId);
+    }
+
+    private void run() {
+        long[] fields = new long[AuditRingBuffer.FIELDS];
+        long parkNanos = MIN_IDLE_PARK_NANOS;
+        while (true) {
+            boolean stopping = !running;
+            writeHandlerNames();
+
+            int drained = 0;
+            while (buffer.poll(fields)) {
+                write(fields);
+                drained++;
+            }
+            if (drained > 0) {
+                parkNanos = MIN_IDLE_PARK_NANOS;
+                continue;
+            }
+
+            long now = System.nanoTime();
+            if (dirty && (stopping || now - lastForce > FORCE_INTERVAL_NANOS)) force();
+            if (stopping) return;
+
+            // Producers unpark the writer while it is idle, the timeout only bounds a missed wake-up and the next force
+            long timeout = dirty ? Math.clamp(lastForce + FORCE_INTERVAL_NANOS - now, MIN_IDLE_PARK_NANOS, parkNanos) : parkNanos;
+            idle = true;
+            if (running && buffer.isEmpty()) LockSupport.parkNanos(timeout);
+            idle = false;
+            parkNanos = Math.min(parkNanos * 2, MAX_IDLE_PARK_NANOS);
+        }
+    }
+
+    private void write(long[] fields) {
+        try {
+            if (segment == null || segment.remaining() < RECORD_SIZE) rotate();
+        } catch (IOException e) {
+            dropped.increment();
+            PhoenixCommandFramework.LOGGER.error("Failed to open audit segment in {}", directory, e);
+            return;
+        }
+
+        segment.putLong(fields[0]).putLong(fields[1]).putLong(fields[2]).putLong(fields[3]).putLong(fields[4]);
+        long packed = fields[5];
+        segment.putInt((int) (packed >>> 32)).put((byte) (packed >>> 8)).put((byte) packed).putShort((short) 0);
+        written.increment();
+        dirty = true;
+    }
+
+    private void rotate() throws IOException {
+        if (segment != null) force();
+        segment = null;
+
+        long start = Math.max(System.currentTimeMillis(), lastSegmentStart + 1);
+        Path file = directory.resolve(segmentName(start));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        lastSegmentStart = start;
+        segment.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0);
+        deleteOldSegments();
+    }
+
+    private void force() {
+        segment.force();
+        lastForce = System.nanoTime();
+        dirty = false;
+    }
+
+    private void deleteOldSegments() {
+        List<Path> segments = segmentsOf(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            try {
+                Files.deleteIfExists(segments.get(i));
+            } catch (IOException e) {
+                PhoenixCommandFramework.LOGGER.warn("Failed to delete audit segment {}", segments.get(i), e);
+            }
+        }
+    }
+
+    private void writeHandlerNames() {
+        if (newHandlers.isEmpty()) return;
+
+        StringBuilder lines = new StringBuilder();
+        for (String handlerId = newHandlers.poll(); handlerId != null; handlerId = newHandlers.poll()) {
+            lines.append(tagOf(handlerId)).append('\t').append(handlerId.replace('\n', ' ')).append('\n');
+        }
+        try {
+            Files.writeString(directory.resolve(HANDLERS_FILE), lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            PhoenixCommandFramework.LOGGER.warn("Failed to write audit handler names to {}", directory, e);
+        }
+    }
+
+    @NotNull
+    static String segmentName(long start) {
+        return SEGMENT_PREFIX + String.format("%013d", start) + SEGMENT_SUFFIX;
+    }
+
+    /**
+     * @return the segment files of a journal directory, oldest first
+     */
+    @NotNull
+    static List<Path> segmentsOf(@NotNull Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .toList());
+            segments.sort(null);
+            return segments;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list audit segments in " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package dev.eposs.pcf.audit;
+
+import dev.eposs.pcf.metrics.HandlerType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Queries the segments written by an {@link AuditJournal}, also while the journal is still writing.
+ * <p>
+ * Can be run from the command line:
+ * </p>
+ * <pre>{@code
+ * java -cp <classpath> dev.eposs.pcf.audit.AuditJournalReader <directory> [--user <id>] [--guild <id>] [--from <instant>] [--to <instant>]
+ * }</pre>
+ * <p>
+ * Instants are ISO-8601, e.g. {@code 2025-01-31T18:00:00Z}. Every matching record is printed as one
+ * tab-separated line: time, handler type, handler id, user, guild, channel, outcome and latency in milliseconds.
+ * </p>
+ */
+public class AuditJournalReader {
+    /**
+     * Records can be written to a segment slightly after it was started, so segments are only skipped by time with
+     * this margin.
+     */
+    private static final long SEGMENT_MARGIN_MILLIS = 60_000;
+
+    private static final HandlerType[] TYPES = HandlerType.values();
+    private static final AuditOutcome[] OUTCOMES = AuditOutcome.values();
+
+    private final Path directory;
+
+    /**
+     * Creates a reader.
+     *
+     * @param directory the directory of the journal
+     */
+    public AuditJournalReader(@NotNull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Passes all records matching the filters to the consumer, oldest first.
+     *
+     * @param userId   the user to match, or 0 for all users
+     * @param guildId  the guild to match, or 0 for all guilds
+     * @param from     the earliest timestamp to match, or {@code null} for no lower bound
+     * @param to       the timestamp to match records before, or {@code null} for no upper bound
+     * @param consumer receives the matching records
+     * @throws UncheckedIOException if a segment cannot be read
+     */
+    public void query(long userId, long guildId, @Nullable Instant from, @Nullable Instant to, @NotNull Consumer<AuditRecord> consumer) throws UncheckedIOException {
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+
+        List<Path> segments = AuditJournal.segmentsOf(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            if (startOf(segments.get(i)) - SEGMENT_MARGIN_MILLIS >= toMillis) break;
+            if (i + 1 < segments.size() && startOf(segments.get(i + 1)) + SEGMENT_MARGIN_MILLIS < fromMillis) continue;
+            readSegment(segments.get(i), userId, guildId, fromMillis, toMillis, consumer);
+        }
+    }
+
+    /**
+     * Returns the handler ids of the tags stored in the journal. Tags shared by several handler ids are left out,
+     * as their records cannot be attributed to one of them.
+     *
+     * @return the handler id per tag
+     * @throws UncheckedIOException if the handler names cannot be read
+     */
+    @NotNull
+    public Map<Integer, String> handlerNames() throws UncheckedIOException {
+        Map<Integer, String> names = new HashMap<>();
+        Set<Integer> ambiguous = new HashSet<>();
+        try {
+            for (String line : Files.readAllLines(directory.resolve(AuditJournal.HANDLERS_FILE), StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) continue;
+                int tag = Integer.parseInt(line.substring(0, tab));
+                String name = line.substring(tab + 1);
+                String previous = names.putIfAbsent(tag, name);
+                if (previous != null && !previous.equals(name)) ambiguous.add(tag);
+            }
+        } catch (NoSuchFileException e) {
+            return names;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read audit handler names in " + directory, e);
+        }
+        names.keySet().removeAll(ambiguous);
+        return names;
+    }
+
+    private void readSegment(@NotNull Path file, long userId, long guildId, long fromMillis, long toMillis, @NotNull Consumer<AuditRecord> consumer) {
+        MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            // Deleted by the retention of the journal in the meantime
+            return;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read audit segment " + file, e);
+        }
+
+        if (segment.remaining() < AuditJournal.HEADER_SIZE || segment.getInt() != AuditJournal.MAGIC) {
+            throw new UncheckedIOException(new IOException("Not an audit segment: " + file));
+        }
+        int version = segment.getInt();
+        int recordSize = segment.getInt();
+        if (version != AuditJournal.VERSION || recordSize != AuditJournal.RECORD_SIZE) {
+            throw new UncheckedIOException(new IOException("Unsupported audit segment version " + version + ": " + file));
+        }
+        segment.position(AuditJournal.HEADER_SIZE);
+
+        while (segment.remaining() >= AuditJournal.RECORD_SIZE) {
+            long timestamp = segment.getLong();
+            if (timestamp == 0) return;
+            long user = segment.getLong();
+            long guild = segment.getLong();
+            long channel = segment.getLong();
+            long latency = segment.getLong();
+            int tag = segment.getInt();
+            int type = segment.get() & 0xFF;
+            int outcome = segment.get() & 0xFF;
+            segment.getShort();
+
+            if (timestamp < fromMillis || timestamp >= toMillis) continue;
+            if (userId != 0 && user != userId) continue;
+            if (guildId != 0 && guild != guildId) continue;
+            if (type >= TYPES.length || outcome >= OUTCOMES.length) continue;
+            consumer.accept(new AuditRecord(timestamp, user, guild, channel, TYPES[type], tag, OUTCOMES[outcome], latency));
+        }
+    }
+
+    private static long startOf(@NotNull Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(AuditJournal.SEGMENT_PREFIX.length(), name.length() - AuditJournal.SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Prints the records of a journal matching the given filters, see the class documentation.
+     *
+     * @param args the journal directory followed by optional filters
+     */
+    public static void main(String[] args) {
+        if (args.length == 0 || args.length % 2 == 0) {
+            System.err.println("Usage: AuditJournalReader <directory> [--user <id>] [--guild <id>] [--from <instant>] [--to <instant>]");
+            System.exit(2);
+        }
+
+        long userId = 0;
+        long guildId = 0;
+        Instant from = null;
+        Instant to = null;
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                switch (args[i]) {
+                    case "--user" -> userId = Long.parseUnsignedLong(args[i + 1]);
+                    case "--guild" -> guildId = Long.parseUnsignedLong(args[i + 1]);
+                    case "--from" -> from = Instant.parse(args[i + 1]);
+                    case "--to" -> to = Instant.parse(args[i + 1]);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            System.exit(2);
+        }
+
+        AuditJournalReader reader = new AuditJournalReader(Path.of(args[0]));
+        Map<Integer, String> names = reader.handlerNames();
+        StringBuilder line = new StringBuilder();
+        reader.query(userId, guildId, from, to, record -> {
+            line.setLength(0);
+            line.append(Instant.ofEpochMilli(record.timestamp())).append('\t')
+                    .append(record.type()).append('\t')
+                    .append(names.getOrDefault(record.handlerTag(), Integer.toHexString(record.handlerTag()))).append('\t')
+                    .append(Long.toUnsignedString(record.userId())).append('\t')
+                    .append(Long.toUnsignedString(record.guildId())).append('\t')
+                    .append(Long.toUnsignedString(record.channelId())).append('\t')
+                    .append(record.outcome()).append('\t')
+                    .append(record.latencyNanos() / 1_000_000.0);
+            System.out.println(line);
+        });
+    }
+}
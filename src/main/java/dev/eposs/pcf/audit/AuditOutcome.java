@@ -0,0 +1,23 @@
+package dev.eposs.pcf.audit;
+
+/**
+ * How the handling of an interaction ended.
+ */
+public enum AuditOutcome {
+    /**
+     * The handler completed normally.
+     */
+    COMPLETED,
+    /**
+     * The handler threw or its stage completed exceptionally.
+     */
+    FAILED,
+    /**
+     * The stage of an asynchronous handler exceeded its timeout.
+     */
+    TIMED_OUT,
+    /**
+     * The dispatch executor rejected the interaction.
+     */
+    REJECTED
+}
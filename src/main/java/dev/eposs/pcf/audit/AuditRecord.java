@@ -0,0 +1,19 @@
+package dev.eposs.pcf.audit;
+
+import dev.eposs.pcf.metrics.HandlerType;
+
+/**
+ * A single entry of the {@link AuditJournal}, as returned by the {@link AuditJournalReader}.
+ *
+ * @param timestamp    when the interaction was dispatched, in epoch milliseconds
+ * @param userId       the user of the interaction
+ * @param guildId      the guild of the interaction, or 0 outside of guilds
+ * @param channelId    the channel of the interaction
+ * @param type         the type of the handler
+ * @param handlerTag   the {@linkplain AuditJournal#tagOf(String) tag} of the handler id
+ * @param outcome      how the handling ended
+ * @param latencyNanos time from dispatch until the handler completed
+ */
+public record AuditRecord(long timestamp, long userId, long guildId, long channelId, HandlerType type,
+                          int handlerTag, AuditOutcome outcome, long latencyNanos) {
+}
@@ -0,0 +1,91 @@
+package dev.eposs.pcf.audit;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer of fixed-layout audit records, written by many dispatch threads and drained by a
+ * single writer thread.
+ * <p>
+ * Producers claim a sequence number with a CAS on the head, fill the slot and publish it by storing the sequence
+ * number with release semantics; the consumer only reads slots whose published sequence matches. If the buffer
+ * is full, records are dropped instead of blocking the dispatch thread.
+ * </p>
+ */
+final class AuditRingBuffer {
+    /**
+     * Number of longs per record: timestamp, user, guild, channel, latency and the packed tag, type and outcome.
+     */
+    static final int FIELDS = 6;
+
+    private final int mask;
+    private final long[] data;
+    private final AtomicLongArray published;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+
+    /**
+     * @param capacity number of records, rounded up to a power of two
+     */
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.data = new long[size * FIELDS];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) published.set(i, -1);
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @return {@code false} if the buffer is full and the record was dropped
+     */
+    boolean offer(long timestamp, long userId, long guildId, long channelId, long latencyNanos, long packed) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail > mask) return false;
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        int offset = slot * FIELDS;
+        data[offset] = timestamp;
+        data[offset + 1] = userId;
+        data[offset + 2] = guildId;
+        data[offset + 3] = channelId;
+        data[offset + 4] = latencyNanos;
+        data[offset + 5] = packed;
+        published.setRelease(slot, sequence);
+        return true;
+    }
+
+    /**
+     * Removes the next record. Must only be called by the consumer thread.
+     *
+     * @param target receives the {@value #FIELDS} fields of the record
+     * @return {@code false} if no record is ready
+     */
+    boolean poll(@NotNull long[] target) {
+        long sequence = tail;
+        int slot = (int) (sequence & mask);
+        if (published.getAcquire(slot) != sequence) return false;
+
+        System.arraycopy(data, slot * FIELDS, target, 0, FIELDS);
+        tail = sequence + 1;
+        return true;
+    }
+
+    /**
+     * @return {@code true} if no record is ready. Must only be called by the consumer thread.
+     */
+    boolean isEmpty() {
+        long sequence = tail;
+        return published.getAcquire((int) (sequence & mask)) != sequence;
+    }
+
+    static long pack(int handlerTag, int type, int outcome) {
+        return ((long) handlerTag << 32) | ((long) (type & 0xFF) << 8) | (outcome & 0xFF);
+    }
+}
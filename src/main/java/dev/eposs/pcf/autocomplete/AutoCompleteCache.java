@@ -0,0 +1,92 @@
+package dev.eposs.pcf.autocomplete;
+
+import net.dv8tion.jda.api.interactions.commands.Command;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Suggestion cache keyed by (command, option, input) with time-based expiry and least-recently-used eviction.
+ * <p>
+ * Users typing the same prefixes, such as the first letters of a popular item, are answered from the cache
+ * without calling the {@link AutoCompleteHandler}, directly on the event thread.
+ * </p>
+ */
+public class AutoCompleteCache {
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates a cache with the default TTL and size.
+     */
+    public AutoCompleteCache() {
+        this(DEFAULT_TTL, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param ttl        how long suggestions are reused, must be positive
+     * @param maxEntries maximum number of cached inputs, must be positive
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public AutoCompleteCache(@NotNull Duration ttl, int maxEntries) throws IllegalArgumentException {
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("TTL must be positive.");
+        if (maxEntries <= 0) throw new IllegalArgumentException("Max entries must be positive.");
+
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the cached suggestions, or {@code null} if there are none or they expired
+     */
+    @Nullable
+    synchronized List<Command.Choice> get(@NotNull String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (System.nanoTime() - entry.created > ttlNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.choices;
+    }
+
+    synchronized void put(@NotNull String key, @NotNull List<Command.Choice> choices) {
+        entries.put(key, new Entry(choices, System.nanoTime()));
+    }
+
+    /**
+     * Drops all cached suggestions, e.g. after the underlying data changed.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of cached inputs, including expired ones not evicted yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @NotNull
+    static String key(@NotNull String command, @NotNull String option, @NotNull String input) {
+        return command + '\0' + option + '\0' + input;
+    }
+
+    private record Entry(List<Command.Choice> choices, long created) {
+    }
+}
@@ -0,0 +1,163 @@
+package dev.eposs.pcf.autocomplete;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.metrics.HandlerType;
+import dev.eposs.pcf.metrics.IMetricsSink;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs {@link AutoCompleteHandler autocomplete handlers} and sends their suggestions.
+ * <p>
+ * Autocomplete interactions take a fast path that bypasses the dispatch executor and the deferral watchdog, since
+ * they can neither be deferred nor answered later:
+ * </p>
+ * <ul>
+ *   <li>cached suggestions and {@linkplain AutoCompleteHandler#isInline() inline} handlers are answered directly
+ *   on the event thread,</li>
+ *   <li>all other handlers run on their own virtual thread. Only the newest request of a user is kept: an older
+ *   request still running is interrupted and its suggestions are discarded.</li>
+ * </ul>
+ * <p>
+ * Execution time and exceptions are reported to the {@linkplain PhoenixCommandFramework#getMetricsSink() metrics
+ * sink} as {@link HandlerType#AUTOCOMPLETE}, using the full command name and the option name as id.
+ * </p>
+ */
+public class AutoCompleteDispatcher {
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("PCF-AutoComplete").factory();
+    private final Map<Long, Request> latest = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    /**
+     * Answers an autocomplete interaction with the suggestions of a handler.
+     *
+     * @param event   the autocomplete interaction
+     * @param handler the handler of the focused option
+     */
+    public void dispatch(@NotNull CommandAutoCompleteInteractionEvent event, @NotNull AutoCompleteHandler handler) {
+        String option = event.getFocusedOption().getName();
+        String input = event.getFocusedOption().getValue();
+        String handlerId = event.getFullCommandName() + " " + option;
+
+        AutoCompleteCache cache = handler.getCache();
+        String key = cache == null ? null : AutoCompleteCache.key(event.getFullCommandName(), option, input);
+        if (cache != null) {
+            List<Command.Choice> cached = cache.get(key);
+            if (cached != null) {
+                cacheHits.increment();
+                reply(event, cached);
+                return;
+            }
+        }
+
+        if (handler.isInline()) {
+            List<Command.Choice> choices = complete(event, handler, handlerId, input);
+            if (choices != null && cache != null) cache.put(key, choices);
+            reply(event, choices);
+            return;
+        }
+
+        long userId = event.getUser().getIdLong();
+        Request request = new Request();
+        request.thread = threadFactory.newThread(() -> {
+            try {
+                if (request.cancelled) return;
+                List<Command.Choice> choices = complete(event, handler, handlerId, input);
+                if (choices != null && cache != null) cache.put(key, choices);
+                if (request.cancelled) {
+                    cancelled.increment();
+                    return;
+                }
+                reply(event, choices);
+            } finally {
+                latest.remove(userId, request);
+            }
+        });
+
+        Request previous = latest.put(userId, request);
+        if (previous != null) previous.cancel();
+        request.thread.start();
+    }
+
+    /**
+     * Answers an autocomplete interaction that failed the permission policy or rate limit of its command with no
+     * suggestions.
+     *
+     * @param event the autocomplete interaction
+     */
+    public void deny(@NotNull CommandAutoCompleteInteractionEvent event) {
+        denied.increment();
+        reply(event, List.of());
+    }
+
+    /**
+     * @return number of interactions answered from a cache
+     */
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return number of requests whose suggestions were discarded because a newer request of the same user arrived
+     */
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+
+    /**
+     * @return number of interactions answered without suggestions by {@link #deny(CommandAutoCompleteInteractionEvent)}
+     */
+    public long getDeniedCount() {
+        return denied.sum();
+    }
+
+    /**
+     * @return the suggestions, or {@code null} if the handler failed or was interrupted
+     */
+    @Nullable
+    private static List<Command.Choice> complete(@NotNull CommandAutoCompleteInteractionEvent event, @NotNull AutoCompleteHandler handler,
+                                                 @NotNull String handlerId, @NotNull String input) {
+        IMetricsSink metrics = PhoenixCommandFramework.getMetricsSink();
+        long start = System.nanoTime();
+        metrics.executionStarted(HandlerType.AUTOCOMPLETE, handlerId);
+        try {
+            List<Command.Choice> choices = handler.complete(event, input);
+            return choices.size() > OptionData.MAX_CHOICES ? List.copyOf(choices.subList(0, OptionData.MAX_CHOICES)) : choices;
+        } catch (InterruptedException e) {
+            return null;
+        } catch (Exception e) {
+            metrics.recordException(HandlerType.AUTOCOMPLETE, handlerId, e);
+            PhoenixCommandFramework.LOGGER.error("Autocomplete of {} failed", handlerId, e);
+            return null;
+        } finally {
+            metrics.recordExecution(HandlerType.AUTOCOMPLETE, handlerId, System.nanoTime() - start);
+            metrics.executionFinished(HandlerType.AUTOCOMPLETE, handlerId);
+        }
+    }
+
+    private static void reply(@NotNull CommandAutoCompleteInteractionEvent event, @Nullable List<Command.Choice> choices) {
+        event.replyChoices(choices == null ? List.of() : choices).queue(null, e ->
+                PhoenixCommandFramework.LOGGER.debug("Failed to send autocomplete choices", e));
+    }
+
+    private static final class Request {
+        private volatile boolean cancelled;
+        private Thread thread;
+
+        private void cancel() {
+            cancelled = true;
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package dev.eposs.pcf.autocomplete;
+
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Provides the suggestions for a single command option with autocomplete enabled.
+ * <p>
+ * Autocomplete handlers are attached to a command or sub-command by option name, see
+ * {@link dev.eposs.pcf.command.CommandHandler#getAutoCompleteHandlers()}. They are called on every keystroke, so
+ * they should be fast; see {@link AutoCompleteDispatcher} for how they are executed.
+ * </p>
+ */
+public interface AutoCompleteHandler {
+
+    /**
+     * Computes the suggestions for the current input. At most {@value net.dv8tion.jda.api.interactions.commands.build.OptionData#MAX_CHOICES}
+     * choices are sent, further ones are dropped.
+     *
+     * @param event the autocomplete interaction
+     * @param input the current value of the focused option
+     * @return the suggestions
+     * @throws Exception if the suggestions cannot be computed, the user then gets no suggestions
+     */
+    @NotNull
+    List<Command.Choice> complete(@NotNull CommandAutoCompleteInteractionEvent event, @NotNull String input) throws Exception;
+
+    /**
+     * Whether the handler is cheap enough to run directly on the JDA event thread, e.g. filtering a constant list.
+     * Handlers doing I/O must return {@code false}.
+     *
+     * @return {@code true} to run inline, {@code false} to run on a virtual thread
+     */
+    default boolean isInline() {
+        return false;
+    }
+
+    /**
+     * The cache for the suggestions of this handler. Only use a cache if the suggestions depend on the command,
+     * option and input only. Must return the same instance on every call.
+     *
+     * @return the cache, or {@code null} to compute suggestions on every keystroke
+     */
+    @Nullable
+    default AutoCompleteCache getCache() {
+        return null;
+    }
+}
@@ -0,0 +1,33 @@
+package dev.eposs.pcf.button;
+
+import dev.eposs.pcf.AsyncHandler;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * {@link ButtonHandler} whose execution completes asynchronously, see {@link AsyncHandler}.
+ */
+public interface AsyncButtonHandler extends ButtonHandler, AsyncHandler {
+
+    /**
+     * Starts the action for the given button interaction.
+     *
+     * @param event the JDA button interaction event
+     * @return a stage completing once the action is done
+     * @throws Exception if starting the action fails
+     */
+    CompletionStage<?> executeAsync(@NotNull ButtonInteractionEvent event) throws Exception;
+
+    /**
+     * Runs {@link #executeAsync(ButtonInteractionEvent)} and blocks until it completes.
+     *
+     * @param event the JDA button interaction event
+     * @throws Exception if the execution fails for any reason
+     */
+    @Override
+    default void execute(@NotNull ButtonInteractionEvent event) throws Exception {
+        AsyncHandler.await(executeAsync(event));
+    }
+}
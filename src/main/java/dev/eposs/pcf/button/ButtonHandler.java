@@ -1,5 +1,9 @@
 package dev.eposs.pcf.button;
 
+import dev.eposs.pcf.GuardedHandler;
+import dev.eposs.pcf.customid.CustomIdReader;
+import dev.eposs.pcf.customid.CustomIdWriter;
+import dev.eposs.pcf.session.ComponentSessionStore;
 import net.dv8tion.jda.api.components.buttons.Button;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
 import org.jetbrains.annotations.NotNull;
@@ -12,7 +16,7 @@ import org.jetbrains.annotations.NotNull;
  * incoming custom id starts with the given prefix.
  * </p>
  */
-public interface ButtonHandler {
+public interface ButtonHandler extends GuardedHandler {
 
     /**
      * The unique prefix used to identify and route button interactions for this action.
@@ -41,4 +45,41 @@ public interface ButtonHandler {
     default Button withPrefixedId(@NotNull Button buttonWithSuffix) {
         return buttonWithSuffix.withCustomId(getIdPrefix() + buttonWithSuffix.getCustomId());
     }
+
+    /**
+     * Utility to reference server-side state from a button instead of packing it into the custom id.
+     * The state is stored in the given store and the button gets this action's {@link #getIdPrefix()} followed by
+     * the session token as custom id; {@link ComponentSessionStore#fromCustomId(String, String)} resolves it again.
+     *
+     * @param button the button, its custom id is replaced
+     * @param store  the store holding the state
+     * @param state  the state of the button
+     * @param <T>    the state type
+     * @return a new {@link Button} instance with the full custom id consisting of prefix + session token
+     */
+    default <T> Button withSession(@NotNull Button button, @NotNull ComponentSessionStore<T> store, @NotNull T state) {
+        return button.withCustomId(store.customId(getIdPrefix(), state));
+    }
+
+    /**
+     * Utility to encode typed fields into a custom id routed to this action.
+     * Use {@link dev.eposs.pcf.customid.CustomIdCodec#tagPrefix(int)} as {@link #getIdPrefix()} to keep the
+     * routing part of the custom id to a few characters.
+     *
+     * @return a new writer starting with this action's {@link #getIdPrefix()}
+     */
+    default CustomIdWriter customIdWriter() {
+        return new CustomIdWriter(getIdPrefix());
+    }
+
+    /**
+     * Utility to read the fields of a custom id written by {@link #customIdWriter()}.
+     *
+     * @param customId the custom id of the clicked button
+     * @return a reader positioned after this action's {@link #getIdPrefix()}
+     * @throws IllegalArgumentException if the custom id does not start with the prefix
+     */
+    default CustomIdReader customIdReader(@NotNull String customId) throws IllegalArgumentException {
+        return CustomIdReader.of(getIdPrefix(), customId);
+    }
 }
@@ -1,54 +1,91 @@
 package dev.eposs.pcf.button;
 
+import dev.eposs.pcf.util.PrefixIndex;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Simple registry for {@link ButtonHandler} implementations keyed by their {@link ButtonHandler#getIdPrefix()}.
  * <p>
  * It provides a lookup by a Discord component custom id by checking if the custom id starts with any
- * registered action's id prefix. Registration happens during class initialization and is not intended to be
- * modified at runtime.
+ * registered action's id prefix. Registration usually happens during startup; changes at runtime that have to
+ * stay consistent with other registries go through {@link dev.eposs.pcf.reload.HandlerTransaction}.
+ * </p>
+ * <p>
+ * Lookups go through a compiled {@link PrefixIndex} that is rebuilt copy-on-write on every registration, so
+ * their cost depends on the custom id length only. If several prefixes match, the longest one wins.
  * </p>
  */
 public class ButtonRegistry {
     private ButtonRegistry() {
     }
 
-    private static final Map<String, ButtonHandler> BUTTONS = new ConcurrentHashMap<>();
+    private static volatile PrefixIndex<ButtonHandler> buttons = PrefixIndex.empty();
 
     /**
      * Registers a single action in the registry using its {@link ButtonHandler#getIdPrefix()} as the key.
      *
      * @param action the action to register (must not be null)
+     * @throws IllegalArgumentException if the prefix is empty or already registered by another action
      */
-    public static void register(ButtonHandler action) {
-        BUTTONS.put(action.getIdPrefix(), action);
+    public static void register(ButtonHandler action) throws IllegalArgumentException {
+        register(new ButtonHandler[]{action});
     }
 
     /**
-     * Registers multiple actions.
+     * Registers multiple actions. The index is compiled once for the whole batch.
      *
      * @param actions the actions to register
+     * @throws IllegalArgumentException if a prefix is empty or already registered by another action
+     */
+    public static synchronized void register(@NotNull ButtonHandler... actions) throws IllegalArgumentException {
+        buttons = buttons.withAll(Arrays.asList(actions), ButtonHandler::getIdPrefix);
+    }
+
+    /**
+     * Removes the action registered under the given id prefix.
+     *
+     * @param idPrefix the id prefix of the action
+     * @return {@code true} if an action was removed
      */
-    public static void register(@NotNull ButtonHandler... actions) {
-        for (ButtonHandler action : actions) register(action);
+    public static synchronized boolean unregister(@NotNull String idPrefix) {
+        PrefixIndex<ButtonHandler> updated = buttons.apply(List.of(idPrefix), List.of(), ButtonHandler::getIdPrefix);
+        boolean changed = updated != buttons;
+        buttons = updated;
+        return changed;
+    }
+
+    /**
+     * Validates a batch of removals and additions and compiles the resulting index without publishing it.
+     * Removals are applied first, so removing and adding the same prefix replaces its action.
+     * <p>
+     * The returned task publishes the change. Callers must hold the lock of this class from preparing until
+     * publishing, see {@link dev.eposs.pcf.reload.HandlerTransaction}.
+     * </p>
+     *
+     * @param removedPrefixes the id prefixes to remove
+     * @param added           the actions to add
+     * @return the task publishing the change
+     * @throws IllegalArgumentException if a prefix is empty or already registered by another action
+     */
+    @NotNull
+    public static Runnable prepareChange(@NotNull Collection<String> removedPrefixes, @NotNull Collection<? extends ButtonHandler> added) throws IllegalArgumentException {
+        PrefixIndex<ButtonHandler> updated = buttons.apply(removedPrefixes, added, ButtonHandler::getIdPrefix);
+        return () -> buttons = updated;
     }
 
     /**
-     * Finds a registered {@link ButtonHandler} whose {@link ButtonHandler#getIdPrefix()} is a prefix of the given custom id.
+     * Finds a registered {@link ButtonHandler} whose {@link ButtonHandler#getIdPrefix()} is the longest prefix of the given custom id.
      *
      * @param customId the custom id received from a {@code ButtonInteractionEvent}
      * @return an {@link Optional} containing the matching action if present; otherwise an empty optional
      */
     @NotNull
     public static Optional<ButtonHandler> getButton(String customId) {
-        return BUTTONS.entrySet().stream()
-                .filter(entry -> customId.startsWith(entry.getKey()))
-                .map(Map.Entry::getValue)
-                .findFirst();
+        return Optional.ofNullable(buttons.longestMatch(customId));
     }
 }
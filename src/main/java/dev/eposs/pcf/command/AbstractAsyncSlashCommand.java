@@ -0,0 +1,37 @@
+package dev.eposs.pcf.command;
+
+import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Variant of {@link AbstractSlashCommand} for commands with {@link AsyncSubCommandHandler}s.
+ * <p>
+ * The listener runs the command through {@link #executeAsync(GenericCommandInteractionEvent)}, so asynchronous
+ * sub-commands do not block a thread and are cancelled once they exceed their own
+ * {@linkplain dev.eposs.pcf.AsyncHandler#getTimeout() timeout}. Synchronous sub-commands run before
+ * {@code executeAsync} returns. Subclasses customizing the execution override {@code executeAsync};
+ * {@link #execute(GenericCommandInteractionEvent)} stays the synchronous execution of {@link AbstractSlashCommand}
+ * for callers that are not aware of asynchronous handlers.
+ * </p>
+ */
+public abstract class AbstractAsyncSlashCommand extends AbstractSlashCommand implements AsyncCommandHandler {
+
+    /**
+     * Same as {@link #execute(GenericCommandInteractionEvent)}, but starts the chosen sub-command without
+     * blocking on an {@link AsyncSubCommandHandler}.
+     *
+     * @param genericEvent the incoming interaction event
+     * @return a stage completing once the sub-command is done
+     * @throws Exception if a sub-command execution throws
+     */
+    @Override
+    public CompletionStage<?> executeAsync(GenericCommandInteractionEvent genericEvent) throws Exception {
+        if (!(genericEvent instanceof SlashCommandInteractionEvent event)) return CompletableFuture.completedFuture(null);
+
+        if (!event.isAcknowledged()) event.deferReply(isEphemeral(event)).queue();
+        return executeSubCommandAsync(event);
+    }
+}
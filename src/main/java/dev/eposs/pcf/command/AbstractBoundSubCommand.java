@@ -0,0 +1,58 @@
+package dev.eposs.pcf.command;
+
+import dev.eposs.pcf.command.option.OptionBinder;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Convenience base class for sub-commands whose options are declared as an argument record.
+ * <p>
+ * The {@link OptionBinder} and the {@link SubcommandData} are built once in the constructor, so every invocation
+ * receives its fully converted arguments without looking up options by name.
+ * </p>
+ *
+ * @param <T> the argument record type, see {@link OptionBinder}
+ */
+public abstract class AbstractBoundSubCommand<T extends Record> implements SubCommandHandler {
+    private final OptionBinder<T> binder;
+    private final SubcommandData subCommandData;
+
+    /**
+     * Creates the sub-command.
+     *
+     * @param name        the sub-command name
+     * @param description the sub-command description
+     * @param arguments   the argument record type
+     * @throws IllegalArgumentException if the argument record cannot be bound
+     */
+    protected AbstractBoundSubCommand(@NotNull String name, @NotNull String description, @NotNull Class<T> arguments) throws IllegalArgumentException {
+        this.binder = OptionBinder.of(arguments);
+        this.subCommandData = new SubcommandData(name, description).addOptions(binder.getOptions());
+    }
+
+    @Override
+    public SubcommandData getSubCommandData() {
+        return subCommandData;
+    }
+
+    /**
+     * Binds the options of the event and executes the sub-command with them.
+     *
+     * @param event the slash command interaction event
+     * @throws Exception if command execution fails
+     */
+    @Override
+    public void execute(SlashCommandInteractionEvent event) throws Exception {
+        execute(event, binder.bind(event));
+    }
+
+    /**
+     * Executes the sub-command logic.
+     *
+     * @param event     the slash command interaction event
+     * @param arguments the bound options
+     * @throws Exception if command execution fails
+     */
+    protected abstract void execute(@NotNull SlashCommandInteractionEvent event, @NotNull T arguments) throws Exception;
+}
@@ -1,6 +1,6 @@
 package dev.eposs.pcf.command;
 
-import dev.eposs.pcf.permission.PermissionChecker;
+import dev.eposs.pcf.permission.PermissionPolicy;
 import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 
@@ -14,8 +14,13 @@ import java.util.Map;
  * Subclasses can register {@link SubCommandHandler} instances in the constructor via
  * {@link SlashCommandHandler#registerSubCommand(SubCommandHandler)} or
  * {@link SlashCommandHandler#registerSubCommands(SubCommandHandler...)}.
+ * <p>
+ * The command runs synchronously and has no timeout, {@link AsyncSubCommandHandler}s block until they complete.
+ * Commands with asynchronous sub-commands extend {@link AbstractAsyncSlashCommand} instead.
  */
 public abstract class AbstractSlashCommand implements SlashCommandHandler {
+    private static final PermissionPolicy OWNER_ONLY = PermissionPolicy.botOwner();
+
     /**
      * Mutable registry of sub-commands mapped by their name.
      */
@@ -31,10 +36,20 @@ public abstract class AbstractSlashCommand implements SlashCommandHandler {
         return subCommands;
     }
 
+    /**
+     * Restricts the command to the bot owner by default. The policy is checked before dispatching.
+     *
+     * @return the owner-only policy
+     */
+    @Override
+    public PermissionPolicy getPermissionPolicy() {
+        return OWNER_ONLY;
+    }
+
     /**
      * Default execution that safely casts the generic interaction to a slash
-     * command interaction, enforces owner-only access, defers the reply with
-     * the appropriate ephemeral state, and dispatches to the chosen sub-command.
+     * command interaction, defers the reply with the appropriate ephemeral
+     * state unless it was already acknowledged, and dispatches to the chosen sub-command.
      *
      * @param genericEvent the incoming interaction event
      * @throws Exception if a sub-command execution throws
@@ -42,10 +57,8 @@ public abstract class AbstractSlashCommand implements SlashCommandHandler {
     @Override
     public void execute(GenericCommandInteractionEvent genericEvent) throws Exception {
         if (!(genericEvent instanceof SlashCommandInteractionEvent event)) return;
-        PermissionChecker permissionChecker = new PermissionChecker(event);
-        if (!permissionChecker.isBotOwner()) return;
 
-        event.deferReply(isEphemeral(event)).queue();
+        if (!event.isAcknowledged()) event.deferReply(isEphemeral(event)).queue();
         executeSubCommand(event);
     }
 }
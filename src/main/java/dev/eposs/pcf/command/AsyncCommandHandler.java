@@ -0,0 +1,33 @@
+package dev.eposs.pcf.command;
+
+import dev.eposs.pcf.AsyncHandler;
+import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * {@link CommandHandler} whose execution completes asynchronously, see {@link AsyncHandler}.
+ */
+public interface AsyncCommandHandler extends CommandHandler, AsyncHandler {
+
+    /**
+     * Starts the command for a generic interaction event.
+     * Implementations may down-cast the event to a concrete type as needed.
+     *
+     * @param genericEvent the incoming interaction
+     * @return a stage completing once the command is done
+     * @throws Exception if starting the command fails
+     */
+    CompletionStage<?> executeAsync(GenericCommandInteractionEvent genericEvent) throws Exception;
+
+    /**
+     * Runs {@link #executeAsync(GenericCommandInteractionEvent)} and blocks until it completes.
+     *
+     * @param genericEvent the incoming interaction
+     * @throws Exception if execution fails
+     */
+    @Override
+    default void execute(GenericCommandInteractionEvent genericEvent) throws Exception {
+        AsyncHandler.await(executeAsync(genericEvent));
+    }
+}
@@ -0,0 +1,34 @@
+package dev.eposs.pcf.command;
+
+import dev.eposs.pcf.AsyncHandler;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * {@link SubCommandHandler} whose execution completes asynchronously, see {@link AsyncHandler}.
+ * The parent command only composes it without blocking if it uses
+ * {@link SlashCommandHandler#executeSubCommandAsync(SlashCommandInteractionEvent)}, as {@link AbstractAsyncSlashCommand} does.
+ */
+public interface AsyncSubCommandHandler extends SubCommandHandler, AsyncHandler {
+
+    /**
+     * Starts the sub-command logic for the given event.
+     *
+     * @param event the slash command interaction event
+     * @return a stage completing once the sub-command is done
+     * @throws Exception if starting the sub-command fails
+     */
+    CompletionStage<?> executeAsync(SlashCommandInteractionEvent event) throws Exception;
+
+    /**
+     * Runs {@link #executeAsync(SlashCommandInteractionEvent)} and blocks until it completes.
+     *
+     * @param event the slash command interaction event
+     * @throws Exception if command execution fails
+     */
+    @Override
+    default void execute(SlashCommandInteractionEvent event) throws Exception {
+        AsyncHandler.await(executeAsync(event));
+    }
+}
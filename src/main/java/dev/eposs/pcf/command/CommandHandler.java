@@ -1,8 +1,11 @@
 package dev.eposs.pcf.command;
 
+import dev.eposs.pcf.GuardedHandler;
+import dev.eposs.pcf.autocomplete.AutoCompleteHandler;
 import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -11,7 +14,7 @@ import java.util.Set;
  * Implementations provide the JDA {@link CommandData} used during command
  * registration and the execution logic for incoming interactions.
  */
-public interface CommandHandler {
+public interface CommandHandler extends GuardedHandler {
 
     /**
      * Provides the JDA command definition for this command.
@@ -23,6 +26,7 @@ public interface CommandHandler {
     /**
      * Retrieves the set of target guild IDs where the command will be registered as a guild-specific command.
      * If the set is empty, the command will be registered across all available guilds.
+     * The set is read when the command is registered, later changes to it are not picked up.
      *
      * @return a set of guild IDs as strings indicating the target guilds for command registration, or an empty set if the command should be registered globally.
      */
@@ -36,4 +40,14 @@ public interface CommandHandler {
      * @throws Exception if execution fails
      */
     void execute(GenericCommandInteractionEvent genericEvent) throws Exception;
+
+    /**
+     * Autocomplete handlers of the options of this command, keyed by option name. The options must have
+     * autocomplete enabled in the command data.
+     *
+     * @return map of option name to its autocomplete handler
+     */
+    default Map<String, AutoCompleteHandler> getAutoCompleteHandlers() {
+        return Map.of();
+    }
 }
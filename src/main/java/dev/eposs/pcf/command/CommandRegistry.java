@@ -1,13 +1,28 @@
 package dev.eposs.pcf.command;
 
 import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.command.sync.CommandRegistrationScheduler;
+import dev.eposs.pcf.command.sync.CommandSet;
+import dev.eposs.pcf.command.sync.CommandSyncEngine;
+import dev.eposs.pcf.command.sync.ICommandSyncStore;
+import dev.eposs.pcf.command.sync.InMemoryCommandSyncStore;
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.events.session.ReadyEvent;
+import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * Central registry for all bot commands.
@@ -18,41 +33,195 @@ import java.util.concurrent.ConcurrentHashMap;
  *   <li>GUILD – registered per guild.</li>
  * </ul>
  * This class also provides helpers to publish the registered commands to Discord via JDA.
+ * Publishing goes through a {@link CommandSyncEngine}, so a command set is only sent to Discord if it changed
+ * since it was last published. Use {@link #setSyncStore(ICommandSyncStore)} to persist that state across restarts.
+ * Required updates are paced through a {@link CommandRegistrationScheduler}. The command set of every guild is
+ * precomputed on registration, so setting up a guild is a single lookup.
+ * <p>
+ * Under a {@link net.dv8tion.jda.api.sharding.ShardManager}, global commands are set up once per process through
+ * shard 0 when it becomes ready, not once per shard; updates are queued per shard, see
+ * {@link CommandRegistrationScheduler}. A scope whose command set is already queued is not queued again, and a
+ * guild that becomes ready again after a reconnect only costs a hash comparison.
+ * </p>
  */
 public class CommandRegistry {
     private CommandRegistry() {
     }
 
     /**
-     * Holds globally available commands mapped by their command name.
+     * Immutable snapshot of all registered commands, replaced as a whole on every registration change.
+     */
+    private static volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), GuildCommandIndex.EMPTY);
+    /**
+     * Decides whether a command set has to be published. Only remembers published sets in memory by default.
+     */
+    private static volatile CommandSyncEngine syncEngine = new CommandSyncEngine(new InMemoryCommandSyncStore());
+    /**
+     * Paces the command updates that actually have to be sent.
      */
-    private static final Map<String, CommandHandler> GLOBAL_COMMANDS = new ConcurrentHashMap<>();
+    private static volatile CommandRegistrationScheduler scheduler = new CommandRegistrationScheduler();
     /**
-     * Holds per-guild commands mapped by their command name.
+     * Whether the global commands were already set up on a ready event of this process.
      */
-    private static final Map<String, CommandHandler> GUILD_COMMANDS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean globalSetUpOnReady = new AtomicBoolean();
+    /**
+     * Hash of the command set currently queued per scope, so repeated setups do not queue the same update twice.
+     */
+    private static final Map<String, String> queued = new ConcurrentHashMap<>();
 
     /**
-     * Registers a single command for the given scope.
+     * Replaces the store that remembers which command sets were already published to Discord.
      *
-     * @param type    the registration scope (GLOBAL or GUILD)
-     * @param command the command instance to register
+     * @param store the new store, e.g. a {@link dev.eposs.pcf.command.sync.FileCommandSyncStore}
      */
-    private static void register(@NotNull Type type, CommandHandler command) {
-        switch (type) {
-            case GLOBAL -> GLOBAL_COMMANDS.put(command.getCommandData().getName(), command);
-            case GUILD -> GUILD_COMMANDS.put(command.getCommandData().getName(), command);
-        }
+    public static void setSyncStore(@NotNull ICommandSyncStore store) {
+        syncEngine = new CommandSyncEngine(store);
+    }
+
+    /**
+     * Replaces the scheduler pacing the command updates. The previous scheduler is shut down, which fails the
+     * updates still queued on it; the next setup queues them on the new scheduler.
+     *
+     * @param registrationScheduler the new scheduler
+     */
+    public static void setRegistrationScheduler(@NotNull CommandRegistrationScheduler registrationScheduler) {
+        CommandRegistrationScheduler previous = scheduler;
+        scheduler = registrationScheduler;
+        if (previous == registrationScheduler) return;
+
+        // Forget the updates of the previous scheduler, so they are not skipped as already queued on the new one
+        queued.clear();
+        previous.shutdown();
+    }
+
+    /**
+     * Returns the progress of the command updates, e.g. to gate health checks on the initial registration.
+     *
+     * @return the progress of the registration scheduler
+     */
+    @NotNull
+    public static CommandRegistrationScheduler.Progress getRegistrationProgress() {
+        return scheduler.getProgress();
     }
 
     /**
-     * Registers multiple commands for the given scope.
+     * Registers multiple commands for the given scope. A command replaces an already registered command with
+     * the same name.
      *
      * @param type     the registration scope (GLOBAL or GUILD)
      * @param commands the command instances to register
+     * @throws IllegalArgumentException if a target guild ID of a guild command is not a valid snowflake
+     */
+    public static synchronized void register(@NotNull Type type, @NotNull CommandHandler... commands) throws IllegalArgumentException {
+        prepareChange(Map.of(), Map.of(type, List.of(commands))).publish();
+    }
+
+    /**
+     * Removes a command from the given scope. The change reaches Discord with the next command setup.
+     *
+     * @param type the registration scope (GLOBAL or GUILD)
+     * @param name the name of the command to remove
+     * @return {@code true} if a command was removed
      */
-    public static void register(@NotNull Type type, @NotNull CommandHandler... commands) {
-        for (CommandHandler command : commands) register(type, command);
+    public static synchronized boolean unregister(@NotNull Type type, @NotNull String name) {
+        PreparedCommandChange change = prepareChange(Map.of(type, List.of(name)), Map.of());
+        change.publish();
+        return change.isChanged();
+    }
+
+    /**
+     * Validates a batch of removals and additions and computes the resulting registry state without publishing
+     * it. Removals are applied first, so removing and adding the same name replaces the command.
+     * <p>
+     * Callers must hold the lock of this class from preparing until {@linkplain PreparedCommandChange#publish()
+     * publishing}, see {@link dev.eposs.pcf.reload.HandlerTransaction}.
+     * </p>
+     *
+     * @param removals  command names to remove per scope
+     * @param additions commands to add per scope
+     * @return the prepared change, describing which command scopes are affected
+     * @throws IllegalArgumentException if a target guild ID of a guild command is not a valid snowflake
+     */
+    @NotNull
+    public static PreparedCommandChange prepareChange(@NotNull Map<Type, ? extends Collection<String>> removals,
+                                                      @NotNull Map<Type, ? extends Collection<? extends CommandHandler>> additions) throws IllegalArgumentException {
+        Snapshot current = snapshot;
+
+        Map<String, CommandHandler> global = new HashMap<>(current.global());
+        boolean globalChanged = false;
+        for (String name : entriesOf(removals, Type.GLOBAL)) {
+            globalChanged |= global.remove(name) != null;
+        }
+        for (CommandHandler command : entriesOf(additions, Type.GLOBAL)) {
+            globalChanged |= global.put(command.getCommandData().getName(), command) != command;
+        }
+
+        Map<String, CommandHandler> guild = new HashMap<>(current.guild());
+        GuildCommandIndex index = current.index();
+        boolean allGuilds = false;
+        Set<Long> affectedGuilds = new HashSet<>();
+        for (String name : entriesOf(removals, Type.GUILD)) {
+            CommandHandler previous = guild.remove(name);
+            if (previous == null) continue;
+            allGuilds |= collectTargets(index.targetsOf(previous), affectedGuilds);
+            index = index.replace(previous, null);
+        }
+        for (CommandHandler command : entriesOf(additions, Type.GUILD)) {
+            CommandHandler previous = guild.put(command.getCommandData().getName(), command);
+            if (previous == command) continue;
+            if (previous != null) allGuilds |= collectTargets(index.targetsOf(previous), affectedGuilds);
+            index = index.replace(previous, command);
+            allGuilds |= collectTargets(index.targetsOf(command), affectedGuilds);
+        }
+
+        boolean guildChanged = index != current.index();
+        Snapshot next = new Snapshot(
+                globalChanged ? Map.copyOf(global) : current.global(),
+                guildChanged ? Map.copyOf(guild) : current.guild(),
+                index
+        );
+        return new PreparedCommandChange(() -> snapshot = next, globalChanged, guildChanged && allGuilds,
+                guildChanged ? Set.copyOf(affectedGuilds) : Set.of());
+    }
+
+    @NotNull
+    private static <E> Collection<? extends E> entriesOf(@NotNull Map<Type, ? extends Collection<? extends E>> entries, @NotNull Type type) {
+        Collection<? extends E> scoped = entries.get(type);
+        return scoped != null ? scoped : List.of();
+    }
+
+    /**
+     * Adds the target guilds of a guild command, as recorded by the index, to the given set.
+     *
+     * @return {@code true} if the command targets all guilds
+     */
+    private static boolean collectTargets(@NotNull Set<Long> targets, @NotNull Set<Long> guildIds) {
+        guildIds.addAll(targets);
+        return targets.isEmpty();
+    }
+
+    /**
+     * Publishes only the command scopes touched by a published change, e.g. after a hot reload.
+     * Global commands are published through the first given shard, guild commands of affected guilds through
+     * the shard that holds the guild.
+     *
+     * @param change the published change
+     * @param shards the JDA instances of the bot
+     */
+    public static void setupChangedCommands(@NotNull PreparedCommandChange change, @NotNull Collection<? extends JDA> shards) {
+        if (shards.isEmpty()) return;
+
+        if (change.isGlobalChanged()) setupGlobalCommands(shards.iterator().next());
+        for (JDA shard : shards) {
+            if (change.isAllGuildsAffected()) {
+                shard.getGuildCache().forEach(CommandRegistry::setupGuildCommands);
+                continue;
+            }
+            for (long guildId : change.getAffectedGuildIds()) {
+                Guild guild = shard.getGuildById(guildId);
+                if (guild != null) setupGuildCommands(guild);
+            }
+        }
     }
 
     /**
@@ -63,34 +232,93 @@ public class CommandRegistry {
      */
     @NotNull
     public static Optional<CommandHandler> getCommand(String name) {
-        CommandHandler command = GLOBAL_COMMANDS.get(name);
-        if (command == null) command = GUILD_COMMANDS.get(name);
+        Snapshot current = snapshot;
+        CommandHandler command = current.global().get(name);
+        if (command == null) command = current.guild().get(name);
         return Optional.ofNullable(command);
     }
 
     /**
-     * Publishes the currently registered global commands to Discord.
+     * Publishes the currently registered global commands to Discord, unless they are unchanged.
+     * Only the first ready event of shard 0 in this process does so, since global commands are shared by all
+     * shards; later ready events, e.g. of restarted shards, are ignored unless that update failed. Registration changes at runtime are
+     * published with {@link #setupChangedCommands(PreparedCommandChange, Collection)}.
      *
      * @param event the ReadyEvent fired when JDA is ready
      */
     public static void setupGlobalCommands(@NotNull ReadyEvent event) {
-        event.getJDA().updateCommands().addCommands(GLOBAL_COMMANDS.values().stream().map(CommandHandler::getCommandData).toList()).queue();
-        PhoenixCommandFramework.LOGGER.info("Updated global commands for {}", event.getJDA().getSelfUser().getName());
+        JDA jda = event.getJDA();
+        if (jda.getShardInfo().getShardId() != 0 || !globalSetUpOnReady.compareAndSet(false, true)) {
+            PhoenixCommandFramework.LOGGER.debug("Skipped global command setup on ready of shard {}", jda.getShardInfo().getShardId());
+            return;
+        }
+        // Allow the next ready event to retry if the update failed
+        syncGlobalCommands(jda).whenComplete((updated, e) -> {
+            if (e != null) globalSetUpOnReady.set(false);
+        });
     }
 
     /**
-     * Publishes the currently registered guild commands to a specific guild.
+     * Publishes the currently registered global commands to Discord, unless they are unchanged.
+     *
+     * @param jda the JDA instance to publish through
+     */
+    public static void setupGlobalCommands(@NotNull JDA jda) {
+        syncGlobalCommands(jda);
+    }
+
+    @NotNull
+    private static CompletableFuture<Boolean> syncGlobalCommands(@NotNull JDA jda) {
+        CommandSet commands = CommandSet.of(snapshot.global().values().stream().map(CommandHandler::getCommandData).toList());
+        return sync(CommandSyncEngine.globalScope(jda), jda, commands, jda::updateCommands, () -> "global commands for " + jda.getSelfUser().getName());
+    }
+
+    /**
+     * Publishes the currently registered guild commands to a specific guild, unless they are unchanged.
      *
      * @param guild the guild to update
      */
     public static void setupGuildCommands(@NotNull Guild guild) {
-        guild.updateCommands().addCommands(GUILD_COMMANDS.values().stream()
-                .filter(commandHandler -> {
-                    if (commandHandler.getTargetGuildIDs().isEmpty()) return true;
-                    return commandHandler.getTargetGuildIDs().contains(guild.getId());
-                })
-                .map(CommandHandler::getCommandData).toList()).queue();
-        PhoenixCommandFramework.LOGGER.info("Updated guild ({} - {}) commands for {}", guild.getName(), guild.getId(), guild.getJDA().getSelfUser().getName());
+        CommandSet commands = snapshot.index().forGuild(guild.getIdLong());
+        sync(CommandSyncEngine.guildScope(guild), guild.getJDA(), commands, guild::updateCommands,
+                () -> "guild (%s - %s) commands for %s".formatted(guild.getName(), guild.getId(), guild.getJDA().getSelfUser().getName()));
+    }
+
+    /**
+     * Schedules the update of a scope if its command set changed and is not queued already.
+     *
+     * @param scope       the scope key
+     * @param shard       the shard sending the update
+     * @param commands    the command set of the scope
+     * @param update      creates the bulk overwrite action of the scope
+     * @param description human-readable description of the scope for logging
+     * @return the result of the scheduled update, or a stage completed with {@code false} if nothing was scheduled
+     */
+    @NotNull
+    private static CompletableFuture<Boolean> sync(@NotNull String scope, @NotNull JDA shard, @NotNull CommandSet commands, @NotNull Supplier<CommandListUpdateAction> update, @NotNull Supplier<String> description) {
+        CommandSyncEngine engine = syncEngine;
+        if (!engine.needsSync(scope, commands)) {
+            PhoenixCommandFramework.LOGGER.debug("Skipped unchanged commands of {}", scope);
+            return CompletableFuture.completedFuture(false);
+        }
+        if (commands.hash().equals(queued.put(scope, commands.hash()))) {
+            PhoenixCommandFramework.LOGGER.debug("Skipped already queued commands of {}", scope);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        CompletableFuture<Boolean> result = scheduler.submit(scope, shard.getShardInfo().getShardId(), () -> engine.sync(scope, commands, update));
+        result.whenComplete((updated, e) -> queued.remove(scope, commands.hash()));
+        result.whenComplete((updated, e) -> {
+            if (e != null) PhoenixCommandFramework.LOGGER.error("Failed to update {}", description.get(), e);
+            else if (updated) PhoenixCommandFramework.LOGGER.info("Updated {}", description.get());
+        });
+        return result;
+    }
+
+    /**
+     * Registered commands by name per scope, together with the guild command index derived from them.
+     */
+    private record Snapshot(Map<String, CommandHandler> global, Map<String, CommandHandler> guild, GuildCommandIndex index) {
     }
 
     /**
@@ -0,0 +1,210 @@
+package dev.eposs.pcf.command;
+
+import dev.eposs.pcf.command.sync.CommandSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable inverted index from guild ID to the precomputed {@link CommandSet} that has to be published there.
+ * <p>
+ * Guild commands without target guilds form a shared set used by every guild. Guilds targeted by at least one
+ * command get their own set consisting of the shared commands plus their targeted ones; guilds with identical
+ * targeted commands share the same set instance. {@link #replace(CommandHandler, CommandHandler)} only
+ * recomputes the sets of the guilds affected by the change, unless the shared commands change.
+ * </p>
+ * <p>
+ * The target guilds of a command are read once when it is added. Removing the command uses that snapshot, so a
+ * command changing its {@link CommandHandler#getTargetGuildIDs() target guilds} after registration cannot leave
+ * stale entries behind.
+ * </p>
+ */
+final class GuildCommandIndex {
+    static final GuildCommandIndex EMPTY = new GuildCommandIndex(List.of(), Map.of(), CommandSet.of(List.of()), Map.of(), Map.of(), Map.of());
+
+    private static final Comparator<CommandHandler> BY_NAME = Comparator.comparing(handler -> handler.getCommandData().getName());
+
+    private final List<CommandHandler> shared;
+    private final Map<Long, List<CommandHandler>> targeted;
+    private final CommandSet sharedSet;
+    private final Map<Long, CommandSet> guildSets;
+    /**
+     * Target guilds of every indexed command as read when it was added, empty for shared commands.
+     */
+    private final Map<CommandHandler, Set<Long>> targets;
+    /**
+     * Command sets of targeted guilds keyed by their targeted handlers, so identical sets are only built once.
+     * Only valid as long as the shared commands do not change. Sets no guild uses anymore are dropped.
+     */
+    private final Map<List<CommandHandler>, Interned> interned;
+
+    private GuildCommandIndex(List<CommandHandler> shared, Map<Long, List<CommandHandler>> targeted, CommandSet sharedSet,
+                              Map<Long, CommandSet> guildSets, Map<CommandHandler, Set<Long>> targets, Map<List<CommandHandler>, Interned> interned) {
+        this.shared = shared;
+        this.targeted = targeted;
+        this.sharedSet = sharedSet;
+        this.guildSets = guildSets;
+        this.targets = targets;
+        this.interned = interned;
+    }
+
+    /**
+     * Returns the commands to publish in a guild.
+     *
+     * @param guildId the guild ID
+     * @return the precomputed command set
+     */
+    @NotNull
+    CommandSet forGuild(long guildId) {
+        CommandSet commands = guildSets.get(guildId);
+        return commands != null ? commands : sharedSet;
+    }
+
+    /**
+     * Returns the target guilds of an indexed command as read when it was added.
+     *
+     * @param handler the command
+     * @return the target guild IDs, empty if the command targets all guilds or is not indexed
+     */
+    @NotNull
+    Set<Long> targetsOf(@NotNull CommandHandler handler) {
+        return targets.getOrDefault(handler, Set.of());
+    }
+
+    /**
+     * Creates a new index with one handler replaced.
+     *
+     * @param removed the handler to remove, or {@code null}; ignored if it is not indexed
+     * @param added   the handler to add, or {@code null}
+     * @return the updated index
+     * @throws IllegalArgumentException if a target guild ID is not a valid snowflake
+     */
+    @NotNull
+    GuildCommandIndex replace(@Nullable CommandHandler removed, @Nullable CommandHandler added) throws IllegalArgumentException {
+        if (removed != null && !targets.containsKey(removed)) removed = null;
+        Set<Long> removedTargets = removed == null ? Set.of() : targets.get(removed);
+        Set<Long> addedTargets = parseTargets(added);
+
+        Map<CommandHandler, Set<Long>> newTargets = new HashMap<>(targets);
+        if (removed != null) newTargets.remove(removed);
+        if (added != null) newTargets.put(added, addedTargets);
+
+        List<CommandHandler> newShared = shared;
+        boolean sharedChanged = false;
+        if (removed != null && removedTargets.isEmpty()) {
+            newShared = new ArrayList<>(newShared);
+            newShared.remove(removed);
+            sharedChanged = true;
+        }
+        if (added != null && addedTargets.isEmpty()) {
+            if (!sharedChanged) newShared = new ArrayList<>(newShared);
+            newShared.add(added);
+            sharedChanged = true;
+        }
+
+        Map<Long, List<CommandHandler>> newTargeted = new HashMap<>(targeted);
+        Set<Long> affected = new HashSet<>(removedTargets);
+        affected.addAll(addedTargets);
+        for (Long guildId : removedTargets) {
+            List<CommandHandler> handlers = new ArrayList<>(newTargeted.getOrDefault(guildId, List.of()));
+            handlers.remove(removed);
+            if (handlers.isEmpty()) newTargeted.remove(guildId);
+            else newTargeted.put(guildId, handlers);
+        }
+        for (Long guildId : addedTargets) {
+            List<CommandHandler> handlers = new ArrayList<>(newTargeted.getOrDefault(guildId, List.of()));
+            handlers.add(added);
+            newTargeted.put(guildId, handlers);
+        }
+        newTargeted.replaceAll((guildId, handlers) -> affected.contains(guildId) ? sorted(handlers) : handlers);
+
+        if (sharedChanged) {
+            List<CommandHandler> sortedShared = sorted(newShared);
+            Map<List<CommandHandler>, Interned> newInterned = new HashMap<>();
+            Map<Long, CommandSet> newGuildSets = new HashMap<>();
+            newTargeted.forEach((guildId, handlers) -> newGuildSets.put(guildId, intern(newInterned, sortedShared, handlers)));
+            return new GuildCommandIndex(sortedShared, Collections.unmodifiableMap(newTargeted), toSet(sortedShared, List.of()),
+                    Collections.unmodifiableMap(newGuildSets), Collections.unmodifiableMap(newTargets), newInterned);
+        }
+
+        Map<List<CommandHandler>, Interned> newInterned = new HashMap<>(interned);
+        Map<Long, CommandSet> newGuildSets = new HashMap<>(guildSets);
+        for (Long guildId : affected) {
+            List<CommandHandler> previous = targeted.get(guildId);
+            if (previous != null) release(newInterned, previous);
+            List<CommandHandler> handlers = newTargeted.get(guildId);
+            if (handlers == null) newGuildSets.remove(guildId);
+            else newGuildSets.put(guildId, intern(newInterned, shared, handlers));
+        }
+        return new GuildCommandIndex(shared, Collections.unmodifiableMap(newTargeted), sharedSet,
+                Collections.unmodifiableMap(newGuildSets), Collections.unmodifiableMap(newTargets), newInterned);
+    }
+
+    /**
+     * Returns the command set for the given targeted handlers and counts one more guild using it.
+     */
+    @NotNull
+    private static CommandSet intern(@NotNull Map<List<CommandHandler>, Interned> interned, @NotNull List<CommandHandler> shared, @NotNull List<CommandHandler> targeted) {
+        Interned entry = interned.get(targeted);
+        entry = entry == null ? new Interned(toSet(shared, targeted), 1) : new Interned(entry.commands(), entry.guilds() + 1);
+        interned.put(targeted, entry);
+        return entry.commands();
+    }
+
+    /**
+     * Counts one guild less using the command set of the given targeted handlers and drops it once unused.
+     */
+    private static void release(@NotNull Map<List<CommandHandler>, Interned> interned, @NotNull List<CommandHandler> targeted) {
+        interned.computeIfPresent(targeted, (handlers, entry) -> entry.guilds() <= 1 ? null : new Interned(entry.commands(), entry.guilds() - 1));
+    }
+
+    @NotNull
+    private static CommandSet toSet(@NotNull List<CommandHandler> shared, @NotNull List<CommandHandler> targeted) {
+        List<CommandHandler> handlers = new ArrayList<>(shared);
+        handlers.addAll(targeted);
+        return CommandSet.of(handlers.stream().map(CommandHandler::getCommandData).toList());
+    }
+
+    @NotNull
+    private static List<CommandHandler> sorted(@NotNull List<CommandHandler> handlers) {
+        List<CommandHandler> copy = new ArrayList<>(handlers);
+        copy.sort(BY_NAME);
+        return List.copyOf(copy);
+    }
+
+    /**
+     * Parses the target guild IDs of a command.
+     *
+     * @param handler the command, or {@code null}
+     * @return the target guild IDs, empty if the command targets all guilds or is {@code null}
+     * @throws IllegalArgumentException if a target guild ID is not a valid snowflake
+     */
+    @NotNull
+    static Set<Long> parseTargets(@Nullable CommandHandler handler) throws IllegalArgumentException {
+        if (handler == null) return Set.of();
+
+        Set<Long> targets = new HashSet<>();
+        for (String guildId : handler.getTargetGuildIDs()) {
+            try {
+                targets.add(Long.parseUnsignedLong(guildId));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid target guild ID \"" + guildId + "\" of command " + handler.getCommandData().getName(), e);
+            }
+        }
+        return Set.copyOf(targets);
+    }
+
+    /**
+     * An interned command set and the number of guilds using it.
+     */
+    private record Interned(CommandSet commands, int guilds) {
+    }
+}
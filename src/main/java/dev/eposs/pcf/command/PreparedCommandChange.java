@@ -0,0 +1,63 @@
+package dev.eposs.pcf.command;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+
+/**
+ * A validated but not yet published change of the {@link CommandRegistry}, created by
+ * {@link CommandRegistry#prepareChange(java.util.Map, java.util.Map)}.
+ * <p>
+ * Besides publishing the change, it tells which command scopes have to be synced with Discord afterwards,
+ * see {@link CommandRegistry#setupChangedCommands(PreparedCommandChange, java.util.Collection)}.
+ * </p>
+ */
+public final class PreparedCommandChange {
+    private final Runnable publish;
+    private final boolean globalChanged;
+    private final boolean allGuildsAffected;
+    private final Set<Long> affectedGuildIds;
+
+    PreparedCommandChange(@NotNull Runnable publish, boolean globalChanged, boolean allGuildsAffected, @NotNull Set<Long> affectedGuildIds) {
+        this.publish = publish;
+        this.globalChanged = globalChanged;
+        this.allGuildsAffected = allGuildsAffected;
+        this.affectedGuildIds = affectedGuildIds;
+    }
+
+    /**
+     * Makes the change visible to command lookups.
+     */
+    public void publish() {
+        publish.run();
+    }
+
+    /**
+     * @return {@code true} if the change modifies any command
+     */
+    public boolean isChanged() {
+        return globalChanged || allGuildsAffected || !affectedGuildIds.isEmpty();
+    }
+
+    /**
+     * @return {@code true} if the global commands changed
+     */
+    public boolean isGlobalChanged() {
+        return globalChanged;
+    }
+
+    /**
+     * @return {@code true} if a changed guild command targets all guilds
+     */
+    public boolean isAllGuildsAffected() {
+        return allGuildsAffected;
+    }
+
+    /**
+     * @return the guilds whose command set changed, only meaningful if {@link #isAllGuildsAffected()} is false
+     */
+    @NotNull
+    public Set<Long> getAffectedGuildIds() {
+        return affectedGuildIds;
+    }
+}
@@ -1,5 +1,8 @@
 package dev.eposs.pcf.command;
 
+import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.metrics.HandlerType;
+import dev.eposs.pcf.metrics.IMetricsSink;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.OptionMapping;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
@@ -10,6 +13,8 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Contract for slash commands that support dispatching to sub-commands and
@@ -66,6 +71,8 @@ public interface SlashCommandHandler extends CommandHandler {
 
     /**
      * Resolves the requested sub-command from the event and executes it if present.
+     * Execution time, exceptions and in-flight executions are reported to the
+     * {@linkplain PhoenixCommandFramework#getMetricsSink() metrics sink} using the full command name as id.
      *
      * @param event the slash command interaction
      * @throws Exception if the sub-command execution throws
@@ -75,7 +82,62 @@ public interface SlashCommandHandler extends CommandHandler {
         if (name == null) return;
 
         SubCommandHandler subCommand = getSubCommands().get(name);
-        if (subCommand != null) subCommand.execute(event);
+        if (subCommand == null) return;
+
+        IMetricsSink metrics = PhoenixCommandFramework.getMetricsSink();
+        String handlerId = event.getFullCommandName();
+        long start = System.nanoTime();
+        metrics.executionStarted(HandlerType.SUB_COMMAND, handlerId);
+        try {
+            subCommand.execute(event);
+        } catch (Exception e) {
+            metrics.recordException(HandlerType.SUB_COMMAND, handlerId, e);
+            throw e;
+        } finally {
+            metrics.recordExecution(HandlerType.SUB_COMMAND, handlerId, System.nanoTime() - start);
+            metrics.executionFinished(HandlerType.SUB_COMMAND, handlerId);
+        }
+    }
+
+    /**
+     * Resolves the requested sub-command from the event and starts it if present, without blocking on an
+     * {@link AsyncSubCommandHandler}. Other sub-commands run synchronously before this method returns.
+     * Metrics are reported like in {@link #executeSubCommand(SlashCommandInteractionEvent)}, once the sub-command completed.
+     * Cancelling the returned stage also cancels the stage of the sub-command.
+     *
+     * @param event the slash command interaction
+     * @return a stage completing once the sub-command is done
+     * @throws Exception if the sub-command execution throws
+     */
+    default CompletionStage<?> executeSubCommandAsync(@NotNull SlashCommandInteractionEvent event) throws Exception {
+        String name = event.getSubcommandName();
+        SubCommandHandler subCommand = name == null ? null : getSubCommands().get(name);
+        if (!(subCommand instanceof AsyncSubCommandHandler async)) {
+            executeSubCommand(event);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        IMetricsSink metrics = PhoenixCommandFramework.getMetricsSink();
+        String handlerId = event.getFullCommandName();
+        long start = System.nanoTime();
+        metrics.executionStarted(HandlerType.SUB_COMMAND, handlerId);
+        CompletionStage<?> stage;
+        try {
+            stage = async.executeAsync(event);
+        } catch (Exception e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+        CompletionStage<?> source = stage;
+        CompletableFuture<?> result = source.whenComplete((r, e) -> {
+            if (e != null) metrics.recordException(HandlerType.SUB_COMMAND, handlerId, e instanceof Exception ex ? ex : new Exception(e));
+            metrics.recordExecution(HandlerType.SUB_COMMAND, handlerId, System.nanoTime() - start);
+            metrics.executionFinished(HandlerType.SUB_COMMAND, handlerId);
+        }).toCompletableFuture();
+        // The listener cancels the returned stage on timeout, which does not reach the stage it was derived from
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) source.toCompletableFuture().cancel(true);
+        });
+        return result;
     }
 
     /**
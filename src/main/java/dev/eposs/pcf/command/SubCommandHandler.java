@@ -1,14 +1,18 @@
 package dev.eposs.pcf.command;
 
+import dev.eposs.pcf.GuardedHandler;
+import dev.eposs.pcf.autocomplete.AutoCompleteHandler;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
 
+import java.util.Map;
+
 /**
  * Represents the behavior and definition of a single slash sub-command.
  * Implementations provide the JDA {@link SubcommandData} used for command
  * registration and the logic to execute when the sub-command is invoked.
  */
-public interface SubCommandHandler {
+public interface SubCommandHandler extends GuardedHandler {
 
     /**
      * The sub-command metadata used to register this sub-command with JDA.
@@ -24,5 +28,14 @@ public interface SubCommandHandler {
      * @throws Exception if command execution fails
      */
     void execute(SlashCommandInteractionEvent event) throws Exception;
-}
 
+    /**
+     * Autocomplete handlers of the options of this sub-command, keyed by option name. The options must have
+     * autocomplete enabled in the sub-command data.
+     *
+     * @return map of option name to its autocomplete handler
+     */
+    default Map<String, AutoCompleteHandler> getAutoCompleteHandlers() {
+        return Map.of();
+    }
+}
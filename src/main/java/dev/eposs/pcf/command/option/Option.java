@@ -0,0 +1,34 @@
+package dev.eposs.pcf.command.option;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a record component of an argument record as a slash command option, see {@link OptionBinder}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface Option {
+
+    /**
+     * @return the option description shown in Discord
+     */
+    String description();
+
+    /**
+     * @return the option name, defaults to the component name in snake case
+     */
+    String name() default "";
+
+    /**
+     * @return whether the option is required
+     */
+    boolean required() default true;
+
+    /**
+     * @return whether the option uses autocomplete, see {@link dev.eposs.pcf.command.SubCommandHandler#getAutoCompleteHandlers()}
+     */
+    boolean autoComplete() default false;
+}
@@ -0,0 +1,241 @@
+package dev.eposs.pcf.command.option;
+
+import net.dv8tion.jda.api.entities.IMentionable;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+import net.dv8tion.jda.api.entities.channel.unions.GuildChannelUnion;
+import net.dv8tion.jda.api.interactions.commands.CommandInteractionPayload;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Binds the options of a slash command interaction to an argument record.
+ * <p>
+ * Every component of the record is a command option and must be annotated with {@link Option}. Supported
+ * component types are {@code String}, {@code long}, {@code int}, {@code double}, {@code boolean} and their
+ * wrappers, {@link User}, {@link Member}, {@link Role}, {@link GuildChannel}, {@link GuildChannelUnion},
+ * {@link IMentionable}, {@link Message.Attachment} and enums, which become string options with one choice per
+ * constant. {@code int} options are restricted to the {@code int} range, since Discord integers span 53 bits.
+ * </p>
+ * <p>
+ * The binder is built once, usually when the handler is created: it derives the {@link OptionData}, resolves a
+ * converter per option and adapts the canonical constructor to a {@link MethodHandle}. Binding an interaction is
+ * a single pass over its options followed by one constructor call, without reflection. Missing optional options
+ * are bound as {@code null}, or zero / {@code false} for primitives.
+ * </p>
+ *
+ * @param <T> the argument record type
+ */
+public final class OptionBinder<T extends Record> {
+    private final Class<T> type;
+    private final List<OptionData> options;
+    private final Map<String, Integer> indexByName;
+    private final List<Function<OptionMapping, Object>> converters;
+    private final Object[] defaults;
+    private final MethodHandle constructor;
+
+    private OptionBinder(Class<T> type, List<OptionData> options, Map<String, Integer> indexByName,
+                         List<Function<OptionMapping, Object>> converters, Object[] defaults, MethodHandle constructor) {
+        this.type = type;
+        this.options = options;
+        this.indexByName = indexByName;
+        this.converters = converters;
+        this.defaults = defaults;
+        this.constructor = constructor;
+    }
+
+    /**
+     * Builds a binder for a record type. The constructor is accessed through a private lookup, so the record does
+     * not have to be public as long as its package is open to this framework.
+     *
+     * @param type the argument record type
+     * @param <T>  the argument record type
+     * @return the binder
+     * @throws IllegalArgumentException if a component is not annotated, has an unsupported type, is an enum with
+     *                                  autocomplete or the constructor is not accessible
+     */
+    @NotNull
+    public static <T extends Record> OptionBinder<T> of(@NotNull Class<T> type) throws IllegalArgumentException {
+        try {
+            return of(type, MethodHandles.privateLookupIn(type, MethodHandles.lookup()));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access " + type.getName() + ", pass a lookup with access to it", e);
+        }
+    }
+
+    /**
+     * Builds a binder for a record type.
+     *
+     * @param type   the argument record type
+     * @param lookup a lookup with access to the canonical constructor of the record
+     * @param <T>    the argument record type
+     * @return the binder
+     * @throws IllegalArgumentException if a component is not annotated, has an unsupported type, is an enum with
+     *                                  autocomplete or the constructor is not accessible
+     */
+    @NotNull
+    public static <T extends Record> OptionBinder<T> of(@NotNull Class<T> type, @NotNull MethodHandles.Lookup lookup) throws IllegalArgumentException {
+        RecordComponent[] components = type.getRecordComponents();
+        if (components.length > CommandData.MAX_OPTIONS) {
+            throw new IllegalArgumentException(type.getName() + " has more than " + CommandData.MAX_OPTIONS + " options");
+        }
+
+        OptionData[] options = new OptionData[components.length];
+        Map<String, Integer> indexByName = new HashMap<>();
+        List<Function<OptionMapping, Object>> converters = new ArrayList<>(components.length);
+        Object[] defaults = new Object[components.length];
+        Class<?>[] parameterTypes = new Class<?>[components.length];
+
+        for (int i = 0; i < components.length; i++) {
+            RecordComponent component = components[i];
+            Option option = component.getAnnotation(Option.class);
+            if (option == null) {
+                throw new IllegalArgumentException("Component " + component.getName() + " of " + type.getName() + " is not annotated with @Option");
+            }
+
+            String name = option.name().isEmpty() ? toSnakeCase(component.getName()) : option.name();
+            Class<?> componentType = component.getType();
+            options[i] = optionData(componentType, name, option, type);
+            converters.add(converter(componentType));
+            defaults[i] = defaultValue(componentType);
+            parameterTypes[i] = componentType;
+            if (indexByName.put(name, i) != null) {
+                throw new IllegalArgumentException("Duplicate option name " + name + " in " + type.getName());
+            }
+        }
+
+        MethodHandle constructor;
+        try {
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class, parameterTypes))
+                    .asSpreader(Object[].class, components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access the canonical constructor of " + type.getName(), e);
+        }
+
+        return new OptionBinder<>(type, List.of(options), Map.copyOf(indexByName), List.copyOf(converters), defaults, constructor);
+    }
+
+    /**
+     * @return the option definitions to add to the command or sub-command data
+     */
+    @NotNull
+    public List<OptionData> getOptions() {
+        return options;
+    }
+
+    /**
+     * Binds the options of an interaction to a new argument record.
+     *
+     * @param interaction the interaction, e.g. a {@code SlashCommandInteractionEvent}
+     * @return the argument record
+     * @throws IllegalStateException if the record constructor throws
+     */
+    @NotNull
+    public T bind(@NotNull CommandInteractionPayload interaction) throws IllegalStateException {
+        Object[] arguments = defaults.clone();
+        for (OptionMapping mapping : interaction.getOptions()) {
+            Integer index = indexByName.get(mapping.getName());
+            if (index != null) arguments[index] = converters.get(index).apply(mapping);
+        }
+
+        try {
+            return type.cast((Object) constructor.invokeExact(arguments));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create " + type.getName(), e);
+        }
+    }
+
+    @NotNull
+    private static OptionData optionData(@NotNull Class<?> componentType, @NotNull String name, @NotNull Option option, @NotNull Class<?> owner) {
+        // Discord does not allow choices on autocomplete options, and enum options are backed by choices
+        if (componentType.isEnum() && option.autoComplete()) {
+            throw new IllegalArgumentException("Enum option " + name + " in " + owner.getName() + " cannot use autocomplete, its constants are sent as choices");
+        }
+        OptionData data = new OptionData(optionType(componentType, owner), name, option.description(), option.required(), option.autoComplete());
+        if (componentType.isEnum()) {
+            for (Object constant : componentType.getEnumConstants()) {
+                String value = ((Enum<?>) constant).name();
+                data.addChoice(value, value);
+            }
+        }
+        if (componentType == int.class || componentType == Integer.class) data.setRequiredRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        return data;
+    }
+
+    @NotNull
+    private static OptionType optionType(@NotNull Class<?> componentType, @NotNull Class<?> owner) {
+        if (componentType == String.class || componentType.isEnum()) return OptionType.STRING;
+        if (componentType == long.class || componentType == Long.class) return OptionType.INTEGER;
+        if (componentType == int.class || componentType == Integer.class) return OptionType.INTEGER;
+        if (componentType == double.class || componentType == Double.class) return OptionType.NUMBER;
+        if (componentType == boolean.class || componentType == Boolean.class) return OptionType.BOOLEAN;
+        if (componentType == User.class || componentType == Member.class) return OptionType.USER;
+        if (componentType == Role.class) return OptionType.ROLE;
+        if (componentType == GuildChannel.class || componentType == GuildChannelUnion.class) return OptionType.CHANNEL;
+        if (componentType == IMentionable.class) return OptionType.MENTIONABLE;
+        if (componentType == Message.Attachment.class) return OptionType.ATTACHMENT;
+        throw new IllegalArgumentException("Unsupported option type " + componentType.getName() + " in " + owner.getName());
+    }
+
+    @NotNull
+    private static Function<OptionMapping, Object> converter(@NotNull Class<?> componentType) {
+        if (componentType == String.class) return OptionMapping::getAsString;
+        if (componentType == long.class || componentType == Long.class) return OptionMapping::getAsLong;
+        if (componentType == int.class || componentType == Integer.class) return OptionMapping::getAsInt;
+        if (componentType == double.class || componentType == Double.class) return OptionMapping::getAsDouble;
+        if (componentType == boolean.class || componentType == Boolean.class) return OptionMapping::getAsBoolean;
+        if (componentType == User.class) return OptionMapping::getAsUser;
+        if (componentType == Member.class) return OptionMapping::getAsMember;
+        if (componentType == Role.class) return OptionMapping::getAsRole;
+        if (componentType == GuildChannel.class || componentType == GuildChannelUnion.class) return OptionMapping::getAsChannel;
+        if (componentType == IMentionable.class) return OptionMapping::getAsMentionable;
+        if (componentType == Message.Attachment.class) return OptionMapping::getAsAttachment;
+
+        Map<String, Object> constants = new HashMap<>();
+        Arrays.stream(componentType.getEnumConstants()).forEach(constant -> constants.put(((Enum<?>) constant).name(), constant));
+        Map<String, Object> byName = Map.copyOf(constants);
+        return mapping -> byName.get(mapping.getAsString());
+    }
+
+    private static Object defaultValue(@NotNull Class<?> componentType) {
+        if (componentType == long.class) return 0L;
+        if (componentType == int.class) return 0;
+        if (componentType == double.class) return 0.0;
+        if (componentType == boolean.class) return false;
+        return null;
+    }
+
+    @NotNull
+    private static String toSnakeCase(@NotNull String name) {
+        StringBuilder builder = new StringBuilder(name.length() + 4);
+        for (char c : name.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                if (!builder.isEmpty()) builder.append('_');
+                builder.append(Character.toLowerCase(c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,428 @@
+package dev.eposs.pcf.command.sync;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.exceptions.RateLimitedException;
+import net.dv8tion.jda.api.requests.Response;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Paced queue for command updates, so a large number of guilds becoming ready at once does not flood the
+ * REST rate limits and starve user-facing requests.
+ * <p>
+ * At most one update is started per {@code interval}, and at most {@code concurrency} updates are in flight.
+ * Updates are queued per lane, usually the shard whose rate limits they count against. Lanes are served round-robin
+ * and each lane has at most one update in flight, so a shard that is waiting on its rate limits holds back only
+ * its own updates, and shards with many guilds do not starve the others.
+ * Updates failing with a server error, a rate limit, a network problem or a timeout are retried with exponential
+ * backoff up to {@code maxRetries} times; every other failure, e.g. a client error such as missing access, fails
+ * immediately. A rate-limited update also holds back its lane: no update of the lane is started before the
+ * {@code Retry-After} delay of the response has passed, and the retry waits at least that long.
+ * The pacer only ticks while updates are queued and is idle otherwise.
+ * </p>
+ * <p>
+ * After {@link #shutdown()} no update is started anymore, and the futures of all queued and retrying updates
+ * are completed exceptionally.
+ * </p>
+ * <p>
+ * {@link #getProgress()} reports how many updates are done, pending, in flight and failed, so health checks
+ * can wait for the initial registration to finish.
+ * </p>
+ */
+public class CommandRegistrationScheduler {
+    public static final int DEFAULT_CONCURRENCY = 2;
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMillis(250);
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final Duration DEFAULT_BACKOFF = Duration.ofSeconds(1);
+
+    private final Semaphore slots;
+    private final long intervalNanos;
+    private final int maxRetries;
+    private final long backoffMillis;
+    private final ScheduledExecutorService pacer;
+    private final Set<Job> retrying = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+    /**
+     * The next tick of the pacer and when it runs, guarded by {@code this}. {@code nextTick} is {@code null} while
+     * no update is queued.
+     */
+    private ScheduledFuture<?> nextTick;
+    private long nextTickNanos;
+    /**
+     * When the last tick ran, guarded by {@code this}.
+     */
+    private long lastTickNanos;
+
+    private final Map<Integer, Lane> lanesById = new ConcurrentHashMap<>();
+    private final List<Lane> lanes = new CopyOnWriteArrayList<>();
+    /**
+     * Index of the lane to look at first, only used by the pacer thread.
+     */
+    private int cursor;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder done = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Creates a scheduler with the default pacing and retry budget.
+     */
+    public CommandRegistrationScheduler() {
+        this(DEFAULT_CONCURRENCY, DEFAULT_INTERVAL, DEFAULT_MAX_RETRIES, DEFAULT_BACKOFF);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param concurrency maximum number of updates in flight, must be positive
+     * @param interval    minimum time between the start of two updates, must be positive
+     * @param maxRetries  how often a failed update is retried, must not be negative
+     * @param backoff     delay before the first retry, doubled on every further retry
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public CommandRegistrationScheduler(int concurrency, @NotNull Duration interval, int maxRetries, @NotNull Duration backoff) throws IllegalArgumentException {
+        if (concurrency <= 0) throw new IllegalArgumentException("Concurrency must be positive.");
+        if (interval.isNegative() || interval.isZero()) throw new IllegalArgumentException("Interval must be positive.");
+        if (maxRetries < 0) throw new IllegalArgumentException("Max retries cannot be negative.");
+
+        this.slots = new Semaphore(concurrency);
+        this.intervalNanos = interval.toNanos();
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoff.toMillis();
+        this.pacer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("PCF-Command-Sync").daemon().factory());
+        this.lastTickNanos = System.nanoTime() - intervalNanos;
+    }
+
+    /**
+     * Queues an update in lane 0.
+     *
+     * @param scope  the scope key, used for logging
+     * @param update starts the update, called once per attempt
+     * @return a future completing with the result of the update once it succeeded or ran out of retries
+     */
+    @NotNull
+    public CompletableFuture<Boolean> submit(@NotNull String scope, @NotNull Supplier<CompletableFuture<Boolean>> update) {
+        return submit(scope, 0, update);
+    }
+
+    /**
+     * Queues an update.
+     *
+     * @param scope  the scope key, used for logging
+     * @param lane   the lane of the update, e.g. the id of the shard sending it
+     * @param update starts the update, called once per attempt
+     * @return a future completing with the result of the update once it succeeded or ran out of retries, or
+     * exceptionally once the scheduler is shut down before that
+     */
+    @NotNull
+    public CompletableFuture<Boolean> submit(@NotNull String scope, int lane, @NotNull Supplier<CompletableFuture<Boolean>> update) {
+        if (closed) return CompletableFuture.failedFuture(shutdownException());
+
+        Job job = new Job(scope, laneOf(lane), update);
+        pending.incrementAndGet();
+        job.lane.queue.add(job);
+        // Fails the job if the scheduler was shut down after the check above.
+        if (closed) failQueued();
+        else wake(job.lane);
+        return job.result;
+    }
+
+    /**
+     * @return the current progress of all submitted updates
+     */
+    @NotNull
+    public Progress getProgress() {
+        return new Progress(done.sum(), pending.get(), inFlight.get(), failed.sum(), retries.sum());
+    }
+
+    /**
+     * Stops the scheduler. Queued updates are not started anymore, and their futures as well as the futures of
+     * updates waiting for a retry are completed exceptionally. Updates in flight complete normally but are not
+     * retried.
+     */
+    public void shutdown() {
+        closed = true;
+        pacer.shutdownNow();
+        failQueued();
+        retrying.forEach(this::failRetrying);
+    }
+
+    @NotNull
+    private Lane laneOf(int id) {
+        Lane lane = lanesById.get(id);
+        if (lane != null) return lane;
+        return lanesById.computeIfAbsent(id, key -> {
+            Lane created = new Lane();
+            lanes.add(created);
+            return created;
+        });
+    }
+
+    /**
+     * Starts the next update and schedules the next tick, after the interval or, if all lanes with queued updates
+     * are held back by a rate limit, once the first of them may continue. If no update is queued, no tick is
+     * scheduled until {@link #wake(Lane)} is called.
+     */
+    private void tick() {
+        synchronized (this) {
+            lastTickNanos = System.nanoTime();
+        }
+        try {
+            startNext();
+        } catch (RuntimeException e) {
+            PhoenixCommandFramework.LOGGER.error("Failed to start command update", e);
+        }
+        scheduleNext();
+    }
+
+    /**
+     * Checks the lanes under the lock, so an update queued concurrently either is seen here or finds the pacer
+     * idle in {@link #wake(Lane)}.
+     */
+    private synchronized void scheduleNext() {
+        long now = System.nanoTime();
+        long earliest = Long.MAX_VALUE;
+        for (Lane lane : lanes) {
+            if (lane.queue.isEmpty()) continue;
+            long wait = lane.blockedUntilNanos - now;
+            if (wait <= 0) {
+                earliest = 0;
+                break;
+            }
+            earliest = Math.min(earliest, wait);
+        }
+
+        if (earliest == Long.MAX_VALUE) nextTick = null;
+        else schedule(Math.max(intervalNanos, earliest));
+    }
+
+    /**
+     * Starts the pacer if it is idle, keeping the interval to the last tick. Otherwise moves the next tick forward
+     * if the pacer sleeps longer than an interval because all lanes were held back, but the given lane may continue.
+     */
+    private synchronized void wake(@NotNull Lane lane) {
+        long now = System.nanoTime();
+        if (nextTick == null) {
+            schedule(Math.max(0, lastTickNanos + intervalNanos - now));
+            return;
+        }
+        if (nextTickNanos - now <= intervalNanos || lane.blockedUntilNanos - now > 0) return;
+        // A tick that already started schedules the next one itself.
+        if (nextTick.cancel(false)) schedule(0);
+    }
+
+    private synchronized void schedule(long delayNanos) {
+        try {
+            nextTick = pacer.schedule(this::tick, delayNanos, TimeUnit.NANOSECONDS);
+            nextTickNanos = System.nanoTime() + delayNanos;
+        } catch (RejectedExecutionException e) {
+            // Shut down.
+        }
+    }
+
+    private void startNext() {
+        if (closed || pending.get() == 0 || !slots.tryAcquire()) return;
+
+        Job job = null;
+        int size = lanes.size();
+        long now = System.nanoTime();
+        for (int i = 0; i < size && job == null; i++) {
+            Lane lane = lanes.get((cursor + i) % size);
+            if (lane.queue.isEmpty() || lane.blockedUntilNanos - now > 0 || !lane.busy.compareAndSet(false, true)) continue;
+
+            job = lane.queue.poll();
+            if (job == null) lane.busy.set(false);
+            else cursor = (cursor + i + 1) % size;
+        }
+        if (job == null) {
+            slots.release();
+            return;
+        }
+
+        pending.decrementAndGet();
+        inFlight.incrementAndGet();
+        CompletableFuture<Boolean> attempt;
+        try {
+            attempt = job.update.get();
+        } catch (Exception e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+        Job started = job;
+        attempt.whenComplete((updated, e) -> {
+            inFlight.decrementAndGet();
+            started.lane.busy.set(false);
+            slots.release();
+            if (e == null) {
+                done.increment();
+                started.result.complete(updated);
+            } else {
+                handleFailure(started, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+    }
+
+    private void handleFailure(@NotNull Job job, @NotNull Throwable e) {
+        if (closed || job.attempts >= maxRetries || !isTransient(e)) {
+            fail(job, e);
+            return;
+        }
+
+        long retryAfter = retryAfterMillis(e);
+        if (retryAfter > 0) job.lane.blockedUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfter);
+        long delay = Math.max(backoffMillis << job.attempts, retryAfter);
+        job.attempts++;
+        retries.increment();
+        pending.incrementAndGet();
+        retrying.add(job);
+        PhoenixCommandFramework.LOGGER.warn("Command update of {} failed, retrying in {} ms", job.scope, delay, e);
+        try {
+            pacer.schedule(() -> {
+                if (!retrying.remove(job)) return;
+                job.lane.queue.add(job);
+                if (closed) failQueued();
+                else wake(job.lane);
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException rejected) {
+            failRetrying(job);
+        }
+    }
+
+    private void fail(@NotNull Job job, @NotNull Throwable e) {
+        failed.increment();
+        job.result.completeExceptionally(e);
+    }
+
+    private void failRetrying(@NotNull Job job) {
+        if (!retrying.remove(job)) return;
+        pending.decrementAndGet();
+        fail(job, shutdownException());
+    }
+
+    /**
+     * Fails all queued updates, called once the scheduler is shut down.
+     */
+    private void failQueued() {
+        for (Lane lane : lanes) {
+            Job job;
+            while ((job = lane.queue.poll()) != null) {
+                pending.decrementAndGet();
+                fail(job, shutdownException());
+            }
+        }
+    }
+
+    @NotNull
+    private static IllegalStateException shutdownException() {
+        return new IllegalStateException("Command registration scheduler is shut down.");
+    }
+
+    /**
+     * Checks whether a failure is worth retrying: server errors, rate limits, network problems and timeouts.
+     */
+    private static boolean isTransient(@NotNull Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            switch (cause) {
+                case ErrorResponseException response -> {
+                    return response.isServerError() || (response.getResponse() != null && response.getResponse().isRateLimit());
+                }
+                case RateLimitedException ignored -> {
+                    return true;
+                }
+                case IOException ignored -> {
+                    return true;
+                }
+                case TimeoutException ignored -> {
+                    return true;
+                }
+                case CompletionException ignored -> {
+                }
+                case ExecutionException ignored -> {
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the {@code Retry-After} delay of a rate-limited failure in milliseconds, or 0 if there is none.
+     */
+    private static long retryAfterMillis(@NotNull Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RateLimitedException limited) return Math.max(0, limited.getRetryAfter());
+            if (cause instanceof ErrorResponseException response) {
+                Response raw = response.getResponse();
+                return raw != null && raw.isRateLimit() ? Math.max(0, raw.retryAfter) : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static final class Lane {
+        private final Queue<Job> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean busy = new AtomicBoolean();
+        /**
+         * Time before which no update of the lane may start, set when an update was rate-limited.
+         */
+        private volatile long blockedUntilNanos = System.nanoTime();
+    }
+
+    private static final class Job {
+        private final String scope;
+        private final Lane lane;
+        private final Supplier<CompletableFuture<Boolean>> update;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private int attempts;
+
+        private Job(String scope, Lane lane, Supplier<CompletableFuture<Boolean>> update) {
+            this.scope = scope;
+            this.lane = lane;
+            this.update = update;
+        }
+    }
+
+    /**
+     * Snapshot of the scheduler progress.
+     *
+     * @param done     updates that completed successfully
+     * @param pending  updates waiting to be started, including ones waiting for a retry
+     * @param inFlight updates currently running
+     * @param failed   updates that failed permanently
+     * @param retries  total number of retries
+     */
+    public record Progress(long done, int pending, int inFlight, long failed, long retries) {
+        /**
+         * @return {@code true} if no update is pending or in flight
+         */
+        public boolean isIdle() {
+            return pending == 0 && inFlight == 0;
+        }
+    }
+}
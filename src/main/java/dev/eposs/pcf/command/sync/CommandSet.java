@@ -0,0 +1,28 @@
+package dev.eposs.pcf.command.sync;
+
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An immutable set of commands published together, along with its stable hash.
+ * Computing the hash once per set lets many guilds with identical commands share it.
+ *
+ * @param commands the commands
+ * @param hash     the hash computed by {@link CommandSyncEngine#hash(Collection)}
+ */
+public record CommandSet(@NotNull List<CommandData> commands, @NotNull String hash) {
+
+    /**
+     * Creates a command set and computes its hash.
+     *
+     * @param commands the commands
+     * @return the command set
+     */
+    @NotNull
+    public static CommandSet of(@NotNull Collection<? extends CommandData> commands) {
+        return new CommandSet(List.copyOf(commands), CommandSyncEngine.hash(commands));
+    }
+}
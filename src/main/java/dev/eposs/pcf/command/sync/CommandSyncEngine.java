@@ -0,0 +1,168 @@
+package dev.eposs.pcf.command.sync;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Publishes command sets to Discord only if they changed since the last successful publish.
+ * <p>
+ * Every command set is reduced to a stable SHA-256 hash of its serialized {@link CommandData}, independent of
+ * registration order and of the key order of the serialized JSON. The hash is compared against the one kept
+ * in the {@link ICommandSyncStore}; the bulk overwrite is only sent if they differ, and the new hash is stored
+ * once Discord accepted the update.
+ * </p>
+ */
+public class CommandSyncEngine {
+    private static final Comparator<CommandData> COMMAND_ORDER = Comparator
+            .comparing((CommandData data) -> data.getType().ordinal())
+            .thenComparing(CommandData::getName);
+
+    private final ICommandSyncStore store;
+
+    /**
+     * Creates a sync engine.
+     *
+     * @param store the store holding the hashes of the published command sets
+     */
+    public CommandSyncEngine(@NotNull ICommandSyncStore store) {
+        this.store = store;
+    }
+
+    /**
+     * @return the store holding the hashes of the published command sets
+     */
+    @NotNull
+    public ICommandSyncStore getStore() {
+        return store;
+    }
+
+    /**
+     * Checks whether a command set differs from the one last published for a scope.
+     *
+     * @param scope    the scope key, see {@link #globalScope(JDA)} and {@link #guildScope(Guild)}
+     * @param commands the complete command set of the scope
+     * @return {@code true} if the command set has to be published
+     */
+    public boolean needsSync(@NotNull String scope, @NotNull CommandSet commands) {
+        return !commands.hash().equals(store.getHash(scope));
+    }
+
+    /**
+     * Publishes the command set of a scope if it differs from the last published one.
+     *
+     * @param scope    the scope key, see {@link #globalScope(JDA)} and {@link #guildScope(Guild)}
+     * @param commands the complete command set of the scope
+     * @param update   creates the bulk overwrite action of the scope
+     * @return a future completing with {@code true} if the commands were published, {@code false} if they were
+     * unchanged, or exceptionally if Discord rejected the update
+     */
+    @NotNull
+    public CompletableFuture<Boolean> sync(@NotNull String scope, @NotNull CommandSet commands, @NotNull Supplier<CommandListUpdateAction> update) {
+        if (!needsSync(scope, commands)) {
+            PhoenixCommandFramework.LOGGER.debug("Commands of {} are up to date, skipping update", scope);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return update.get().addCommands(commands.commands()).submit().thenApply(published -> {
+            store.putHash(scope, commands.hash());
+            return true;
+        });
+    }
+
+    /**
+     * Returns the scope key of the global commands of a bot.
+     *
+     * @param jda the bot
+     * @return the scope key
+     */
+    @NotNull
+    public static String globalScope(@NotNull JDA jda) {
+        return jda.getSelfUser().getApplicationIdLong() + ":global";
+    }
+
+    /**
+     * Returns the scope key of the guild commands of a bot in a guild.
+     *
+     * @param guild the guild
+     * @return the scope key
+     */
+    @NotNull
+    public static String guildScope(@NotNull Guild guild) {
+        return guild.getJDA().getSelfUser().getApplicationIdLong() + ":" + guild.getIdLong();
+    }
+
+    /**
+     * Computes the stable hash of a command set.
+     *
+     * @param commands the command set
+     * @return the hex encoded SHA-256 hash
+     */
+    @NotNull
+    public static String hash(@NotNull Collection<? extends CommandData> commands) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        List<? extends CommandData> sorted = commands.stream().sorted(COMMAND_ORDER).toList();
+        for (CommandData command : sorted) {
+            update(digest, command.toData());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Feeds a value into the digest in a canonical form: object keys are sorted and every value is prefixed
+     * with a type tag, so different structures cannot produce the same byte sequence.
+     */
+    private static void update(@NotNull MessageDigest digest, Object value) {
+        switch (value) {
+            case null -> digest.update((byte) 'n');
+            case DataObject object -> update(digest, object.toMap());
+            case DataArray array -> update(digest, array.toList());
+            case Map<?, ?> map -> {
+                digest.update((byte) '{');
+                new TreeMap<>(map).forEach((key, entry) -> {
+                    update(digest, String.valueOf(key));
+                    update(digest, entry);
+                });
+                digest.update((byte) '}');
+            }
+            case Collection<?> list -> {
+                digest.update((byte) '[');
+                list.forEach(entry -> update(digest, entry));
+                digest.update((byte) ']');
+            }
+            case String string -> {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                digest.update((byte) 's');
+                for (int shift = 24; shift >= 0; shift -= 8) digest.update((byte) (bytes.length >>> shift));
+                digest.update(bytes);
+            }
+            default -> {
+                digest.update((byte) 'v');
+                update(digest, value.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package dev.eposs.pcf.command.sync;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link ICommandSyncStore} persisting the hashes in a properties file, so unchanged commands are not
+ * published again after a restart.
+ * <p>
+ * The file is read once on construction. Changes are written behind: the first change after a write schedules
+ * the next one after the flush delay, so a sync pass over thousands of guilds rewrites the file (via a
+ * temporary file and an atomic move) a few times instead of once per guild. Writes are serialized; reads are
+ * served from memory. Changes not yet written when the process exits only cause unnecessary updates on the
+ * next start; call {@link #flush()} to write them right away.
+ * </p>
+ */
+public class FileCommandSyncStore implements ICommandSyncStore {
+    public static final Duration DEFAULT_FLUSH_DELAY = Duration.ofSeconds(1);
+
+    private final Path file;
+    private final long flushDelayNanos;
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("PCF-Command-Sync-Store").daemon().factory());
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * Creates a store backed by the given file with the {@linkplain #DEFAULT_FLUSH_DELAY default flush delay}.
+     * A missing file is treated as an empty store.
+     *
+     * @param file the properties file to use
+     * @throws UncheckedIOException if the existing file cannot be read
+     */
+    public FileCommandSyncStore(@NotNull Path file) throws UncheckedIOException {
+        this(file, DEFAULT_FLUSH_DELAY);
+    }
+
+    /**
+     * Creates a store backed by the given file. A missing file is treated as an empty store.
+     *
+     * @param file       the properties file to use
+     * @param flushDelay how long changes are collected before the file is rewritten, must not be negative
+     * @throws IllegalArgumentException if the flush delay is negative
+     * @throws UncheckedIOException     if the existing file cannot be read
+     */
+    public FileCommandSyncStore(@NotNull Path file, @NotNull Duration flushDelay) throws IllegalArgumentException, UncheckedIOException {
+        if (flushDelay.isNegative()) throw new IllegalArgumentException("Flush delay cannot be negative.");
+
+        this.file = file;
+        this.flushDelayNanos = flushDelay.toNanos();
+        if (!Files.exists(file)) return;
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read command sync store " + file, e);
+        }
+        properties.stringPropertyNames().forEach(key -> hashes.put(key, properties.getProperty(key)));
+    }
+
+    @Nullable
+    @Override
+    public String getHash(@NotNull String scope) {
+        return hashes.get(scope);
+    }
+
+    @Override
+    public void putHash(@NotNull String scope, @NotNull String hash) {
+        if (hash.equals(hashes.put(scope, hash))) return;
+        scheduleFlush();
+    }
+
+    @Override
+    public void removeHash(@NotNull String scope) {
+        if (hashes.remove(scope) == null) return;
+        scheduleFlush();
+    }
+
+    /**
+     * Writes all changes to the file now instead of waiting for the scheduled write.
+     */
+    public void flush() {
+        flushScheduled.set(false);
+        save();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) flusher.schedule(this::flush, flushDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void save() {
+        Properties properties = new Properties();
+        properties.putAll(hashes);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "PCF command sync state");
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // Losing the state only causes an unnecessary update on the next start.
+            PhoenixCommandFramework.LOGGER.warn("Failed to write command sync store {}", file, e);
+        }
+    }
+}
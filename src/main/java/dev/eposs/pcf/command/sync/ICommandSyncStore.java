@@ -0,0 +1,39 @@
+package dev.eposs.pcf.command.sync;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * SPI persisting the hash of the command set that was last published to Discord for a scope.
+ * <p>
+ * A scope is either the global command list or a single guild of a bot. The {@link CommandSyncEngine} only
+ * calls Discord if the hash of the command set it is about to publish differs from the stored one.
+ * Implementations must be thread-safe.
+ * </p>
+ */
+public interface ICommandSyncStore {
+
+    /**
+     * Returns the hash of the last successfully published command set of a scope.
+     *
+     * @param scope the scope key
+     * @return the stored hash, or {@code null} if nothing was published for the scope yet
+     */
+    @Nullable
+    String getHash(@NotNull String scope);
+
+    /**
+     * Stores the hash of a successfully published command set.
+     *
+     * @param scope the scope key
+     * @param hash  the hash of the published command set
+     */
+    void putHash(@NotNull String scope, @NotNull String hash);
+
+    /**
+     * Forgets the stored hash of a scope, so its commands are published again on the next sync.
+     *
+     * @param scope the scope key
+     */
+    void removeHash(@NotNull String scope);
+}
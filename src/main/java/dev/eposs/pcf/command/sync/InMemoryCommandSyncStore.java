@@ -0,0 +1,31 @@
+package dev.eposs.pcf.command.sync;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ICommandSyncStore} that only lives as long as the process.
+ * It avoids redundant updates on reconnects, but every restart publishes all commands once.
+ */
+public class InMemoryCommandSyncStore implements ICommandSyncStore {
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+    @Nullable
+    @Override
+    public String getHash(@NotNull String scope) {
+        return hashes.get(scope);
+    }
+
+    @Override
+    public void putHash(@NotNull String scope, @NotNull String hash) {
+        hashes.put(scope, hash);
+    }
+
+    @Override
+    public void removeHash(@NotNull String scope) {
+        hashes.remove(scope);
+    }
+}
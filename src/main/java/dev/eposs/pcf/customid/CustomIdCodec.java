@@ -0,0 +1,77 @@
+package dev.eposs.pcf.customid;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Dense encoding of typed fields into component custom ids, see {@link CustomIdWriter} and {@link CustomIdReader}.
+ * <p>
+ * Fields are written one after another without separators, using a URL-safe alphabet of 64 characters.
+ * Integers are zigzag varints with 5 payload bits per character, so small values take a single character;
+ * snowflakes take a fixed 11 characters. The encoding is self-delimiting, so decoding is a single left-to-right
+ * pass without splitting or regular expressions.
+ * </p>
+ * <p>
+ * Instead of a human-readable prefix, a handler can route by a short numeric tag: {@link #tagPrefix(int)}
+ * returns {@link #MARKER} followed by the varint of the tag, e.g. {@code "~5"} for tag 5. Tag prefixes never
+ * overlap each other; human-readable prefixes should not start with the marker.
+ * </p>
+ */
+public final class CustomIdCodec {
+    private CustomIdCodec() {
+    }
+
+    /**
+     * Maximum length of a custom id accepted by Discord.
+     */
+    public static final int MAX_LENGTH = 100;
+    /**
+     * First character of every {@linkplain #tagPrefix(int) tag prefix}.
+     */
+    public static final char MARKER = '~';
+
+    static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz-_".toCharArray();
+    /**
+     * Set on a varint character if more characters follow.
+     */
+    static final int CONTINUATION = 32;
+    static final int SNOWFLAKE_LENGTH = 11;
+
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) DECODE[ALPHABET[i]] = (byte) i;
+    }
+
+    /**
+     * Returns the id prefix of a handler routed by a numeric tag, for use as its {@code getIdPrefix()}.
+     *
+     * @param tag the tag, unique per handler type, must not be negative
+     * @return the id prefix
+     * @throws IllegalArgumentException if the tag is negative
+     */
+    @NotNull
+    public static String tagPrefix(int tag) throws IllegalArgumentException {
+        if (tag < 0) throw new IllegalArgumentException("Tag cannot be negative.");
+        StringBuilder prefix = new StringBuilder(8).append(MARKER);
+        appendVarLong(prefix, tag);
+        return prefix.toString();
+    }
+
+    static void appendVarLong(@NotNull StringBuilder target, long value) {
+        while ((value & ~(CONTINUATION - 1L)) != 0) {
+            target.append(ALPHABET[CONTINUATION | (int) (value & (CONTINUATION - 1))]);
+            value >>>= 5;
+        }
+        target.append(ALPHABET[(int) value]);
+    }
+
+    /**
+     * @return the 6-bit value of a character, or {@code -1} if it is not part of the alphabet
+     */
+    static int decode(char c) {
+        return c < DECODE.length ? DECODE[c] : -1;
+    }
+}
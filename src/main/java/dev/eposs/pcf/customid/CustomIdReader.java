@@ -0,0 +1,157 @@
+package dev.eposs.pcf.customid;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reads the typed fields of a custom id written by a {@link CustomIdWriter}, in the order they were written.
+ * <p>
+ * Reading does not allocate, except for {@link #readString()}. Malformed custom ids, e.g. forged ones or ids
+ * of components created before their fields changed, are rejected with an {@link IllegalArgumentException}.
+ * </p>
+ */
+public final class CustomIdReader {
+    private static final ClassValue<Object[]> ENUM_CONSTANTS = new ClassValue<>() {
+        @Override
+        protected Object[] computeValue(@NotNull Class<?> type) {
+            return type.getEnumConstants();
+        }
+    };
+
+    private final String id;
+    private int position;
+
+    private CustomIdReader(@NotNull String id, int position) {
+        this.id = id;
+        this.position = position;
+    }
+
+    /**
+     * Creates a reader positioned after the id prefix.
+     *
+     * @param idPrefix the id prefix of the handler
+     * @param customId the custom id of the component
+     * @return the reader
+     * @throws IllegalArgumentException if the custom id does not start with the prefix
+     */
+    @NotNull
+    public static CustomIdReader of(@NotNull String idPrefix, @NotNull String customId) throws IllegalArgumentException {
+        if (!customId.startsWith(idPrefix)) throw new IllegalArgumentException("Custom id does not start with \"" + idPrefix + "\".");
+        return new CustomIdReader(customId, idPrefix.length());
+    }
+
+    /**
+     * @return the next field as long written by {@link CustomIdWriter#writeLong(long)}
+     * @throws IllegalArgumentException if the custom id is malformed
+     */
+    public long readLong() throws IllegalArgumentException {
+        long zigzag = readVarLong();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * @return the next field as int written by {@link CustomIdWriter#writeInt(int)}
+     * @throws IllegalArgumentException if the custom id is malformed or the value does not fit into an int
+     */
+    public int readInt() throws IllegalArgumentException {
+        long value = readLong();
+        if (value != (int) value) throw malformed("int out of range");
+        return (int) value;
+    }
+
+    /**
+     * @return the next field as long written by {@link CustomIdWriter#writeSnowflake(long)}
+     * @throws IllegalArgumentException if the custom id is malformed
+     */
+    public long readSnowflake() throws IllegalArgumentException {
+        if (position + CustomIdCodec.SNOWFLAKE_LENGTH > id.length()) throw malformed("truncated snowflake");
+        long value = 0;
+        for (int i = 0; i < CustomIdCodec.SNOWFLAKE_LENGTH; i++) {
+            value = (value << 6) | next();
+        }
+        return value;
+    }
+
+    /**
+     * @return the next field as boolean written by {@link CustomIdWriter#writeBoolean(boolean)}
+     * @throws IllegalArgumentException if the custom id is malformed
+     */
+    public boolean readBoolean() throws IllegalArgumentException {
+        return switch (next()) {
+            case 0 -> false;
+            case 1 -> true;
+            default -> throw malformed("invalid boolean");
+        };
+    }
+
+    /**
+     * @param type the enum type
+     * @param <E>  the enum type
+     * @return the next field as enum constant written by {@link CustomIdWriter#writeEnum(Enum)}
+     * @throws IllegalArgumentException if the custom id is malformed or the ordinal is out of range
+     */
+    @NotNull
+    public <E extends Enum<E>> E readEnum(@NotNull Class<E> type) throws IllegalArgumentException {
+        Object[] constants = ENUM_CONSTANTS.get(type);
+        int ordinal = readCount("ordinal");
+        if (ordinal >= constants.length) throw malformed("unknown " + type.getSimpleName() + " ordinal " + ordinal);
+        return type.cast(constants[ordinal]);
+    }
+
+    /**
+     * @return the next field as string written by {@link CustomIdWriter#writeString(String)}
+     * @throws IllegalArgumentException if the custom id is malformed
+     */
+    @NotNull
+    public String readString() throws IllegalArgumentException {
+        int length = readCount("string length");
+        if (length > id.length() - position) throw malformed("truncated string");
+        int start = position;
+        position += length;
+        return id.substring(start, position);
+    }
+
+    /**
+     * @return {@code true} if there are characters left to read
+     */
+    public boolean hasRemaining() {
+        return position < id.length();
+    }
+
+    /**
+     * Reads an unsigned varint that is used as length or index, e.g. a string length or enum ordinal.
+     *
+     * @param name what the value is, for the error message
+     * @throws IllegalArgumentException if the custom id is malformed or the value is negative or exceeds an int
+     */
+    private int readCount(@NotNull String name) throws IllegalArgumentException {
+        long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) throw malformed(name + " out of range");
+        return (int) value;
+    }
+
+    private long readVarLong() throws IllegalArgumentException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 5) {
+            int digit = next();
+            int bits = digit & (CustomIdCodec.CONTINUATION - 1);
+            // The last digit holds the 4 remaining bits of the long, anything above would be cut off
+            if (shift + 5 > Long.SIZE && bits >>> (Long.SIZE - shift) != 0) throw malformed("varint overflow");
+            value |= (long) bits << shift;
+            if ((digit & CustomIdCodec.CONTINUATION) == 0) return value;
+        }
+        throw malformed("varint too long");
+    }
+
+    private int next() throws IllegalArgumentException {
+        if (position >= id.length()) throw malformed("unexpected end");
+        int digit = CustomIdCodec.decode(id.charAt(position));
+        if (digit < 0) throw malformed("invalid character");
+        position++;
+        return digit;
+    }
+
+    @NotNull
+    private IllegalArgumentException malformed(@NotNull String reason) {
+        return new IllegalArgumentException("Malformed custom id \"" + id + "\" at " + position + ": " + reason);
+    }
+}
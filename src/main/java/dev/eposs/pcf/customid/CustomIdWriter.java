@@ -0,0 +1,122 @@
+package dev.eposs.pcf.customid;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Builds a custom id from an id prefix and typed fields, see {@link CustomIdCodec} for the format.
+ * <p>
+ * Fields have to be read back by a {@link CustomIdReader} in the same order and with the same types.
+ * </p>
+ *
+ * <pre>{@code
+ * String id = new CustomIdWriter(getIdPrefix()).writeSnowflake(userId).writeInt(page).writeEnum(Sort.NAME).build();
+ * }</pre>
+ */
+public final class CustomIdWriter {
+    private final StringBuilder id = new StringBuilder(CustomIdCodec.MAX_LENGTH);
+
+    /**
+     * Creates a writer.
+     *
+     * @param idPrefix the id prefix of the handler, e.g. a {@linkplain CustomIdCodec#tagPrefix(int) tag prefix}
+     */
+    public CustomIdWriter(@NotNull String idPrefix) {
+        id.append(idPrefix);
+    }
+
+    /**
+     * Writes a long as zigzag varint, taking 1 character for values between -16 and 15.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    @NotNull
+    public CustomIdWriter writeLong(long value) {
+        CustomIdCodec.appendVarLong(id, (value << 1) ^ (value >> 63));
+        return this;
+    }
+
+    /**
+     * Writes an int as zigzag varint, taking 1 character for values between -16 and 15.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    @NotNull
+    public CustomIdWriter writeInt(int value) {
+        return writeLong(value);
+    }
+
+    /**
+     * Writes a snowflake or any other long using all 64 bits in a fixed 11 characters.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    @NotNull
+    public CustomIdWriter writeSnowflake(long value) {
+        for (int shift = 60; shift >= 0; shift -= 6) {
+            id.append(CustomIdCodec.ALPHABET[(int) (value >>> shift) & 63]);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a boolean in 1 character.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    @NotNull
+    public CustomIdWriter writeBoolean(boolean value) {
+        id.append(CustomIdCodec.ALPHABET[value ? 1 : 0]);
+        return this;
+    }
+
+    /**
+     * Writes the ordinal of an enum constant, taking 1 character for the first 32 constants.
+     * Appending constants to the enum keeps existing ids valid, reordering them does not.
+     *
+     * @param value the constant
+     * @return this writer
+     */
+    @NotNull
+    public CustomIdWriter writeEnum(@NotNull Enum<?> value) {
+        CustomIdCodec.appendVarLong(id, value.ordinal());
+        return this;
+    }
+
+    /**
+     * Writes a string as its length followed by its characters.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    @NotNull
+    public CustomIdWriter writeString(@NotNull String value) {
+        CustomIdCodec.appendVarLong(id, value.length());
+        id.append(value);
+        return this;
+    }
+
+    /**
+     * @return the number of characters written so far, including the prefix
+     */
+    public int length() {
+        return id.length();
+    }
+
+    /**
+     * Returns the custom id.
+     *
+     * @return the custom id
+     * @throws IllegalStateException if the custom id is longer than {@link CustomIdCodec#MAX_LENGTH}
+     */
+    @NotNull
+    public String build() throws IllegalStateException {
+        if (id.length() > CustomIdCodec.MAX_LENGTH) {
+            throw new IllegalStateException("Custom id has " + id.length() + " characters, at most " + CustomIdCodec.MAX_LENGTH + " are allowed.");
+        }
+        return id.toString();
+    }
+}
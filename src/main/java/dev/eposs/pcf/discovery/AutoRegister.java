@@ -0,0 +1,27 @@
+package dev.eposs.pcf.discovery;
+
+import dev.eposs.pcf.command.CommandRegistry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler class for the compile-time handler index.
+ * <p>
+ * The {@code PhoenixCommandFramework-processor} annotation processor collects all annotated classes and generates
+ * an {@link IHandlerIndex} that instantiates and registers them. Annotated classes must be public, non-abstract,
+ * have a public no-argument constructor and implement at least one of the handler interfaces. A class implementing
+ * several handler interfaces is registered once per interface, using the same instance.
+ * </p>
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface AutoRegister {
+
+    /**
+     * @return the registration scope if the class is a command handler
+     */
+    CommandRegistry.Type scope() default CommandRegistry.Type.GLOBAL;
+}
@@ -0,0 +1,52 @@
+package dev.eposs.pcf.discovery;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.command.PreparedCommandChange;
+import dev.eposs.pcf.reload.HandlerTransaction;
+import net.dv8tion.jda.api.JDA;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Registers the handlers of all generated {@link IHandlerIndex handler indexes} on the classpath.
+ * <p>
+ * The indexes are found through {@link ServiceLoader}, using the service files written by the annotation
+ * processor, which also works in GraalVM native images. All handlers are registered in a single
+ * {@link HandlerTransaction}.
+ * </p>
+ */
+public class HandlerDiscovery {
+    private HandlerDiscovery() {
+    }
+
+    /**
+     * Registers the handlers of all indexes before the bot is started.
+     *
+     * @return the published command change
+     * @throws IllegalArgumentException if a handler cannot be registered, in which case nothing is registered
+     */
+    @NotNull
+    public static PreparedCommandChange registerAll() throws IllegalArgumentException {
+        return registerAll(List.of());
+    }
+
+    /**
+     * Registers the handlers of all indexes and syncs the affected commands through the given shards.
+     *
+     * @param shards the JDA instances of the bot
+     * @return the published command change
+     * @throws IllegalArgumentException if a handler cannot be registered, in which case nothing is registered
+     */
+    @NotNull
+    public static PreparedCommandChange registerAll(@NotNull Collection<? extends JDA> shards) throws IllegalArgumentException {
+        HandlerTransaction transaction = new HandlerTransaction();
+        for (IHandlerIndex index : ServiceLoader.load(IHandlerIndex.class)) {
+            PhoenixCommandFramework.LOGGER.debug("Loading handler index {}", index.getClass().getName());
+            index.register(transaction);
+        }
+        return transaction.commit(shards);
+    }
+}
@@ -0,0 +1,21 @@
+package dev.eposs.pcf.discovery;
+
+import dev.eposs.pcf.reload.HandlerTransaction;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Static list of handlers, usually generated at compile time from {@link AutoRegister} annotations.
+ * <p>
+ * Bootstrap code can call a generated index directly, which involves neither reflection nor classpath scanning,
+ * or load all indexes on the classpath via {@link HandlerDiscovery}.
+ * </p>
+ */
+public interface IHandlerIndex {
+
+    /**
+     * Adds all handlers of this index to a transaction.
+     *
+     * @param transaction the transaction to add the handlers to
+     */
+    void register(@NotNull HandlerTransaction transaction);
+}
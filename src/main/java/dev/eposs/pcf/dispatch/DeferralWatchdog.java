@@ -0,0 +1,199 @@
+package dev.eposs.pcf.dispatch;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.interactions.components.ComponentInteraction;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Makes sure every interaction is acknowledged within Discord's 3-second deadline.
+ * <p>
+ * {@link dev.eposs.pcf.event.PCFEventListener} tracks each interaction from the moment it arrives until its
+ * handler returns. If the handler has neither replied nor deferred once the configured budget has elapsed,
+ * the watchdog defers the interaction on its behalf: component interactions with {@code deferEdit()},
+ * everything else with {@code deferReply} using the ephemeral setting passed to {@link #track}, so the
+ * auto-deferred reply is as visible as the one the handler would have sent. Handlers that may be auto-deferred should
+ * therefore check {@link IReplyCallback#isAcknowledged()} and answer through the
+ * {@link IReplyCallback#getHook() hook} when it returns {@code true}.
+ * </p>
+ * <p>
+ * Since every interaction gets the same budget, deadlines are reached in arrival order. All in-flight
+ * interactions are therefore kept in a single FIFO queue that one daemon thread checks every tick, which
+ * makes tracking and expiry {@code O(1)} without a timer per interaction.
+ * </p>
+ */
+public class DeferralWatchdog {
+    public static final Duration DEFAULT_BUDGET = Duration.ofMillis(2200);
+    public static final Duration DEFAULT_TICK = Duration.ofMillis(50);
+
+    private final long budgetNanos;
+    private final Queue<Ticket> inFlight = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService ticker;
+
+    private final LongAdder tracked = new LongAdder();
+    private final LongAdder autoDeferred = new LongAdder();
+    private final Map<String, AtomicLong> closestCallNanos = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a watchdog with the {@linkplain #DEFAULT_BUDGET default budget} of 2.2 seconds.
+     */
+    public DeferralWatchdog() {
+        this(DEFAULT_BUDGET, DEFAULT_TICK);
+    }
+
+    /**
+     * Creates a watchdog.
+     *
+     * @param budget time a handler gets to acknowledge an interaction itself, must be shorter than 3 seconds
+     * @param tick   how often in-flight interactions are checked, must be positive
+     * @throws IllegalArgumentException if the budget or tick is out of range
+     */
+    public DeferralWatchdog(@NotNull Duration budget, @NotNull Duration tick) throws IllegalArgumentException {
+        if (budget.isNegative() || budget.isZero() || budget.compareTo(Duration.ofSeconds(3)) >= 0) {
+            throw new IllegalArgumentException("Budget must be between 0 and 3 seconds.");
+        }
+        if (tick.isNegative() || tick.isZero()) throw new IllegalArgumentException("Tick must be positive.");
+
+        this.budgetNanos = budget.toNanos();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("PCF-Deferral-Watchdog").daemon().factory());
+        this.ticker.scheduleAtFixedRate(this::tick, tick.toNanos(), tick.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts tracking an interaction. Must be called as soon as the interaction arrives, so time spent
+     * waiting for an executor slot counts towards the budget.
+     *
+     * @param event     the interaction to watch
+     * @param handlerId the id of the handler the interaction is dispatched to, used for the
+     *                  {@linkplain #getClosestCalls() closest calls}
+     * @param ephemeral whether an auto-deferred reply is ephemeral, ignored for component interactions
+     * @return the ticket that has to be {@linkplain Ticket#complete() completed} once the handler returned
+     */
+    @NotNull
+    public Ticket track(@NotNull IReplyCallback event, @NotNull String handlerId, boolean ephemeral) {
+        Ticket ticket = new Ticket(event, handlerId, ephemeral, System.nanoTime());
+        inFlight.add(ticket);
+        tracked.increment();
+        return ticket;
+    }
+
+    /**
+     * @return total number of interactions tracked so far
+     */
+    public long getTrackedCount() {
+        return tracked.sum();
+    }
+
+    /**
+     * @return total number of interactions the watchdog deferred successfully
+     */
+    public long getAutoDeferredCount() {
+        return autoDeferred.sum();
+    }
+
+    /**
+     * Returns the longest time a handler took from the arrival of its interaction until it returned, among all
+     * interactions of the handler that finished within the budget. Values close to the budget mean the handler
+     * only barely made it.
+     *
+     * @param handlerId the id of the handler
+     * @return the closest observed call, zero if no interaction of the handler finished yet
+     */
+    @NotNull
+    public Duration getClosestCall(@NotNull String handlerId) {
+        AtomicLong nanos = closestCallNanos.get(handlerId);
+        return Duration.ofNanos(nanos == null ? 0 : nanos.get());
+    }
+
+    /**
+     * Returns the {@linkplain #getClosestCall(String) closest call} of every handler that finished an
+     * interaction so far.
+     *
+     * @return the closest observed calls sorted by handler id
+     */
+    @NotNull
+    public Map<String, Duration> getClosestCalls() {
+        Map<String, Duration> snapshot = new TreeMap<>();
+        closestCallNanos.forEach((handlerId, nanos) -> snapshot.put(handlerId, Duration.ofNanos(nanos.get())));
+        return snapshot;
+    }
+
+    /**
+     * Stops the watchdog thread. Interactions that are still in flight are no longer watched.
+     */
+    public void shutdown() {
+        ticker.shutdownNow();
+        inFlight.clear();
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        Ticket ticket;
+        while ((ticket = inFlight.peek()) != null && now - ticket.startNanos >= budgetNanos) {
+            inFlight.poll();
+            if (!ticket.done.compareAndSet(false, true)) continue;
+
+            IReplyCallback event = ticket.event;
+            if (event.isAcknowledged()) continue;
+
+            try {
+                if (event instanceof ComponentInteraction component) component.deferEdit().queue(success -> autoDeferred.increment(), e -> deferFailed(event, e));
+                else event.deferReply(ticket.ephemeral).queue(success -> autoDeferred.increment(), e -> deferFailed(event, e));
+            } catch (Exception e) {
+                deferFailed(event, e);
+            }
+        }
+    }
+
+    private void deferFailed(@NotNull IReplyCallback event, @NotNull Throwable e) {
+        // The handler acknowledged the interaction concurrently, nothing left to do. JDA reports this as an
+        // IllegalStateException from queue, Discord with INTERACTION_ALREADY_ACKNOWLEDGED.
+        if (e instanceof IllegalStateException) return;
+        if (e instanceof ErrorResponseException response && response.getErrorResponse() == ErrorResponse.INTERACTION_ALREADY_ACKNOWLEDGED) return;
+
+        PhoenixCommandFramework.LOGGER.warn("Failed to auto-defer interaction {}", event.getId(), e);
+    }
+
+    /**
+     * Tracking handle for a single interaction.
+     */
+    public final class Ticket {
+        private final IReplyCallback event;
+        private final String handlerId;
+        private final boolean ephemeral;
+        private final long startNanos;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Ticket(IReplyCallback event, String handlerId, boolean ephemeral, long startNanos) {
+            this.event = event;
+            this.handlerId = handlerId;
+            this.ephemeral = ephemeral;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Marks the handler of this interaction as finished. Calling this more than once has no effect.
+         * Completed tickets are dropped from the queue when their deadline passes.
+         */
+        public void complete() {
+            if (!done.compareAndSet(false, true)) return;
+            long elapsed = System.nanoTime() - startNanos;
+            closestCallNanos.computeIfAbsent(handlerId, id -> new AtomicLong()).accumulateAndGet(Math.min(elapsed, budgetNanos), Math::max);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package dev.eposs.pcf.dispatch;
+
+/**
+ * Point-in-time snapshot of the counters of an {@link IDispatchExecutor}.
+ *
+ * @param queued    number of tasks currently waiting for a free slot
+ * @param active    number of tasks currently running
+ * @param completed total number of tasks that finished running
+ * @param rejected  total number of tasks rejected with a "busy" reply
+ * @param dropped   total number of tasks dropped without a reply
+ */
+public record DispatchStats(int queued, int active, long completed, long rejected, long dropped) {
+}
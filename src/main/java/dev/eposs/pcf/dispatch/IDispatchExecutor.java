@@ -0,0 +1,78 @@
+package dev.eposs.pcf.dispatch;
+
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * SPI used by {@link dev.eposs.pcf.event.PCFEventListener} to run handler code off the JDA event thread.
+ * <p>
+ * Implementations decide where and when a dispatch task runs and may refuse work when overloaded.
+ * {@link #execute(IReplyCallback, Runnable)} is called on the JDA event thread and must therefore never block.
+ * </p>
+ */
+public interface IDispatchExecutor {
+
+    /**
+     * Schedules the dispatch task for the given interaction.
+     *
+     * @param event the interaction that is being dispatched, can be used for per-guild accounting or to reply
+     *              to the user if the task is rejected
+     * @param task  the task invoking the handler
+     * @return {@code true} if the task was accepted and will run, {@code false} if it was rejected or dropped
+     */
+    boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task);
+
+    /**
+     * Schedules the dispatch task for the given interaction and runs a callback once the task finished and
+     * released its concurrency slot. Decorators use this to hand work off without holding on to the slot of
+     * the finished task.
+     * <p>
+     * The default implementation runs the callback right after the task, which is only correct for
+     * executors that do not limit concurrency.
+     * </p>
+     *
+     * @param event        the interaction that is being dispatched
+     * @param task         the task invoking the handler
+     * @param afterRelease run after the task finished and its slot was released, never run if the task is
+     *                     not accepted
+     * @return {@code true} if the task was accepted and will run, {@code false} if it was rejected or dropped
+     */
+    default boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task, @NotNull Runnable afterRelease) {
+        return execute(event, () -> {
+            try {
+                task.run();
+            } finally {
+                afterRelease.run();
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #execute(IReplyCallback, Runnable, Runnable)}, with a callback for accepted tasks that are
+     * dropped before they run, e.g. by a decorator that queued the task and was refused by the executor it wraps.
+     * The caller uses it to finish the bookkeeping it does for rejected tasks.
+     * <p>
+     * The default implementation never drops accepted tasks and ignores the callback.
+     * </p>
+     *
+     * @param event        the interaction that is being dispatched
+     * @param task         the task invoking the handler
+     * @param afterRelease run after the task finished and its slot was released, never run if the task is
+     *                     not accepted or dropped
+     * @param onDropped    run instead of the task if it was accepted but is dropped before it runs, never run if
+     *                     this method returns {@code false}
+     * @return {@code true} if the task was accepted, {@code false} if it was rejected or dropped right away
+     */
+    default boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task, @NotNull Runnable afterRelease,
+                            @NotNull Runnable onDropped) {
+        return execute(event, task, afterRelease);
+    }
+
+    /**
+     * Returns a snapshot of the executor counters.
+     *
+     * @return the current statistics
+     */
+    @NotNull
+    DispatchStats getStats();
+}
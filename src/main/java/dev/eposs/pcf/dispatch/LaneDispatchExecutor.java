@@ -0,0 +1,236 @@
+package dev.eposs.pcf.dispatch;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link IDispatchExecutor} decorator that serializes interactions into ordered "lanes".
+ * <p>
+ * Every interaction is mapped to a lane key, for example the user or the message it was triggered on
+ * (see {@link LaneKey}). Interactions with the same key run one after another in arrival order, while
+ * interactions with different keys still run in parallel on the wrapped executor. This gives handlers
+ * per-entity ordering without having to take their own locks.
+ * </p>
+ * <p>
+ * Each task is still submitted to the wrapped executor individually once it is at the head of its lane, so
+ * its concurrency limits and counters keep applying. The next task of a lane is only submitted after the
+ * finished one released its slot. A lane only exists while it has a running or waiting task and is removed as
+ * soon as it becomes idle.
+ * </p>
+ * <p>
+ * Tasks waiting in a lane count as queued: together with the tasks queued by the wrapped executor their number
+ * is capped by {@code maxQueued}, after which tasks are rejected with an ephemeral "busy" reply.
+ * </p>
+ * <p>
+ * A waiting task was already reported as accepted, so if the wrapped executor refuses it once it reaches the
+ * head of its lane, it is answered with the "busy" reply here and its {@code onDropped} callback is run.
+ * </p>
+ */
+public class LaneDispatchExecutor implements IDispatchExecutor {
+    public static final int DEFAULT_MAX_QUEUED = VirtualThreadDispatchExecutor.DEFAULT_MAX_QUEUED;
+    public static final String DEFAULT_BUSY_MESSAGE = VirtualThreadDispatchExecutor.DEFAULT_BUSY_MESSAGE;
+
+    private static final Runnable NO_OP = () -> {
+    };
+
+    private final IDispatchExecutor delegate;
+    private final ToLongFunction<IReplyCallback> laneKey;
+    private final int maxQueued;
+    private final String busyMessage;
+
+    private final Map<Long, ArrayDeque<Entry>> lanes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a lane executor with the default queue bound.
+     *
+     * @param delegate the executor that actually runs the tasks
+     * @param laneKey  maps an interaction to its lane, see {@link LaneKey} for the common choices
+     */
+    public LaneDispatchExecutor(@NotNull IDispatchExecutor delegate, @NotNull ToLongFunction<IReplyCallback> laneKey) {
+        this(delegate, laneKey, DEFAULT_MAX_QUEUED, DEFAULT_BUSY_MESSAGE);
+    }
+
+    /**
+     * Creates a lane executor.
+     *
+     * @param delegate    the executor that actually runs the tasks
+     * @param laneKey     maps an interaction to its lane, see {@link LaneKey} for the common choices
+     * @param maxQueued   maximum number of tasks waiting in lanes plus tasks queued by the wrapped executor, must
+     *                    not be negative
+     * @param busyMessage the ephemeral reply sent to interactions rejected because the bound is reached
+     * @throws IllegalArgumentException if {@code maxQueued} is negative
+     */
+    public LaneDispatchExecutor(@NotNull IDispatchExecutor delegate, @NotNull ToLongFunction<IReplyCallback> laneKey,
+                                int maxQueued, @NotNull String busyMessage) throws IllegalArgumentException {
+        if (maxQueued < 0) throw new IllegalArgumentException("Max queued cannot be negative.");
+
+        this.delegate = delegate;
+        this.laneKey = laneKey;
+        this.maxQueued = maxQueued;
+        this.busyMessage = busyMessage;
+    }
+
+    @Override
+    public boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task) {
+        return execute(event, task, NO_OP);
+    }
+
+    @Override
+    public boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task, @NotNull Runnable afterRelease) {
+        return execute(event, task, afterRelease, NO_OP);
+    }
+
+    @Override
+    public boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task, @NotNull Runnable afterRelease,
+                           @NotNull Runnable onDropped) {
+        long key = laneKey.applyAsLong(event);
+        Entry entry = new Entry(event, task, afterRelease, onDropped);
+        // 0: waiting in the lane, 1: head of a new lane, 2: queue bound reached
+        int[] outcome = {0};
+
+        lanes.compute(key, (k, lane) -> {
+            if (lane == null) {
+                // The lane queue only holds waiting entries, the running one is implied by its presence.
+                outcome[0] = 1;
+                return new ArrayDeque<>();
+            }
+            if (queued.incrementAndGet() + delegate.getStats().queued() > maxQueued) {
+                queued.decrementAndGet();
+                outcome[0] = 2;
+                return lane;
+            }
+            lane.add(entry);
+            return lane;
+        });
+
+        return switch (outcome[0]) {
+            case 1 -> submit(key, entry);
+            case 2 -> {
+                reject(event);
+                yield false;
+            }
+            default -> true;
+        };
+    }
+
+    /**
+     * Returns the counters of the wrapped executor, with the tasks waiting in lanes added to the queued tasks
+     * and the tasks rejected because of the queue bound added to the rejected tasks.
+     */
+    @NotNull
+    @Override
+    public DispatchStats getStats() {
+        DispatchStats stats = delegate.getStats();
+        return new DispatchStats(stats.queued() + queued.get(), stats.active(), stats.completed(),
+                stats.rejected() + rejected.sum(), stats.dropped());
+    }
+
+    /**
+     * @return the number of lanes that currently have a running or waiting task
+     */
+    public int getActiveLanes() {
+        return lanes.size();
+    }
+
+    /**
+     * Submits the head of a lane to the wrapped executor. If the executor refuses it, the next waiting entry
+     * becomes the head and is submitted instead, so a refusal never stalls the lane. Refused entries other than
+     * the given one were already accepted by {@link #execute} and are {@linkplain #drop dropped}; the given
+     * entry's refusal is reported through the return value.
+     *
+     * @return whether the given entry was accepted
+     */
+    private boolean submit(long key, @NotNull Entry entry) {
+        Entry current = entry;
+        while (current != null) {
+            Entry head = current;
+            if (delegate.execute(head.event, head.task, () -> handOff(key, head), () -> dropped(key, head))) {
+                return head == entry;
+            }
+            if (head != entry) drop(head);
+            current = advance(key);
+        }
+        return false;
+    }
+
+    /**
+     * Called once a task finished and released its slot of the wrapped executor.
+     */
+    private void handOff(long key, @NotNull Entry finished) {
+        try {
+            finished.afterRelease.run();
+        } finally {
+            submitNext(key);
+        }
+    }
+
+    /**
+     * Called if the wrapped executor accepted a task but dropped it before it ran.
+     */
+    private void dropped(long key, @NotNull Entry entry) {
+        try {
+            entry.onDropped.run();
+        } finally {
+            submitNext(key);
+        }
+    }
+
+    private void submitNext(long key) {
+        Entry next = advance(key);
+        if (next != null && !submit(key, next)) drop(next);
+    }
+
+    /**
+     * Answers an accepted entry the wrapped executor refused. The refusal is already counted by the wrapped
+     * executor, so it is not counted again.
+     */
+    private void drop(@NotNull Entry entry) {
+        try {
+            busy(entry.event);
+        } finally {
+            entry.onDropped.run();
+        }
+    }
+
+    private void reject(@NotNull IReplyCallback event) {
+        rejected.increment();
+        busy(event);
+    }
+
+    private void busy(@NotNull IReplyCallback event) {
+        if (event.isAcknowledged()) return;
+
+        event.reply(busyMessage).setEphemeral(true).queue(null, e ->
+                PhoenixCommandFramework.LOGGER.debug("Failed to send busy reply", e));
+    }
+
+    /**
+     * Takes the next waiting entry off the lane, or removes the lane if nothing is waiting.
+     */
+    @Nullable
+    private Entry advance(long key) {
+        Entry[] next = {null};
+        lanes.computeIfPresent(key, (k, lane) -> {
+            next[0] = lane.poll();
+            if (next[0] == null) return null;
+            queued.decrementAndGet();
+            return lane;
+        });
+        return next[0];
+    }
+
+    private record Entry(IReplyCallback event, Runnable task, Runnable afterRelease, Runnable onDropped) {
+    }
+}
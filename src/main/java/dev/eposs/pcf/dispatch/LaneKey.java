@@ -0,0 +1,52 @@
+package dev.eposs.pcf.dispatch;
+
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.interactions.components.ComponentInteraction;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Common ways to derive the lane of an interaction for a {@link LaneDispatchExecutor}.
+ * Interactions with the same key are executed one after another, in arrival order.
+ */
+public enum LaneKey implements ToLongFunction<IReplyCallback> {
+    /**
+     * One lane per user.
+     */
+    USER {
+        @Override
+        public long applyAsLong(@NotNull IReplyCallback event) {
+            return event.getUser().getIdLong();
+        }
+    },
+    /**
+     * One lane per guild. Interactions outside a guild fall back to one lane per user.
+     */
+    GUILD {
+        @Override
+        public long applyAsLong(@NotNull IReplyCallback event) {
+            return event.isFromGuild() ? event.getGuild().getIdLong() : event.getUser().getIdLong();
+        }
+    },
+    /**
+     * One lane per channel.
+     */
+    CHANNEL {
+        @Override
+        public long applyAsLong(@NotNull IReplyCallback event) {
+            return event.getChannelIdLong();
+        }
+    },
+    /**
+     * One lane per message the component is attached to. Interactions without a message fall back to one
+     * lane per channel.
+     */
+    MESSAGE {
+        @Override
+        public long applyAsLong(@NotNull IReplyCallback event) {
+            if (event instanceof ComponentInteraction component) return component.getMessageIdLong();
+            return event.getChannelIdLong();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package dev.eposs.pcf.dispatch;
+
+/**
+ * Describes what a bounded {@link IDispatchExecutor} does with an interaction when all slots are in use.
+ */
+public enum OverloadPolicy {
+    /**
+     * Wait for a free slot. Once the wait queue is full, new interactions are rejected.
+     */
+    QUEUE,
+    /**
+     * Reject the interaction and tell the user with an ephemeral "busy" reply.
+     */
+    REJECT,
+    /**
+     * Silently drop the interaction.
+     */
+    DROP
+}
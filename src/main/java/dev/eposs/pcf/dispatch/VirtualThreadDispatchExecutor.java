@@ -0,0 +1,215 @@
+package dev.eposs.pcf.dispatch;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link IDispatchExecutor} that runs every dispatch task on its own virtual thread, bounded by a
+ * global limit and a per-guild limit of concurrently running tasks.
+ * <p>
+ * If no slot is free, the configured {@link OverloadPolicy} decides whether the task waits, is rejected with
+ * an ephemeral "busy" reply or is dropped. Waiting tasks are parked virtual threads that do not hold any
+ * downstream resources; their number is capped by {@code maxQueued}, after which tasks are rejected.
+ * </p>
+ * <p>
+ * Per-guild semaphores only exist while a guild has queued or running tasks, so memory does not grow with
+ * the number of guilds the bot is in. Interactions outside a guild only count towards the global limit.
+ * </p>
+ */
+public class VirtualThreadDispatchExecutor implements IDispatchExecutor {
+    public static final int DEFAULT_GLOBAL_LIMIT = 512;
+    public static final int DEFAULT_GUILD_LIMIT = 32;
+    public static final int DEFAULT_MAX_QUEUED = 10_000;
+    public static final String DEFAULT_BUSY_MESSAGE = "The bot is busy right now, please try again in a moment.";
+
+    private static final Runnable NO_OP = () -> {
+    };
+
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("PCF-Event-Thread").factory();
+
+    private final Semaphore globalPermits;
+    private final int guildLimit;
+    private final int maxQueued;
+    private final OverloadPolicy policy;
+    private final String busyMessage;
+
+    private final Map<Long, GuildSlot> guildSlots = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Creates an executor with the default limits and the {@link OverloadPolicy#QUEUE} policy.
+     */
+    public VirtualThreadDispatchExecutor() {
+        this(DEFAULT_GLOBAL_LIMIT, DEFAULT_GUILD_LIMIT, OverloadPolicy.QUEUE, DEFAULT_MAX_QUEUED, DEFAULT_BUSY_MESSAGE);
+    }
+
+    /**
+     * Creates an executor with the given limits.
+     *
+     * @param globalLimit maximum number of tasks running at the same time, must be positive
+     * @param guildLimit  maximum number of tasks of a single guild running at the same time, must be positive
+     * @param policy      what to do with a task if no slot is free
+     * @param maxQueued   maximum number of waiting tasks for {@link OverloadPolicy#QUEUE}, must not be negative
+     * @param busyMessage the ephemeral reply sent to rejected interactions
+     * @throws IllegalArgumentException if a limit is out of range
+     */
+    public VirtualThreadDispatchExecutor(int globalLimit, int guildLimit, @NotNull OverloadPolicy policy, int maxQueued, @NotNull String busyMessage) throws IllegalArgumentException {
+        if (globalLimit <= 0) throw new IllegalArgumentException("Global limit must be positive.");
+        if (guildLimit <= 0) throw new IllegalArgumentException("Guild limit must be positive.");
+        if (maxQueued < 0) throw new IllegalArgumentException("Max queued cannot be negative.");
+
+        this.globalPermits = new Semaphore(globalLimit, true);
+        this.guildLimit = guildLimit;
+        this.policy = policy;
+        this.maxQueued = maxQueued;
+        this.busyMessage = busyMessage;
+    }
+
+    @Override
+    public boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task) {
+        return execute(event, task, NO_OP);
+    }
+
+    @Override
+    public boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task, @NotNull Runnable afterRelease) {
+        return execute(event, task, afterRelease, NO_OP);
+    }
+
+    @Override
+    public boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task, @NotNull Runnable afterRelease,
+                           @NotNull Runnable onDropped) {
+        long guildId = event.isFromGuild() ? event.getGuild().getIdLong() : 0L;
+        GuildSlot slot = guildId == 0L ? null : retainSlot(guildId);
+
+        if (tryAcquire(slot)) {
+            active.incrementAndGet();
+            threadFactory.newThread(() -> run(task, afterRelease, guildId, slot)).start();
+            return true;
+        }
+
+        return switch (policy) {
+            case QUEUE -> {
+                if (queued.incrementAndGet() > maxQueued) {
+                    queued.decrementAndGet();
+                    reject(event, guildId, slot);
+                    yield false;
+                }
+                threadFactory.newThread(() -> {
+                    try {
+                        acquire(slot);
+                    } catch (InterruptedException e) {
+                        queued.decrementAndGet();
+                        releaseSlot(guildId, slot);
+                        dropped.increment();
+                        Thread.currentThread().interrupt();
+                        onDropped.run();
+                        return;
+                    }
+                    queued.decrementAndGet();
+                    active.incrementAndGet();
+                    run(task, afterRelease, guildId, slot);
+                }).start();
+                yield true;
+            }
+            case REJECT -> {
+                reject(event, guildId, slot);
+                yield false;
+            }
+            case DROP -> {
+                dropped.increment();
+                releaseSlot(guildId, slot);
+                yield false;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public DispatchStats getStats() {
+        return new DispatchStats(queued.get(), active.get(), completed.sum(), rejected.sum(), dropped.sum());
+    }
+
+    private void run(@NotNull Runnable task, @NotNull Runnable afterRelease, long guildId, @Nullable GuildSlot slot) {
+        try {
+            task.run();
+        } finally {
+            globalPermits.release();
+            if (slot != null) slot.permits.release();
+            releaseSlot(guildId, slot);
+            active.decrementAndGet();
+            completed.increment();
+            afterRelease.run();
+        }
+    }
+
+    private void reject(@NotNull IReplyCallback event, long guildId, @Nullable GuildSlot slot) {
+        rejected.increment();
+        releaseSlot(guildId, slot);
+        if (event.isAcknowledged()) return;
+
+        event.reply(busyMessage).setEphemeral(true).queue(null, e ->
+                PhoenixCommandFramework.LOGGER.debug("Failed to send busy reply", e));
+    }
+
+    private boolean tryAcquire(@Nullable GuildSlot slot) {
+        if (slot != null && !slot.permits.tryAcquire()) return false;
+        if (globalPermits.tryAcquire()) return true;
+        if (slot != null) slot.permits.release();
+        return false;
+    }
+
+    /**
+     * Blocks until both a guild and a global permit are available. Permits are always taken in the order
+     * guild, then global, so waiting tasks cannot deadlock each other.
+     */
+    private void acquire(@Nullable GuildSlot slot) throws InterruptedException {
+        if (slot != null) slot.permits.acquire();
+        try {
+            globalPermits.acquire();
+        } catch (InterruptedException e) {
+            if (slot != null) slot.permits.release();
+            throw e;
+        }
+    }
+
+    @NotNull
+    private GuildSlot retainSlot(long guildId) {
+        return guildSlots.compute(guildId, (id, slot) -> {
+            if (slot == null) slot = new GuildSlot(guildLimit);
+            slot.references++;
+            return slot;
+        });
+    }
+
+    private void releaseSlot(long guildId, @Nullable GuildSlot slot) {
+        if (slot == null) return;
+        guildSlots.computeIfPresent(guildId, (id, current) -> --current.references == 0 ? null : current);
+    }
+
+    /**
+     * Per-guild permits plus a reference count of tasks that currently use them.
+     * The reference count is only modified inside {@code ConcurrentHashMap.compute}.
+     */
+    private static final class GuildSlot {
+        private final Semaphore permits;
+        private int references;
+
+        private GuildSlot(int limit) {
+            this.permits = new Semaphore(limit, true);
+        }
+    }
+}
@@ -1,30 +1,46 @@
 package dev.eposs.pcf.entityselect;
 
+import dev.eposs.pcf.util.PrefixIndex;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class EntitySelectRegistry {
     private EntitySelectRegistry() {
     }
 
-    private static final Map<String, EntitySelectHandler> ENTITY_SELECTS = new ConcurrentHashMap<>();
+    private static volatile PrefixIndex<EntitySelectHandler> entitySelects = PrefixIndex.empty();
 
-    public static void register(EntitySelectHandler action) {
-        ENTITY_SELECTS.put(action.getIdPrefix(), action);
+    public static void register(EntitySelectHandler action) throws IllegalArgumentException {
+        register(new EntitySelectHandler[]{action});
     }
 
-    public static void register(@NotNull EntitySelectHandler... actions) {
-        for (EntitySelectHandler action : actions) register(action);
+    public static synchronized void register(@NotNull EntitySelectHandler... actions) throws IllegalArgumentException {
+        entitySelects = entitySelects.withAll(Arrays.asList(actions), EntitySelectHandler::getIdPrefix);
+    }
+
+    public static synchronized boolean unregister(@NotNull String idPrefix) {
+        PrefixIndex<EntitySelectHandler> updated = entitySelects.apply(List.of(idPrefix), List.of(), EntitySelectHandler::getIdPrefix);
+        boolean changed = updated != entitySelects;
+        entitySelects = updated;
+        return changed;
+    }
+
+    /**
+     * Compiles the index resulting from the given removals and additions without publishing it.
+     * See {@link dev.eposs.pcf.button.ButtonRegistry#prepareChange(Collection, Collection)} for the contract.
+     */
+    @NotNull
+    public static Runnable prepareChange(@NotNull Collection<String> removedPrefixes, @NotNull Collection<? extends EntitySelectHandler> added) throws IllegalArgumentException {
+        PrefixIndex<EntitySelectHandler> updated = entitySelects.apply(removedPrefixes, added, EntitySelectHandler::getIdPrefix);
+        return () -> entitySelects = updated;
     }
 
     @NotNull
     public static Optional<EntitySelectHandler> getEntitySelect(String customId) {
-        return ENTITY_SELECTS.entrySet().stream()
-                .filter(entry -> customId.startsWith(entry.getKey()))
-                .map(Map.Entry::getValue)
-                .findFirst();
+        return Optional.ofNullable(entitySelects.longestMatch(customId));
     }
 }
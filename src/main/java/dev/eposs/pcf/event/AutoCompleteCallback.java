@@ -0,0 +1,119 @@
+package dev.eposs.pcf.event;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Entitlement;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.Channel;
+import net.dv8tion.jda.api.interactions.DiscordLocale;
+import net.dv8tion.jda.api.interactions.IntegrationOwners;
+import net.dv8tion.jda.api.interactions.InteractionContextType;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.interactions.commands.CommandAutoCompleteInteraction;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyCallbackAction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Read-only view of an autocomplete interaction as an {@link IReplyCallback}, so permission policies and rate
+ * limit keys written for regular interactions can be evaluated for it. Autocomplete interactions cannot be
+ * deferred or replied to, so the response methods throw {@link UnsupportedOperationException}.
+ */
+record AutoCompleteCallback(@NotNull CommandAutoCompleteInteraction interaction) implements IReplyCallback {
+
+    @NotNull
+    @Override
+    public ReplyCallbackAction deferReply() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Autocomplete interactions cannot be replied to.");
+    }
+
+    @NotNull
+    @Override
+    public InteractionHook getHook() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Autocomplete interactions have no interaction hook.");
+    }
+
+    @Override
+    public long getIdLong() {
+        return interaction.getIdLong();
+    }
+
+    @Override
+    public int getTypeRaw() {
+        return interaction.getTypeRaw();
+    }
+
+    @NotNull
+    @Override
+    public String getToken() {
+        return interaction.getToken();
+    }
+
+    @Nullable
+    @Override
+    public Guild getGuild() {
+        return interaction.getGuild();
+    }
+
+    @NotNull
+    @Override
+    public User getUser() {
+        return interaction.getUser();
+    }
+
+    @Nullable
+    @Override
+    public Member getMember() {
+        return interaction.getMember();
+    }
+
+    @Override
+    public boolean isAcknowledged() {
+        return interaction.isAcknowledged();
+    }
+
+    @Nullable
+    @Override
+    public Channel getChannel() {
+        return interaction.getChannel();
+    }
+
+    @Override
+    public long getChannelIdLong() {
+        return interaction.getChannelIdLong();
+    }
+
+    @NotNull
+    @Override
+    public DiscordLocale getUserLocale() {
+        return interaction.getUserLocale();
+    }
+
+    @NotNull
+    @Override
+    public List<Entitlement> getEntitlements() {
+        return interaction.getEntitlements();
+    }
+
+    @NotNull
+    @Override
+    public InteractionContextType getContext() {
+        return interaction.getContext();
+    }
+
+    @NotNull
+    @Override
+    public IntegrationOwners getIntegrationOwners() {
+        return interaction.getIntegrationOwners();
+    }
+
+    @NotNull
+    @Override
+    public JDA getJDA() {
+        return interaction.getJDA();
+    }
+}
@@ -0,0 +1,156 @@
+package dev.eposs.pcf.event;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.metrics.HandlerType;
+import dev.eposs.pcf.reply.ReplyBuffer;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link IExceptionHandler} that keeps repeated failures from flooding the logs.
+ * <p>
+ * Exceptions are classified by handler and exception type. Per class, only the first {@code tracesPerWindow}
+ * occurrences of a {@code window} are logged with their stack trace; further occurrences are only counted, and
+ * a single summary line per class reports the count once the window ends. Classes without occurrences in a
+ * window are dropped.
+ * </p>
+ * <p>
+ * Users get a pre-rendered ephemeral message instead of one formatted per failure. The message is chosen by the
+ * most specific exception type registered with {@link #setTemplate(Class, String)}, falling back to
+ * {@link #DEFAULT_TEMPLATE}. Exception messages are not shown to users.
+ * </p>
+ */
+public class ExceptionPipeline implements IExceptionHandler {
+    public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+    public static final int DEFAULT_TRACES_PER_WINDOW = 3;
+    public static final String DEFAULT_TEMPLATE = "There was an error handling your request. Please try again later.";
+
+    private final int tracesPerWindow;
+    private final long windowSeconds;
+    private final ScheduledExecutorService summarizer;
+    private final Map<ErrorClass, Occurrences> occurrences = new ConcurrentHashMap<>();
+    private final LongAdder suppressed = new LongAdder();
+
+    private volatile Map<Class<? extends Throwable>, String> templates = Map.of();
+
+    /**
+     * Creates a pipeline with the default window and trace budget.
+     */
+    public ExceptionPipeline() {
+        this(DEFAULT_WINDOW, DEFAULT_TRACES_PER_WINDOW);
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param window          length of a sampling window, at least one second
+     * @param tracesPerWindow how many occurrences per class and window are logged with stack trace, must not be negative
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public ExceptionPipeline(@NotNull Duration window, int tracesPerWindow) throws IllegalArgumentException {
+        if (window.toSeconds() < 1) throw new IllegalArgumentException("Window must be at least one second.");
+        if (tracesPerWindow < 0) throw new IllegalArgumentException("Traces per window cannot be negative.");
+
+        this.tracesPerWindow = tracesPerWindow;
+        this.windowSeconds = window.toSeconds();
+        this.summarizer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("PCF-Exception-Summary").daemon().factory());
+        this.summarizer.scheduleAtFixedRate(this::summarize, windowSeconds, windowSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sets the message users get for an exception type and its subtypes, unless a more specific type has its
+     * own message.
+     *
+     * @param type    the exception type
+     * @param message the message, sent as is
+     */
+    public synchronized void setTemplate(@NotNull Class<? extends Throwable> type, @NotNull String message) {
+        Map<Class<? extends Throwable>, String> copy = new HashMap<>(templates);
+        copy.put(type, message);
+        templates = Map.copyOf(copy);
+    }
+
+    @Override
+    public void handleException(Exception e, @NotNull IReplyCallback event) {
+        handleException(e, event, null, "unknown");
+    }
+
+    @Override
+    public void handleException(Exception e, @NotNull IReplyCallback event, @Nullable HandlerType type, @NotNull String handlerId) {
+        record(e, type, handlerId);
+        ReplyBuffer.send(event, templateOf(e), true);
+    }
+
+    /**
+     * @return the number of occurrences logged without stack trace so far
+     */
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    /**
+     * Stops the periodic summaries.
+     */
+    public void shutdown() {
+        summarizer.shutdownNow();
+    }
+
+    private void record(@NotNull Exception e, @Nullable HandlerType type, @NotNull String handlerId) {
+        ErrorClass errorClass = new ErrorClass(type, handlerId, e.getClass());
+        Occurrences counts = occurrences.computeIfAbsent(errorClass, key -> new Occurrences());
+        if (counts.count.incrementAndGet() <= tracesPerWindow) {
+            PhoenixCommandFramework.LOGGER.error("{} in {} {}", e.getClass().getName(), type, handlerId, e);
+            return;
+        }
+        counts.suppressed.incrementAndGet();
+        suppressed.increment();
+    }
+
+    @NotNull
+    private String templateOf(@NotNull Exception e) {
+        Map<Class<? extends Throwable>, String> current = templates;
+        if (current.isEmpty()) return DEFAULT_TEMPLATE;
+        for (Class<?> type = e.getClass(); type != Object.class; type = type.getSuperclass()) {
+            String template = current.get(type);
+            if (template != null) return template;
+        }
+        return DEFAULT_TEMPLATE;
+    }
+
+    private void summarize() {
+        occurrences.forEach((errorClass, counts) -> {
+            int count = counts.count.getAndSet(0);
+            int skipped = counts.suppressed.getAndSet(0);
+            if (count == 0) {
+                occurrences.remove(errorClass, counts);
+                return;
+            }
+            if (skipped > 0) {
+                PhoenixCommandFramework.LOGGER.error("{} in {} {} occurred {} more times in the last {} s, stack traces suppressed",
+                        errorClass.exception().getName(), errorClass.type(), errorClass.handlerId(), skipped, windowSeconds);
+            }
+        });
+    }
+
+    /**
+     * Failures of the same handler with the same exception type.
+     */
+    private record ErrorClass(HandlerType type, String handlerId, Class<?> exception) {
+    }
+
+    private static final class Occurrences {
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger suppressed = new AtomicInteger();
+    }
+}
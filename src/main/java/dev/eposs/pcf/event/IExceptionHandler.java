@@ -1,19 +1,26 @@
 package dev.eposs.pcf.event;
 
 import dev.eposs.pcf.PhoenixCommandFramework;
-import net.dv8tion.jda.api.interactions.InteractionHook;
+import dev.eposs.pcf.metrics.HandlerType;
+import dev.eposs.pcf.reply.ReplyBuffer;
 import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Interface defining a mechanism for handling exceptions that occur while processing events.
  * Provides a default implementation for handling exceptions in a standardized manner, ensuring
  * proper logging and user notification through the callback mechanism.
+ * <p>
+ * The default implementation logs every exception with its stack trace. Use an {@link ExceptionPipeline} to
+ * sample repeated failures and reply from pre-rendered messages.
+ * </p>
  */
 public interface IExceptionHandler {
     /**
      * Handles exceptions that occur during event processing by logging the error and
-     * notifying the user through an {@link IReplyCallback}.
+     * notifying the user through an {@link IReplyCallback}. The notification is sent together with the
+     * messages the handler left in its {@link ReplyBuffer}.
      *
      * @param e     the exception that occurred during event processing, must not be null
      * @param event the reply callback associated with the event, used to notify the user, must not be null
@@ -26,11 +33,19 @@ public interface IExceptionHandler {
                 %s
                 """.formatted(e.getClass().getSimpleName(), e.getMessage());
 
-        if (event.isAcknowledged()) {
-            InteractionHook hook = event.getHook();
-            hook.setEphemeral(true).sendMessage(msg).queue();
-        } else {
-            event.reply(msg).setEphemeral(true).queue();
-        }
+        ReplyBuffer.send(event, msg, true);
+    }
+
+    /**
+     * Handles an exception thrown by a resolved handler. Called by the {@link PCFEventListener} instead of
+     * {@link #handleException(Exception, IReplyCallback)}, which it delegates to by default.
+     *
+     * @param e         the exception thrown by the handler
+     * @param event     the reply callback associated with the event, used to notify the user
+     * @param type      the type of the handler, or {@code null} if unknown
+     * @param handlerId the id of the handler
+     */
+    default void handleException(Exception e, @NotNull IReplyCallback event, @Nullable HandlerType type, @NotNull String handlerId) {
+        handleException(e, event);
     }
 }
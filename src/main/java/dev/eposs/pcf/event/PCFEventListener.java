@@ -1,25 +1,67 @@
 package dev.eposs.pcf.event;
 
+import dev.eposs.pcf.AsyncHandler;
 import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.audit.AuditJournal;
+import dev.eposs.pcf.audit.AuditOutcome;
+import dev.eposs.pcf.autocomplete.AutoCompleteDispatcher;
+import dev.eposs.pcf.autocomplete.AutoCompleteHandler;
+import dev.eposs.pcf.button.AsyncButtonHandler;
 import dev.eposs.pcf.button.ButtonRegistry;
+import dev.eposs.pcf.command.AsyncCommandHandler;
+import dev.eposs.pcf.command.CommandHandler;
 import dev.eposs.pcf.command.CommandRegistry;
+import dev.eposs.pcf.command.SlashCommandHandler;
+import dev.eposs.pcf.command.SubCommandHandler;
+import dev.eposs.pcf.dispatch.DeferralWatchdog;
+import dev.eposs.pcf.dispatch.IDispatchExecutor;
+import dev.eposs.pcf.dispatch.VirtualThreadDispatchExecutor;
 import dev.eposs.pcf.entityselect.EntitySelectRegistry;
+import dev.eposs.pcf.metrics.HandlerType;
+import dev.eposs.pcf.metrics.IMetricsSink;
+import dev.eposs.pcf.middleware.HandlerInvocation;
+import dev.eposs.pcf.middleware.MiddlewareChain;
+import dev.eposs.pcf.middleware.MiddlewareRegistry;
+import dev.eposs.pcf.modal.AsyncModalHandler;
 import dev.eposs.pcf.modal.ModalRegistry;
+import dev.eposs.pcf.permission.PermissionCache;
+import dev.eposs.pcf.permission.PermissionChecker;
+import dev.eposs.pcf.permission.PermissionPolicy;
+import dev.eposs.pcf.ratelimit.RateLimit;
+import dev.eposs.pcf.reply.ReplyBuffer;
 import dev.eposs.pcf.stringselect.StringSelectRegistry;
 import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
 import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleAddEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleRemoveEvent;
+import net.dv8tion.jda.api.events.guild.update.GuildUpdateOwnerEvent;
 import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.MessageContextInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.UserContextInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.api.events.role.update.RoleUpdatePermissionsEvent;
 import net.dv8tion.jda.api.events.session.ReadyEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.interactions.commands.CommandInteractionPayload;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.concurrent.ThreadFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * <p>
@@ -32,14 +74,117 @@ import java.util.concurrent.ThreadFactory;
  * interactions, and button interactions. Additionally, it leverages an {@code ExceptionHandler} to ensure that
  * errors during event processing are appropriately managed.
  * </p>
+ * <p>
+ * Handler code never runs on the JDA event thread. Every interaction is handed to an {@link IDispatchExecutor},
+ * which bounds concurrency and decides what happens under overload. By default a
+ * {@link VirtualThreadDispatchExecutor} with its default limits is used.
+ * </p>
+ * <p>
+ * Handlers may declare a {@link PermissionPolicy} and a {@link RateLimit}, see {@link dev.eposs.pcf.GuardedHandler}.
+ * Both are checked on the event thread before dispatching; denied interactions are answered with an ephemeral
+ * reply and never reach the executor. Policy results are cached in a {@link PermissionCache}, which this listener
+ * invalidates on role and member updates.
+ * </p>
+ * <p>
+ * Autocomplete interactions are routed to the {@link AutoCompleteHandler} of the focused option by an
+ * {@link AutoCompleteDispatcher}, which answers cheap and cached suggestions inline. They are subject to the
+ * permission policies of the command and sub-command as well, and get no suggestions while the rate limits are
+ * exhausted, without using up a permit themselves.
+ * </p>
+ * <p>
+ * Every interaction is also tracked by a {@link DeferralWatchdog} from its arrival until its handler returns,
+ * which defers it automatically if the handler does not acknowledge it in time.
+ * </p>
+ * <p>
+ * Every dispatched interaction is logged at INFO level, unless an {@link AuditJournal} is given, which records
+ * it in a binary journal off the dispatch thread instead.
+ * </p>
+ * <p>
+ * Handlers implementing one of the asynchronous interfaces, see {@link AsyncHandler}, are composed without
+ * blocking the dispatch thread until their stage completes, and cancelled once it exceeds their timeout.
+ * </p>
+ * <p>
+ * Cross-cutting logic of the handlers can be added as {@link dev.eposs.pcf.middleware.IMiddleware}, see
+ * {@link MiddlewareRegistry}. The middlewares run on the dispatch thread, after the permission and rate limit
+ * checks.
+ * </p>
  */
 public class PCFEventListener extends ListenerAdapter {
-    ThreadFactory threadFactory = Thread.ofVirtual().name("PCF-Event-Thread").factory();
+    private static final CompletableFuture<?> DONE = CompletableFuture.completedFuture(null);
+    private static final Runnable NO_OP = () -> {
+    };
 
     private final IExceptionHandler exceptionHandler;
+    private final IDispatchExecutor dispatchExecutor;
+    private final DeferralWatchdog deferralWatchdog;
+    private final PermissionCache permissionCache;
+    @Nullable
+    private final AuditJournal auditJournal;
+    private final AutoCompleteDispatcher autoCompleteDispatcher = new AutoCompleteDispatcher();
 
     public PCFEventListener(IExceptionHandler exceptionHandler) {
+        this(exceptionHandler, new VirtualThreadDispatchExecutor());
+    }
+
+    public PCFEventListener(IExceptionHandler exceptionHandler, @NotNull IDispatchExecutor dispatchExecutor) {
+        this(exceptionHandler, dispatchExecutor, new DeferralWatchdog());
+    }
+
+    public PCFEventListener(IExceptionHandler exceptionHandler, @NotNull IDispatchExecutor dispatchExecutor, @NotNull DeferralWatchdog deferralWatchdog) {
+        this(exceptionHandler, dispatchExecutor, deferralWatchdog, new PermissionCache());
+    }
+
+    public PCFEventListener(IExceptionHandler exceptionHandler, @NotNull IDispatchExecutor dispatchExecutor, @NotNull DeferralWatchdog deferralWatchdog, @NotNull PermissionCache permissionCache) {
+        this(exceptionHandler, dispatchExecutor, deferralWatchdog, permissionCache, null);
+    }
+
+    public PCFEventListener(IExceptionHandler exceptionHandler, @NotNull IDispatchExecutor dispatchExecutor, @NotNull DeferralWatchdog deferralWatchdog,
+                            @NotNull PermissionCache permissionCache, @Nullable AuditJournal auditJournal) {
         this.exceptionHandler = exceptionHandler;
+        this.dispatchExecutor = dispatchExecutor;
+        this.deferralWatchdog = deferralWatchdog;
+        this.permissionCache = permissionCache;
+        this.auditJournal = auditJournal;
+    }
+
+    /**
+     * @return the executor that runs the handlers of this listener
+     */
+    @NotNull
+    public IDispatchExecutor getDispatchExecutor() {
+        return dispatchExecutor;
+    }
+
+    /**
+     * @return the watchdog that auto-defers slow interactions of this listener
+     */
+    @NotNull
+    public DeferralWatchdog getDeferralWatchdog() {
+        return deferralWatchdog;
+    }
+
+    /**
+     * @return the cache of the permission policy results of this listener
+     */
+    @NotNull
+    public PermissionCache getPermissionCache() {
+        return permissionCache;
+    }
+
+    /**
+     * @return the journal recording the interactions of this listener, or {@code null} if they are logged instead
+     */
+    @Nullable
+    public AuditJournal getAuditJournal() {
+        return auditJournal;
+    }
+
+    /**
+     * @return the dispatcher running the autocomplete handlers of this listener
+     */
+    @NotNull
+    public AutoCompleteDispatcher getAutoCompleteDispatcher() {
+        return autoCompleteDispatcher;
     }
 
     @Override
@@ -59,103 +204,334 @@ public class PCFEventListener extends ListenerAdapter {
 
     @Override
     public void onSlashCommandInteraction(@NotNull SlashCommandInteractionEvent event) {
-        threadFactory.newThread(() -> {
-            PhoenixCommandFramework.LOGGER.info("{} ({}) used /{}", event.getUser().getName(), event.getUser().getId(), event.getFullCommandName());
-            CommandRegistry.getCommand(event.getName()).ifPresent(cmd -> {
-                try {
-                    cmd.execute(event);
-                } catch (Exception e) {
-                    exceptionHandler.handleException(e, event);
-                }
-            });
-        }).start();
+        CommandRegistry.getCommand(event.getName()).ifPresent(cmd -> {
+            RateLimit limit = cmd.getRateLimit();
+            if (!admit(event, cmd.getPermissionPolicy(), limit)) return;
+            SubCommandHandler subCommand = resolveSubCommand(cmd, event);
+            if (subCommand != null && !admit(event, subCommand.getPermissionPolicy(), subCommand.getRateLimit())) {
+                // A rejected sub-command does not count as a use of the command.
+                if (limit != null) limit.refund(event);
+                return;
+            }
+
+            boolean ephemeral = !(cmd instanceof SlashCommandHandler slashCommand) || slashCommand.isEphemeral(event);
+            // Only an asynchronous command composes the stage of an asynchronous sub-command, a synchronous one blocks on it
+            Object timed = cmd instanceof AsyncCommandHandler && subCommand instanceof AsyncHandler ? subCommand : cmd;
+            dispatch(event, HandlerType.SLASH_COMMAND, event.getName(), ephemeral, timeoutOf(timed), () ->
+                    cmd instanceof AsyncCommandHandler async ? async.executeAsync(event) : run(() -> cmd.execute(event)));
+        });
+    }
+
+    @Override
+    public void onCommandAutoCompleteInteraction(@NotNull CommandAutoCompleteInteractionEvent event) {
+        CommandRegistry.getCommand(event.getName()).ifPresent(cmd -> {
+            Map<String, AutoCompleteHandler> handlers = cmd.getAutoCompleteHandlers();
+            SubCommandHandler subCommand = null;
+            if (event.getSubcommandName() != null) {
+                subCommand = resolveSubCommand(cmd, event);
+                handlers = subCommand == null ? Map.of() : subCommand.getAutoCompleteHandlers();
+            }
+
+            AutoCompleteHandler handler = handlers.get(event.getFocusedOption().getName());
+            if (handler == null) return;
+
+            IReplyCallback callback = new AutoCompleteCallback(event);
+            if (!permits(callback, cmd.getPermissionPolicy(), cmd.getRateLimit())
+                    || subCommand != null && !permits(callback, subCommand.getPermissionPolicy(), subCommand.getRateLimit())) {
+                autoCompleteDispatcher.deny(event);
+                return;
+            }
+            autoCompleteDispatcher.dispatch(event, handler);
+        });
     }
 
     @Override
     public void onButtonInteraction(@NotNull ButtonInteractionEvent event) {
-        threadFactory.newThread(() -> {
-            String customId = event.getButton().getCustomId();
-            if (customId == null) return;
+        String customId = event.getButton().getCustomId();
+        if (customId == null) return;
 
-            PhoenixCommandFramework.LOGGER.info("{} ({}) used button \"{}\"", event.getUser().getName(), event.getUser().getId(), customId);
+        ButtonRegistry.getButton(customId).ifPresent(action -> {
+            if (!admit(event, action.getPermissionPolicy(), action.getRateLimit())) return;
 
-            ButtonRegistry.getButton(customId).ifPresent(action -> {
-                try {
-                    action.execute(event);
-                } catch (Exception e) {
-                    exceptionHandler.handleException(e, event);
-                }
-            });
-        }).start();
+            dispatch(event, HandlerType.BUTTON, action.getIdPrefix(), timeoutOf(action), () ->
+                    action instanceof AsyncButtonHandler async ? async.executeAsync(event) : run(() -> action.execute(event)));
+        });
     }
 
     @Override
     public void onMessageContextInteraction(@NotNull MessageContextInteractionEvent event) {
-        threadFactory.newThread(() -> {
-            PhoenixCommandFramework.LOGGER.info("{} ({}) used message context command \"{}\"", event.getUser().getName(), event.getUser().getId(), event.getName());
-            CommandRegistry.getCommand(event.getName()).ifPresent(cmd -> {
-                try {
-                    cmd.execute(event);
-                } catch (Exception e) {
-                    exceptionHandler.handleException(e, event);
-                }
-            });
-        }).start();
+        CommandRegistry.getCommand(event.getName()).ifPresent(cmd -> {
+            if (!admit(event, cmd.getPermissionPolicy(), cmd.getRateLimit())) return;
+
+            dispatch(event, HandlerType.MESSAGE_CONTEXT, event.getName(), timeoutOf(cmd), () ->
+                    cmd instanceof AsyncCommandHandler async ? async.executeAsync(event) : run(() -> cmd.execute(event)));
+        });
     }
 
     @Override
     public void onUserContextInteraction(@NotNull UserContextInteractionEvent event) {
-        threadFactory.newThread(() -> {
-            PhoenixCommandFramework.LOGGER.info("{} ({}) used user context command \"{}\"", event.getUser().getName(), event.getUser().getId(), event.getName());
-            CommandRegistry.getCommand(event.getName()).ifPresent(cmd -> {
-                try {
-                    cmd.execute(event);
-                } catch (Exception e) {
-                    exceptionHandler.handleException(e, event);
-                }
-            });
-        }).start();
+        CommandRegistry.getCommand(event.getName()).ifPresent(cmd -> {
+            if (!admit(event, cmd.getPermissionPolicy(), cmd.getRateLimit())) return;
+
+            dispatch(event, HandlerType.USER_CONTEXT, event.getName(), timeoutOf(cmd), () ->
+                    cmd instanceof AsyncCommandHandler async ? async.executeAsync(event) : run(() -> cmd.execute(event)));
+        });
     }
 
     @Override
     public void onModalInteraction(@NotNull ModalInteractionEvent event) {
-        threadFactory.newThread(() -> {
-            PhoenixCommandFramework.LOGGER.info("{} ({}) used modal \"{}\"", event.getUser().getName(), event.getUser().getId(), event.getModalId());
-            ModalRegistry.getModal(event.getModalId()).ifPresent(modal -> {
-                try {
-                    modal.execute(event);
-                } catch (Exception e) {
-                    exceptionHandler.handleException(e, event);
-                }
-            });
-        }).start();
+        ModalRegistry.getModal(event.getModalId()).ifPresent(modal -> {
+            if (!admit(event, modal.getPermissionPolicy(), modal.getRateLimit())) return;
+
+            dispatch(event, HandlerType.MODAL, modal.getCustomId(), timeoutOf(modal), () ->
+                    modal instanceof AsyncModalHandler async ? async.executeAsync(event) : run(() -> modal.execute(event)));
+        });
     }
 
     @Override
     public void onStringSelectInteraction(@NotNull StringSelectInteractionEvent event) {
-        threadFactory.newThread(() -> {
-            PhoenixCommandFramework.LOGGER.info("{} ({}) used string select \"{}\"", event.getUser().getName(), event.getUser().getId(), event.getSelectMenu().getCustomId());
-            StringSelectRegistry.getStringSelect(event.getSelectMenu().getCustomId()).ifPresent(action -> {
-                try {
-                    action.execute(event);
-                } catch (Exception e) {
-                    exceptionHandler.handleException(e, event);
-                }
-            });
-        }).start();
+        StringSelectRegistry.getStringSelect(event.getSelectMenu().getCustomId()).ifPresent(action -> {
+            if (!admit(event, action.getPermissionPolicy(), action.getRateLimit())) return;
+
+            dispatch(event, HandlerType.STRING_SELECT, action.getIdPrefix(), null, () -> run(() -> action.execute(event)));
+        });
     }
 
     @Override
     public void onEntitySelectInteraction(@NotNull EntitySelectInteractionEvent event) {
-        threadFactory.newThread(() -> {
-            PhoenixCommandFramework.LOGGER.info("{} ({}) used entity select \"{}\"", event.getUser().getName(), event.getUser().getId(), event.getSelectMenu().getCustomId());
-            EntitySelectRegistry.getEntitySelect(event.getSelectMenu().getCustomId()).ifPresent(action -> {
-                try {
-                    action.execute(event);
-                } catch (Exception e) {
-                    exceptionHandler.handleException(e, event);
+        EntitySelectRegistry.getEntitySelect(event.getSelectMenu().getCustomId()).ifPresent(action -> {
+            if (!admit(event, action.getPermissionPolicy(), action.getRateLimit())) return;
+
+            dispatch(event, HandlerType.ENTITY_SELECT, action.getIdPrefix(), null, () -> run(() -> action.execute(event)));
+        });
+    }
+
+    @Override
+    public void onGuildMemberRoleAdd(@NotNull GuildMemberRoleAddEvent event) {
+        permissionCache.invalidateMember(event.getGuild().getIdLong(), event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onGuildMemberRoleRemove(@NotNull GuildMemberRoleRemoveEvent event) {
+        permissionCache.invalidateMember(event.getGuild().getIdLong(), event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onGuildMemberRemove(@NotNull GuildMemberRemoveEvent event) {
+        permissionCache.invalidateMember(event.getGuild().getIdLong(), event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onRoleUpdatePermissions(@NotNull RoleUpdatePermissionsEvent event) {
+        permissionCache.invalidateGuild(event.getGuild().getIdLong());
+    }
+
+    @Override
+    public void onRoleDelete(@NotNull RoleDeleteEvent event) {
+        permissionCache.invalidateGuild(event.getGuild().getIdLong());
+    }
+
+    @Override
+    public void onGuildUpdateOwner(@NotNull GuildUpdateOwnerEvent event) {
+        permissionCache.invalidateGuild(event.getGuild().getIdLong());
+    }
+
+    @Override
+    public void onGuildLeave(@NotNull GuildLeaveEvent event) {
+        permissionCache.invalidateGuild(event.getGuild().getIdLong());
+    }
+
+    /**
+     * Checks the permission policy and then the rate limit of a resolved handler. Denied interactions are answered
+     * with an ephemeral reply.
+     *
+     * @param event  the interaction
+     * @param policy the permission policy of the handler, or {@code null}
+     * @param limit  the rate limit of the handler, or {@code null}
+     * @return {@code true} if the interaction may be dispatched
+     */
+    private boolean admit(@NotNull IReplyCallback event, @Nullable PermissionPolicy policy, @Nullable RateLimit limit) {
+        if (policy != null && !permissionCache.test(policy, event)) {
+            PermissionChecker.replyMissingPermission(event);
+            return false;
+        }
+        return limit == null || limit.admit(event);
+    }
+
+    /**
+     * Same checks as {@link #admit(IReplyCallback, PermissionPolicy, RateLimit)} for interactions that precede a
+     * use, like autocomplete requests: nothing is replied and no rate limit permit is taken.
+     *
+     * @return {@code true} if the interaction may be dispatched
+     */
+    private boolean permits(@NotNull IReplyCallback event, @Nullable PermissionPolicy policy, @Nullable RateLimit limit) {
+        if (policy != null && !permissionCache.test(policy, event)) return false;
+        return limit == null || !limit.isLimited(event);
+    }
+
+    /**
+     * Resolves the invoked sub-command, if any.
+     */
+    @Nullable
+    private static SubCommandHandler resolveSubCommand(@NotNull CommandHandler cmd, @NotNull CommandInteractionPayload event) {
+        if (!(cmd instanceof SlashCommandHandler slashCommand) || event.getSubcommandName() == null) return null;
+        return slashCommand.getSubCommands().get(event.getSubcommandName());
+    }
+
+    /**
+     * Same as {@link #dispatch(IReplyCallback, HandlerType, String, boolean, Duration, HandlerInvocation)} with
+     * ephemeral auto-deferred replies.
+     */
+    private void dispatch(@NotNull IReplyCallback event, @NotNull HandlerType type, @NotNull String handlerId,
+                          @Nullable Duration timeout, @NotNull HandlerInvocation handler) {
+        dispatch(event, type, handlerId, true, timeout, handler);
+    }
+
+    /**
+     * Hands the handler invocation to the dispatch executor. The deferral watchdog tracks the interaction from
+     * now on, and a {@link ReplyBuffer} is bound to the handler and flushed when it completes. The handler runs
+     * through the {@linkplain MiddlewareRegistry#getChain(HandlerType) middleware chain} of its type. Queue wait,
+     * execution time, exceptions and in-flight executions are reported to the
+     * {@linkplain PhoenixCommandFramework#getMetricsSink() metrics sink}.
+     * <p>
+     * The stage returned by the invocation is composed without blocking. If it does not complete within the
+     * timeout, it is cancelled and a {@link TimeoutException} is passed to the exception handler.
+     * </p>
+     *
+     * @param event     the interaction being dispatched
+     * @param type      the type of the resolved handler
+     * @param handlerId the id of the resolved handler
+     * @param ephemeral whether the reply is ephemeral if the watchdog has to defer it
+     * @param timeout   how long the handler may take, or {@code null} to wait indefinitely
+     * @param handler   invokes the handler
+     */
+    private void dispatch(@NotNull IReplyCallback event, @NotNull HandlerType type, @NotNull String handlerId, boolean ephemeral,
+                          @Nullable Duration timeout, @NotNull HandlerInvocation handler) {
+        long arrival = System.nanoTime();
+        long timestamp = auditJournal != null ? System.currentTimeMillis() : 0;
+        DeferralWatchdog.Ticket ticket = deferralWatchdog.track(event, handlerId, ephemeral);
+        // Rejected right away or dropped after being accepted, e.g. by a lane executor
+        Runnable rejected = () -> {
+            ticket.complete();
+            if (auditJournal != null) auditJournal.record(event, timestamp, type, handlerId, AuditOutcome.REJECTED, System.nanoTime() - arrival);
+        };
+        boolean accepted = dispatchExecutor.execute(event, () -> {
+            IMetricsSink metrics = PhoenixCommandFramework.getMetricsSink();
+            long start = System.nanoTime();
+            metrics.recordQueueWait(type, handlerId, start - arrival);
+            metrics.executionStarted(type, handlerId);
+            Execution execution = new Execution(event, type, handlerId, timestamp, arrival, start, ticket, new ReplyBuffer(event), MiddlewareRegistry.getChain(type));
+
+            if (auditJournal == null && PhoenixCommandFramework.LOGGER.isInfoEnabled()) logUsage(event, type);
+
+            ReplyBuffer previous = ReplyBuffer.bind(execution.replies());
+            CompletableFuture<?> work;
+            try {
+                CompletionStage<?> stage = execution.chain().invoke(event, type, handlerId, handler);
+                work = stage != null ? stage.toCompletableFuture() : DONE;
+            } catch (Exception e) {
+                work = CompletableFuture.failedFuture(e);
+            } catch (Error e) {
+                finish(execution, null);
+                throw e;
+            } finally {
+                ReplyBuffer.bind(previous);
+            }
+
+            if (work.isDone() || timeout == null) {
+                CompletableFuture<?> finished = work;
+                finished.whenComplete((result, e) -> finish(execution, e));
+                return;
+            }
+            CompletableFuture<?> pending = work;
+            pending.copy().orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).whenComplete((result, e) -> {
+                if (unwrap(e) instanceof TimeoutException && pending.cancel(true)) {
+                    e = new TimeoutException("%s %s did not complete within %d ms".formatted(type, handlerId, timeout.toMillis()));
                 }
+                finish(execution, e);
             });
-        }).start();
+        }, NO_OP, rejected);
+        if (!accepted) rejected.run();
+    }
+
+    /**
+     * Reports the outcome of a handler, passes a failure to the exception handler, runs the after hooks of the
+     * middlewares and flushes the replies.
+     */
+    private void finish(@NotNull Execution execution, @Nullable Throwable error) {
+        IMetricsSink metrics = PhoenixCommandFramework.getMetricsSink();
+        ReplyBuffer previous = ReplyBuffer.bind(execution.replies());
+        Throwable failure = unwrap(error);
+        try {
+            if (failure != null) {
+                Exception e = failure instanceof Exception exception ? exception : new ExecutionException(failure);
+                metrics.recordException(execution.type(), execution.handlerId(), e);
+                exceptionHandler.handleException(e, execution.event(), execution.type(), execution.handlerId());
+            }
+        } finally {
+            execution.chain().complete(execution.event(), execution.type(), execution.handlerId(), failure);
+            ReplyBuffer.bind(previous);
+            execution.replies().flush();
+            metrics.recordExecution(execution.type(), execution.handlerId(), System.nanoTime() - execution.start());
+            metrics.executionFinished(execution.type(), execution.handlerId());
+            execution.ticket().complete();
+            if (auditJournal != null) {
+                AuditOutcome outcome = failure == null ? AuditOutcome.COMPLETED
+                        : failure instanceof TimeoutException ? AuditOutcome.TIMED_OUT : AuditOutcome.FAILED;
+                auditJournal.record(execution.event(), execution.timestamp(), execution.type(), execution.handlerId(), outcome,
+                        System.nanoTime() - execution.arrival());
+            }
+        }
+    }
+
+    /**
+     * Logs the use of a handler at INFO level.
+     */
+    private static void logUsage(@NotNull IReplyCallback event, @NotNull HandlerType type) {
+        String usage = switch (event) {
+            case SlashCommandInteractionEvent slash -> "/" + slash.getFullCommandName();
+            case MessageContextInteractionEvent context -> "message context command \"" + context.getName() + "\"";
+            case UserContextInteractionEvent context -> "user context command \"" + context.getName() + "\"";
+            case ButtonInteractionEvent button -> "button \"" + button.getComponentId() + "\"";
+            case ModalInteractionEvent modal -> "modal \"" + modal.getModalId() + "\"";
+            case StringSelectInteractionEvent select -> "string select \"" + select.getComponentId() + "\"";
+            case EntitySelectInteractionEvent select -> "entity select \"" + select.getComponentId() + "\"";
+            default -> type.name();
+        };
+        PhoenixCommandFramework.LOGGER.info("{} ({}) used {}", event.getUser().getName(), event.getUser().getId(), usage);
+    }
+
+    @Nullable
+    private static Throwable unwrap(@Nullable Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    @Nullable
+    private static Duration timeoutOf(@Nullable Object handler) {
+        return handler instanceof AsyncHandler async ? async.getTimeout() : null;
+    }
+
+    /**
+     * Adapts a synchronous handler call to a {@link HandlerInvocation}.
+     */
+    @Nullable
+    private static CompletionStage<?> run(@NotNull SyncInvocation invocation) throws Exception {
+        invocation.invoke();
+        return null;
+    }
+
+    /**
+     * State of a running handler invocation, needed once it completes.
+     */
+    private record Execution(IReplyCallback event, HandlerType type, String handlerId, long timestamp, long arrival, long start,
+                             DeferralWatchdog.Ticket ticket, ReplyBuffer replies, MiddlewareChain chain) {
+    }
+
+    /**
+     * Synchronous handler call that may throw.
+     */
+    @FunctionalInterface
+    private interface SyncInvocation {
+        void invoke() throws Exception;
     }
 }
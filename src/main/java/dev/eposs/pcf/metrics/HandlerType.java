@@ -0,0 +1,16 @@
+package dev.eposs.pcf.metrics;
+
+/**
+ * The kind of handler a metric was recorded for. Together with the handler id it identifies a single handler.
+ */
+public enum HandlerType {
+    SLASH_COMMAND,
+    SUB_COMMAND,
+    USER_CONTEXT,
+    MESSAGE_CONTEXT,
+    BUTTON,
+    MODAL,
+    STRING_SELECT,
+    ENTITY_SELECT,
+    AUTOCOMPLETE
+}
@@ -0,0 +1,68 @@
+package dev.eposs.pcf.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * SPI receiving dispatch metrics from the framework.
+ * <p>
+ * Handlers are identified by their {@link HandlerType} and a handler id: the command name, the full command
+ * name for sub-commands, the id prefix for buttons and select menus and the custom id for modals.
+ * All methods are called on the dispatch hot path and must be cheap and thread-safe. Implementations can
+ * bridge to a metrics library like Micrometer or use the {@link InMemoryMetricsSink}.
+ * </p>
+ */
+public interface IMetricsSink {
+    /**
+     * Sink that discards all metrics.
+     */
+    IMetricsSink NOOP = new IMetricsSink() {
+    };
+
+    /**
+     * Records how long an interaction waited between its arrival and the start of its handler.
+     *
+     * @param type      the handler type
+     * @param handlerId the handler id
+     * @param nanos     the wait time in nanoseconds
+     */
+    default void recordQueueWait(@NotNull HandlerType type, @NotNull String handlerId, long nanos) {
+    }
+
+    /**
+     * Records how long a handler took to execute, including failed executions.
+     *
+     * @param type      the handler type
+     * @param handlerId the handler id
+     * @param nanos     the execution time in nanoseconds
+     */
+    default void recordExecution(@NotNull HandlerType type, @NotNull String handlerId, long nanos) {
+    }
+
+    /**
+     * Records an exception thrown by a handler.
+     *
+     * @param type      the handler type
+     * @param handlerId the handler id
+     * @param e         the exception
+     */
+    default void recordException(@NotNull HandlerType type, @NotNull String handlerId, @NotNull Throwable e) {
+    }
+
+    /**
+     * Called right before a handler starts executing.
+     *
+     * @param type      the handler type
+     * @param handlerId the handler id
+     */
+    default void executionStarted(@NotNull HandlerType type, @NotNull String handlerId) {
+    }
+
+    /**
+     * Called after a handler finished executing, whether it succeeded or not.
+     *
+     * @param type      the handler type
+     * @param handlerId the handler id
+     */
+    default void executionFinished(@NotNull HandlerType type, @NotNull String handlerId) {
+    }
+}
@@ -0,0 +1,110 @@
+package dev.eposs.pcf.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link IMetricsSink} that keeps all metrics in memory and exposes them as snapshots.
+ * <p>
+ * Every handler gets a queue wait and an execution {@link LatencyHistogram}, an exception counter and an
+ * in-flight gauge. Once a handler has been seen, recording does not allocate.
+ * </p>
+ */
+public class InMemoryMetricsSink implements IMetricsSink {
+    private final Map<HandlerType, Map<String, HandlerMetrics>> metrics = new EnumMap<>(HandlerType.class);
+
+    public InMemoryMetricsSink() {
+        for (HandlerType type : HandlerType.values()) metrics.put(type, new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void recordQueueWait(@NotNull HandlerType type, @NotNull String handlerId, long nanos) {
+        metricsOf(type, handlerId).queueWait.record(nanos);
+    }
+
+    @Override
+    public void recordExecution(@NotNull HandlerType type, @NotNull String handlerId, long nanos) {
+        metricsOf(type, handlerId).execution.record(nanos);
+    }
+
+    @Override
+    public void recordException(@NotNull HandlerType type, @NotNull String handlerId, @NotNull Throwable e) {
+        metricsOf(type, handlerId).exceptions.increment();
+    }
+
+    @Override
+    public void executionStarted(@NotNull HandlerType type, @NotNull String handlerId) {
+        metricsOf(type, handlerId).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void executionFinished(@NotNull HandlerType type, @NotNull String handlerId) {
+        metricsOf(type, handlerId).inFlight.decrementAndGet();
+    }
+
+    /**
+     * Returns a snapshot of a single handler.
+     *
+     * @param type      the handler type
+     * @param handlerId the handler id
+     * @return the snapshot, or {@code null} if nothing was recorded for the handler yet
+     */
+    @Nullable
+    public HandlerSnapshot getSnapshot(@NotNull HandlerType type, @NotNull String handlerId) {
+        HandlerMetrics handler = metrics.get(type).get(handlerId);
+        return handler == null ? null : handler.snapshot(type, handlerId);
+    }
+
+    /**
+     * Returns snapshots of all handlers that recorded anything so far.
+     *
+     * @return the snapshots
+     */
+    @NotNull
+    public List<HandlerSnapshot> getSnapshots() {
+        List<HandlerSnapshot> snapshots = new ArrayList<>();
+        metrics.forEach((type, handlers) -> handlers.forEach((id, handler) -> snapshots.add(handler.snapshot(type, id))));
+        return snapshots;
+    }
+
+    @NotNull
+    private HandlerMetrics metricsOf(@NotNull HandlerType type, @NotNull String handlerId) {
+        Map<String, HandlerMetrics> handlers = metrics.get(type);
+        HandlerMetrics handler = handlers.get(handlerId);
+        if (handler != null) return handler;
+        return handlers.computeIfAbsent(handlerId, id -> new HandlerMetrics());
+    }
+
+    private static final class HandlerMetrics {
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final LatencyHistogram execution = new LatencyHistogram();
+        private final LongAdder exceptions = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private HandlerSnapshot snapshot(HandlerType type, String handlerId) {
+            return new HandlerSnapshot(type, handlerId, queueWait.snapshot(), execution.snapshot(), exceptions.sum(), inFlight.get());
+        }
+    }
+
+    /**
+     * Metrics of a single handler at one point in time. Latencies are in nanoseconds.
+     *
+     * @param type       the handler type
+     * @param handlerId  the handler id
+     * @param queueWait  time between interaction arrival and handler start
+     * @param execution  handler execution time
+     * @param exceptions number of exceptions thrown by the handler
+     * @param inFlight   number of executions currently running
+     */
+    public record HandlerSnapshot(HandlerType type, String handlerId, LatencyHistogram.Snapshot queueWait,
+                                  LatencyHistogram.Snapshot execution, long exceptions, int inFlight) {
+    }
+}
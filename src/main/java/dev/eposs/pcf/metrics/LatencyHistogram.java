@@ -0,0 +1,107 @@
+package dev.eposs.pcf.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent, fixed-size latency histogram in the style of HdrHistogram.
+ * <p>
+ * Values are sorted into log-linear buckets: every power of two is split into {@value #SUB_BUCKETS} linear
+ * sub-buckets, so every recorded value is reported with a relative error of at most about 3%. Values above
+ * roughly 137 seconds (in nanoseconds) are clamped into the last bucket. Recording is lock-free and does not
+ * allocate.
+ * </p>
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final long MAX_TRACKABLE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a single value. Negative values are recorded as zero.
+     *
+     * @param value the value, usually a duration in nanoseconds
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_TRACKABLE)));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Creates a snapshot of the recorded values. Concurrent recordings may or may not be part of it.
+     *
+     * @return the snapshot
+     */
+    @NotNull
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long recorded = count.sum();
+        return new Snapshot(
+                recorded,
+                recorded == 0 ? 0 : sum.sum() / recorded,
+                max.get(),
+                percentile(copy, total, 0.50),
+                percentile(copy, total, 0.90),
+                percentile(copy, total, 0.99),
+                percentile(copy, total, 0.999)
+        );
+    }
+
+    private static long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * quantile));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return highestEquivalentValue(i);
+        }
+        return highestEquivalentValue(counts.length - 1);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + mantissa;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long mantissa = (index - SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Summary of a {@link LatencyHistogram}.
+     *
+     * @param count number of recorded values
+     * @param mean  arithmetic mean of the recorded values
+     * @param max   largest recorded value
+     * @param p50   median
+     * @param p90   90th percentile
+     * @param p99   99th percentile
+     * @param p999  99.9th percentile
+     */
+    public record Snapshot(long count, long mean, long max, long p50, long p90, long p99, long p999) {
+    }
+}
@@ -0,0 +1,18 @@
+package dev.eposs.pcf.middleware;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Invocation of a resolved handler that may throw.
+ */
+@FunctionalInterface
+public interface HandlerInvocation {
+    /**
+     * @return the stage of an asynchronous handler, or {@code null} if the handler already completed
+     * @throws Exception if the handler throws
+     */
+    @Nullable
+    CompletionStage<?> invoke() throws Exception;
+}
@@ -0,0 +1,59 @@
+package dev.eposs.pcf.middleware;
+
+import dev.eposs.pcf.metrics.HandlerType;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Cross-cutting logic wrapped around every handler invocation, see {@link MiddlewareRegistry}.
+ * <p>
+ * All hooks are optional. Only the hooks a middleware overrides are compiled into the {@link MiddlewareChain},
+ * so unused hooks cost nothing at dispatch time. The hooks run on the dispatch thread with the
+ * {@link dev.eposs.pcf.reply.ReplyBuffer} of the invocation bound, except {@link #after} of an asynchronous
+ * handler, which runs where its stage completes.
+ * </p>
+ */
+public interface IMiddleware {
+    /**
+     * Called before the handler. Returning {@code false} stops the invocation: neither later middlewares nor the
+     * handler run, so the middleware has to answer the interaction itself. Throwing fails the invocation like a
+     * failing handler.
+     *
+     * @param event     the interaction
+     * @param type      the type of the resolved handler
+     * @param handlerId the id of the resolved handler
+     * @return {@code true} to continue the invocation
+     * @throws Exception to fail the invocation
+     */
+    default boolean before(@NotNull IReplyCallback event, @NotNull HandlerType type, @NotNull String handlerId) throws Exception {
+        return true;
+    }
+
+    /**
+     * Wraps the handler. Implementations call {@link Invocation#proceed()} at most once to run the rest of the
+     * chain and return its stage, possibly composed with their own logic.
+     *
+     * @param invocation the rest of the chain
+     * @return the stage of the invocation, or {@code null} if it already completed
+     * @throws Exception to fail the invocation
+     */
+    @Nullable
+    default CompletionStage<?> around(@NotNull Invocation invocation) throws Exception {
+        return invocation.proceed();
+    }
+
+    /**
+     * Called once the invocation completed, also if it failed or was stopped by {@link #before}. Exceptions thrown
+     * here are logged and do not affect other middlewares.
+     *
+     * @param event     the interaction
+     * @param type      the type of the resolved handler
+     * @param handlerId the id of the resolved handler
+     * @param failure   the exception the invocation failed with, or {@code null} if it succeeded
+     */
+    default void after(@NotNull IReplyCallback event, @NotNull HandlerType type, @NotNull String handlerId, @Nullable Throwable failure) {
+    }
+}
@@ -0,0 +1,75 @@
+package dev.eposs.pcf.middleware;
+
+import dev.eposs.pcf.metrics.HandlerType;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The rest of a handler invocation passing through the {@link IMiddleware#around around} hooks of a
+ * {@link MiddlewareChain}, as seen by one hook. Only created if the chain has around hooks.
+ */
+public final class Invocation {
+    private final IMiddleware[] around;
+    private final int next;
+    private final IReplyCallback event;
+    private final HandlerType type;
+    private final String handlerId;
+    private final HandlerInvocation handler;
+    private boolean proceeded;
+
+    /**
+     * @param next index of the around hook run by {@link #proceed()}, the handler runs once it reaches the end
+     */
+    Invocation(@NotNull IMiddleware[] around, int next, @NotNull IReplyCallback event, @NotNull HandlerType type,
+               @NotNull String handlerId, @NotNull HandlerInvocation handler) {
+        this.around = around;
+        this.next = next;
+        this.event = event;
+        this.type = type;
+        this.handlerId = handlerId;
+        this.handler = handler;
+    }
+
+    /**
+     * @return the interaction
+     */
+    @NotNull
+    public IReplyCallback getEvent() {
+        return event;
+    }
+
+    /**
+     * @return the type of the resolved handler
+     */
+    @NotNull
+    public HandlerType getType() {
+        return type;
+    }
+
+    /**
+     * @return the id of the resolved handler
+     */
+    @NotNull
+    public String getHandlerId() {
+        return handlerId;
+    }
+
+    /**
+     * Runs the next around hook, or the handler once all hooks were entered. May be called at most once.
+     *
+     * @return the stage of the rest of the chain, or {@code null} if it already completed
+     * @throws IllegalStateException if the rest of the chain was already run
+     * @throws Exception             if a later hook or the handler throws
+     */
+    @Nullable
+    public CompletionStage<?> proceed() throws IllegalStateException, Exception {
+        if (proceeded) throw new IllegalStateException("Invocation of " + type + " " + handlerId + " already proceeded.");
+        proceeded = true;
+
+        if (next == around.length) return handler.invoke();
+        return around[next].around(new Invocation(around, next + 1, event, type, handlerId, handler));
+    }
+}
@@ -0,0 +1,106 @@
+package dev.eposs.pcf.middleware;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.metrics.HandlerType;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Immutable, precompiled sequence of {@link IMiddleware}s for one handler type, see {@link MiddlewareRegistry}.
+ * <p>
+ * Compiling sorts the middlewares into one flat array per hook and leaves out the hooks a middleware does not
+ * override. Dispatching through the chain therefore neither looks anything up nor allocates, except for one
+ * {@link Invocation} per around hook. An empty chain calls the handler directly.
+ * </p>
+ */
+public final class MiddlewareChain {
+    public static final MiddlewareChain EMPTY = compile(List.of());
+
+    private final IMiddleware[] before;
+    private final IMiddleware[] around;
+    private final IMiddleware[] after;
+
+    private MiddlewareChain(IMiddleware[] before, IMiddleware[] around, IMiddleware[] after) {
+        this.before = before;
+        this.around = around;
+        this.after = after;
+    }
+
+    /**
+     * Compiles a chain. The before and around hooks run in the given order, the after hooks in reverse order.
+     *
+     * @param middlewares the middlewares, outermost first
+     * @return the compiled chain
+     */
+    @NotNull
+    public static MiddlewareChain compile(@NotNull List<? extends IMiddleware> middlewares) {
+        List<IMiddleware> before = new ArrayList<>();
+        List<IMiddleware> around = new ArrayList<>();
+        List<IMiddleware> after = new ArrayList<>();
+        for (IMiddleware middleware : middlewares) {
+            if (overrides(middleware, "before", IReplyCallback.class, HandlerType.class, String.class)) before.add(middleware);
+            if (overrides(middleware, "around", Invocation.class)) around.add(middleware);
+            if (overrides(middleware, "after", IReplyCallback.class, HandlerType.class, String.class, Throwable.class)) after.addFirst(middleware);
+        }
+        return new MiddlewareChain(before.toArray(IMiddleware[]::new), around.toArray(IMiddleware[]::new), after.toArray(IMiddleware[]::new));
+    }
+
+    /**
+     * @return {@code true} if the chain has no hooks
+     */
+    public boolean isEmpty() {
+        return before.length == 0 && around.length == 0 && after.length == 0;
+    }
+
+    /**
+     * Runs the before hooks, then the around hooks and the handler.
+     *
+     * @param event     the interaction
+     * @param type      the type of the resolved handler
+     * @param handlerId the id of the resolved handler
+     * @param handler   invokes the handler
+     * @return the stage of an asynchronous handler or around hook, or {@code null} if the invocation already
+     * completed or was stopped by a before hook
+     * @throws Exception if a hook or the handler throws
+     */
+    @Nullable
+    public CompletionStage<?> invoke(@NotNull IReplyCallback event, @NotNull HandlerType type, @NotNull String handlerId,
+                                     @NotNull HandlerInvocation handler) throws Exception {
+        for (IMiddleware middleware : before) {
+            if (!middleware.before(event, type, handlerId)) return null;
+        }
+        if (around.length == 0) return handler.invoke();
+        return around[0].around(new Invocation(around, 1, event, type, handlerId, handler));
+    }
+
+    /**
+     * Runs the after hooks. Exceptions are logged.
+     *
+     * @param event     the interaction
+     * @param type      the type of the resolved handler
+     * @param handlerId the id of the resolved handler
+     * @param failure   the exception the invocation failed with, or {@code null} if it succeeded
+     */
+    public void complete(@NotNull IReplyCallback event, @NotNull HandlerType type, @NotNull String handlerId, @Nullable Throwable failure) {
+        for (IMiddleware middleware : after) {
+            try {
+                middleware.after(event, type, handlerId, failure);
+            } catch (RuntimeException e) {
+                PhoenixCommandFramework.LOGGER.error("After hook of {} failed for {} {}", middleware.getClass().getName(), type, handlerId, e);
+            }
+        }
+    }
+
+    private static boolean overrides(@NotNull IMiddleware middleware, @NotNull String hook, @NotNull Class<?>... parameters) {
+        try {
+            return middleware.getClass().getMethod(hook, parameters).getDeclaringClass() != IMiddleware.class;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("IMiddleware has no hook " + hook, e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dev.eposs.pcf.middleware;
+
+import dev.eposs.pcf.metrics.HandlerType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the {@link IMiddleware}s run around every handler invocation of the
+ * {@link dev.eposs.pcf.event.PCFEventListener}.
+ * <p>
+ * Middlewares are registered globally or for one {@link HandlerType}. Global middlewares wrap the ones of a
+ * handler type, and within each group the first registered middleware is the outermost one. Every change
+ * recompiles the {@link MiddlewareChain} of all handler types, so dispatching only reads a precompiled chain.
+ * </p>
+ * <p>
+ * Middlewares do not run for {@link HandlerType#AUTOCOMPLETE} handlers, which bypass the dispatch executor, nor
+ * for {@link HandlerType#SUB_COMMAND}s, which run inside the chain of their command.
+ * </p>
+ */
+public class MiddlewareRegistry {
+    private MiddlewareRegistry() {
+    }
+
+    private static final HandlerType[] TYPES = HandlerType.values();
+
+    private static final List<IMiddleware> GLOBAL = new ArrayList<>();
+    private static final Map<HandlerType, List<IMiddleware>> BY_TYPE = new EnumMap<>(HandlerType.class);
+    private static volatile MiddlewareChain[] chains = compile();
+
+    /**
+     * Registers a middleware for all handler types that run through a chain.
+     *
+     * @param middleware the middleware
+     */
+    public static synchronized void register(@NotNull IMiddleware middleware) {
+        GLOBAL.add(middleware);
+        chains = compile();
+    }
+
+    /**
+     * Registers a middleware for one handler type.
+     *
+     * @param type       the handler type
+     * @param middleware the middleware
+     * @throws IllegalArgumentException if the handler type does not run through a chain
+     */
+    public static synchronized void register(@NotNull HandlerType type, @NotNull IMiddleware middleware) throws IllegalArgumentException {
+        if (!isChained(type)) throw new IllegalArgumentException("Middlewares do not run for " + type + " handlers.");
+        BY_TYPE.computeIfAbsent(type, key -> new ArrayList<>()).add(middleware);
+        chains = compile();
+    }
+
+    /**
+     * Removes a middleware from all handler types it was registered for.
+     *
+     * @param middleware the middleware
+     * @return {@code true} if the middleware was registered
+     */
+    public static synchronized boolean unregister(@NotNull IMiddleware middleware) {
+        boolean removed = GLOBAL.remove(middleware);
+        for (List<IMiddleware> middlewares : BY_TYPE.values()) removed |= middlewares.remove(middleware);
+        if (removed) chains = compile();
+        return removed;
+    }
+
+    /**
+     * Returns the compiled chain of a handler type.
+     *
+     * @param type the handler type
+     * @return the chain, {@link MiddlewareChain#EMPTY} if no middleware applies
+     */
+    @NotNull
+    public static MiddlewareChain getChain(@NotNull HandlerType type) {
+        return chains[type.ordinal()];
+    }
+
+    private static boolean isChained(@NotNull HandlerType type) {
+        return type != HandlerType.AUTOCOMPLETE && type != HandlerType.SUB_COMMAND;
+    }
+
+    @NotNull
+    private static MiddlewareChain[] compile() {
+        MiddlewareChain[] compiled = new MiddlewareChain[TYPES.length];
+        for (HandlerType type : TYPES) {
+            if (!isChained(type)) {
+                compiled[type.ordinal()] = MiddlewareChain.EMPTY;
+                continue;
+            }
+            List<IMiddleware> middlewares = new ArrayList<>(GLOBAL);
+            middlewares.addAll(BY_TYPE.getOrDefault(type, List.of()));
+            compiled[type.ordinal()] = middlewares.isEmpty() ? MiddlewareChain.EMPTY : MiddlewareChain.compile(middlewares);
+        }
+        return compiled;
+    }
+}
@@ -0,0 +1,20 @@
+package dev.eposs.pcf.modal;
+
+import dev.eposs.pcf.AsyncHandler;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * {@link ModalHandler} whose execution completes asynchronously, see {@link AsyncHandler}.
+ */
+public interface AsyncModalHandler extends ModalHandler, AsyncHandler {
+
+    CompletionStage<?> executeAsync(@NotNull ModalInteractionEvent event) throws Exception;
+
+    @Override
+    default void execute(@NotNull ModalInteractionEvent event) throws Exception {
+        AsyncHandler.await(executeAsync(event));
+    }
+}
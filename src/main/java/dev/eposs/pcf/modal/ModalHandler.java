@@ -1,9 +1,10 @@
 package dev.eposs.pcf.modal;
 
+import dev.eposs.pcf.GuardedHandler;
 import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
 import org.jetbrains.annotations.NotNull;
 
-public interface ModalHandler {
+public interface ModalHandler extends GuardedHandler {
     
     String getCustomId();
 
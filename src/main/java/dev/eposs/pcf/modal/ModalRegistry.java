@@ -2,26 +2,51 @@ package dev.eposs.pcf.modal;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class ModalRegistry {
     private ModalRegistry() {
     }
 
-    private static final Map<String, ModalHandler> MODALS = new ConcurrentHashMap<>();
+    private static volatile Map<String, ModalHandler> modals = Map.of();
 
     public static void register(@NotNull ModalHandler action) {
-        MODALS.put(action.getCustomId(), action);
+        register(new ModalHandler[]{action});
     }
 
-    public static void register(@NotNull ModalHandler... actions) {
-        for (ModalHandler action : actions) MODALS.put(action.getCustomId(), action);
+    public static synchronized void register(@NotNull ModalHandler... actions) {
+        Map<String, ModalHandler> copy = new HashMap<>(modals);
+        for (ModalHandler action : actions) copy.put(action.getCustomId(), action);
+        modals = Map.copyOf(copy);
+    }
+
+    public static synchronized boolean unregister(@NotNull String customId) {
+        if (!modals.containsKey(customId)) return false;
+
+        Map<String, ModalHandler> copy = new HashMap<>(modals);
+        copy.remove(customId);
+        modals = Map.copyOf(copy);
+        return true;
+    }
+
+    /**
+     * Builds the modal map resulting from the given removals and additions without publishing it.
+     * See {@link dev.eposs.pcf.button.ButtonRegistry#prepareChange(Collection, Collection)} for the contract.
+     */
+    @NotNull
+    public static Runnable prepareChange(@NotNull Collection<String> removedIds, @NotNull Collection<? extends ModalHandler> added) {
+        Map<String, ModalHandler> copy = new HashMap<>(modals);
+        removedIds.forEach(copy::remove);
+        for (ModalHandler action : added) copy.put(action.getCustomId(), action);
+        Map<String, ModalHandler> updated = Map.copyOf(copy);
+        return () -> modals = updated;
     }
 
     @NotNull
     public static Optional<ModalHandler> getModal(String customId) {
-        return Optional.ofNullable(MODALS.get(customId));
+        return Optional.ofNullable(modals.get(customId));
     }
 }
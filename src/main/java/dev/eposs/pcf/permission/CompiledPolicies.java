@@ -0,0 +1,180 @@
+package dev.eposs.pcf.permission;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Implementations behind the factories of {@link PermissionPolicy}.
+ */
+final class CompiledPolicies {
+    private CompiledPolicies() {
+    }
+
+    /**
+     * Evaluation order inside composites: constant-time checks, then member scoped (cacheable) ones, then custom ones.
+     */
+    private static final Comparator<PermissionPolicy> COST = Comparator.comparingInt(policy -> {
+        if (policy instanceof BotOwner || policy instanceof Trusted || policy instanceof Guilds) return 0;
+        return policy.isMemberScoped() ? 1 : 2;
+    });
+
+    @NotNull
+    static long[] sorted(long[] ids) {
+        return Arrays.stream(ids).sorted().distinct().toArray();
+    }
+
+    /**
+     * Flattens nested composites of the same kind, removes duplicates, groups all member scoped children into a
+     * single cacheable composite and orders the children by cost.
+     */
+    @NotNull
+    static PermissionPolicy composite(boolean all, @NotNull List<PermissionPolicy> policies) {
+        List<PermissionPolicy> flat = new ArrayList<>();
+        for (PermissionPolicy policy : policies) {
+            if (policy instanceof Composite composite && composite.all == all) {
+                for (PermissionPolicy child : composite.children) if (!flat.contains(child)) flat.add(child);
+            } else if (!flat.contains(policy)) {
+                flat.add(policy);
+            }
+        }
+
+        List<PermissionPolicy> memberScoped = flat.stream().filter(PermissionPolicy::isMemberScoped).toList();
+        if (memberScoped.size() > 1 && memberScoped.size() < flat.size()) {
+            flat.removeAll(memberScoped);
+            flat.add(new Composite(all, memberScoped.toArray(PermissionPolicy[]::new)));
+        }
+
+        if (flat.size() == 1) return flat.getFirst();
+        flat.sort(COST);
+        return new Composite(all, flat.toArray(PermissionPolicy[]::new));
+    }
+
+    static final class Composite implements PermissionPolicy {
+        final boolean all;
+        final PermissionPolicy[] children;
+        private final boolean memberScoped;
+
+        private Composite(boolean all, PermissionPolicy[] children) {
+            this.all = all;
+            this.children = children;
+            this.memberScoped = Arrays.stream(children).allMatch(PermissionPolicy::isMemberScoped);
+        }
+
+        @Override
+        public boolean test(@NotNull IReplyCallback event) {
+            for (PermissionPolicy child : children) {
+                if (child.test(event) != all) return !all;
+            }
+            return all;
+        }
+
+        @Override
+        public boolean isMemberScoped() {
+            return memberScoped;
+        }
+    }
+
+    static final class BotOwner implements PermissionPolicy {
+        static final BotOwner INSTANCE = new BotOwner();
+
+        @Override
+        public boolean test(@NotNull IReplyCallback event) {
+            return PhoenixCommandFramework.isBotOwner(event.getUser().getIdLong());
+        }
+    }
+
+    static final class Trusted implements PermissionPolicy {
+        static final Trusted INSTANCE = new Trusted();
+
+        @Override
+        public boolean test(@NotNull IReplyCallback event) {
+            return PhoenixCommandFramework.isTrustedUser(event.getUser().getIdLong());
+        }
+    }
+
+    static final class Guilds implements PermissionPolicy {
+        private final long[] guildIds;
+
+        Guilds(long[] guildIds) {
+            this.guildIds = guildIds;
+        }
+
+        @Override
+        public boolean test(@NotNull IReplyCallback event) {
+            return event.isFromGuild() && Arrays.binarySearch(guildIds, event.getGuild().getIdLong()) >= 0;
+        }
+    }
+
+    static final class Permissions implements PermissionPolicy {
+        private static final long ADMINISTRATOR = Permission.ADMINISTRATOR.getRawValue();
+
+        private final long mask;
+
+        Permissions(long mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean test(@NotNull IReplyCallback event) {
+            Member member = event.getMember();
+            if (member == null) return false;
+            if (member.isOwner()) return true;
+
+            long raw = member.getGuild().getPublicRole().getPermissionsRaw();
+            for (Role role : member.getRoles()) raw |= role.getPermissionsRaw();
+            return (raw & ADMINISTRATOR) != 0 || (raw & mask) == mask;
+        }
+
+        @Override
+        public boolean isMemberScoped() {
+            return true;
+        }
+    }
+
+    static final class AnyRole implements PermissionPolicy {
+        private final long[] roleIds;
+
+        AnyRole(long[] roleIds) {
+            this.roleIds = roleIds;
+        }
+
+        @Override
+        public boolean test(@NotNull IReplyCallback event) {
+            Member member = event.getMember();
+            if (member == null) return false;
+
+            for (Role role : member.getRoles()) {
+                if (Arrays.binarySearch(roleIds, role.getIdLong()) >= 0) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isMemberScoped() {
+            return true;
+        }
+    }
+
+    static final class Custom implements PermissionPolicy {
+        private final Predicate<? super IReplyCallback> predicate;
+
+        Custom(Predicate<? super IReplyCallback> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean test(@NotNull IReplyCallback event) {
+            return predicate.test(event);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package dev.eposs.pcf.permission;
+
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluates {@link PermissionPolicy permission policies} and caches the results of
+ * {@linkplain PermissionPolicy#isMemberScoped() member scoped} ones per (member, guild).
+ * <p>
+ * Cached results are dropped when the roles of a member or the permissions of a role change, which the
+ * {@link dev.eposs.pcf.event.PCFEventListener} reports through {@link #invalidateMember(long, long)} and
+ * {@link #invalidateGuild(long)}. Since those events depend on gateway intents and member caching, every entry
+ * also expires after a fixed time. Once {@code maxMembers} members are cached, the cache is cleared.
+ * </p>
+ */
+public class PermissionCache {
+    public static final Duration DEFAULT_EXPIRY = Duration.ofMinutes(5);
+    public static final int DEFAULT_MAX_MEMBERS = 100_000;
+
+    private final long expiryNanos;
+    private final int maxMembers;
+    /**
+     * Cached members per guild, so a guild can be invalidated without scanning the other guilds.
+     */
+    private final Map<Long, Map<Long, MemberEntry>> guilds = new ConcurrentHashMap<>();
+    /**
+     * Approximate number of cached members; it is only used to bound the cache and reset with it.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache with the default expiry and size.
+     */
+    public PermissionCache() {
+        this(DEFAULT_EXPIRY, DEFAULT_MAX_MEMBERS);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param expiry     how long a cached result is used at most, must be positive
+     * @param maxMembers maximum number of cached members, must be positive
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public PermissionCache(@NotNull Duration expiry, int maxMembers) throws IllegalArgumentException {
+        if (expiry.isNegative() || expiry.isZero()) throw new IllegalArgumentException("Expiry must be positive.");
+        if (maxMembers <= 0) throw new IllegalArgumentException("Max members must be positive.");
+
+        this.expiryNanos = expiry.toNanos();
+        this.maxMembers = maxMembers;
+    }
+
+    /**
+     * Evaluates a policy for an interaction. Member scoped parts are served from the cache if possible.
+     *
+     * @param policy the policy
+     * @param event  the interaction
+     * @return {@code true} if the interaction is allowed
+     */
+    public boolean test(@NotNull PermissionPolicy policy, @NotNull IReplyCallback event) {
+        if (policy.isMemberScoped()) return testCached(policy, event);
+        if (!(policy instanceof CompiledPolicies.Composite composite)) return policy.test(event);
+
+        for (PermissionPolicy child : composite.children) {
+            if (test(child, event) != composite.all) return !composite.all;
+        }
+        return composite.all;
+    }
+
+    private boolean testCached(@NotNull PermissionPolicy policy, @NotNull IReplyCallback event) {
+        Member member = event.getMember();
+        if (member == null) return policy.test(event);
+
+        long now = System.nanoTime();
+        Map<Long, MemberEntry> members = guilds.get(member.getGuild().getIdLong());
+        MemberEntry entry = members == null ? null : members.get(member.getIdLong());
+        if (entry == null || now - entry.created > expiryNanos) {
+            if (size.get() >= maxMembers) invalidateAll();
+            entry = new MemberEntry(now);
+            members = guilds.computeIfAbsent(member.getGuild().getIdLong(), k -> new ConcurrentHashMap<>());
+            if (members.put(member.getIdLong(), entry) == null) size.incrementAndGet();
+        }
+
+        Boolean cached = entry.results.get(policy);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        boolean result = policy.test(event);
+        entry.results.put(policy, result);
+        return result;
+    }
+
+    /**
+     * Drops the cached results of a member, e.g. after its roles changed.
+     *
+     * @param guildId the guild ID
+     * @param userId  the user ID of the member
+     */
+    public void invalidateMember(long guildId, long userId) {
+        Map<Long, MemberEntry> members = guilds.get(guildId);
+        if (members != null && members.remove(userId) != null) size.decrementAndGet();
+    }
+
+    /**
+     * Drops the cached results of all members of a guild, e.g. after the permissions of a role changed.
+     *
+     * @param guildId the guild ID
+     */
+    public void invalidateGuild(long guildId) {
+        Map<Long, MemberEntry> members = guilds.remove(guildId);
+        if (members != null) size.addAndGet(-members.size());
+    }
+
+    /**
+     * Drops all cached results.
+     */
+    public void invalidateAll() {
+        guilds.clear();
+        size.set(0);
+    }
+
+    /**
+     * @return number of results served from the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of results that had to be evaluated
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private static final class MemberEntry {
+        private final long created;
+        private final Map<PermissionPolicy, Boolean> results = new ConcurrentHashMap<>();
+
+        private MemberEntry(long created) {
+            this.created = created;
+        }
+    }
+}
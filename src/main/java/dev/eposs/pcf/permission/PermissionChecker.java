@@ -1,6 +1,7 @@
 package dev.eposs.pcf.permission;
 
 import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.reply.ReplyBuffer;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
@@ -11,6 +12,8 @@ import org.jetbrains.annotations.NotNull;
  * <p>
  * This class provides methods to verify if a user has certain privileges (e.g., bot owner, trusted user, guild admin)
  * and automatically sends a "Missing permission" reply if the check fails.
+ * Checks that apply to a whole handler are better declared as a {@link PermissionPolicy}, which is evaluated
+ * before the interaction is dispatched.
  */
 public class PermissionChecker {
     protected final IReplyCallback interaction;
@@ -33,21 +36,37 @@ public class PermissionChecker {
     protected boolean replyAfterCheck(boolean check) {
         if (check) return true;
 
-        if (interaction.isAcknowledged()) {
-            interaction.getHook().sendMessage("Missing permission").useComponentsV2(false).setEphemeral(true).queue();
-        } else {
-            interaction.reply("Missing permission").useComponentsV2(false).setEphemeral(true).queue();
-        }
+        replyMissingPermission(interaction);
         return false;
     }
 
+    /**
+     * Sends the ephemeral "Missing permission" reply to an interaction, through the {@link ReplyBuffer} of the
+     * running handler if there is one.
+     *
+     * @param interaction the denied interaction
+     */
+    public static void replyMissingPermission(@NotNull IReplyCallback interaction) {
+        ReplyBuffer.send(interaction, "Missing permission", true);
+    }
+
+    /**
+     * Checks if the interaction satisfies a {@link PermissionPolicy}.
+     *
+     * @param policy the policy to evaluate
+     * @return {@code true} if the policy is satisfied, {@code false} otherwise
+     */
+    public boolean satisfies(@NotNull PermissionPolicy policy) {
+        return replyAfterCheck(policy.test(interaction));
+    }
+
     /**
      * Checks if the user who triggered the interaction is the bot owner.
      *
      * @return {@code true} if the user is the bot owner, {@code false} otherwise
      */
     public boolean isBotOwner() {
-        boolean check = interaction.getUser().getId().equals(PhoenixCommandFramework.getBotOwnerID());
+        boolean check = PhoenixCommandFramework.isBotOwner(interaction.getUser().getIdLong());
         return replyAfterCheck(check);
     }
 
@@ -57,7 +76,7 @@ public class PermissionChecker {
      * @return {@code true} if the user is trusted, {@code false} otherwise
      */
     public boolean isTrusted() {
-        boolean check = PhoenixCommandFramework.isTrustedUser(interaction.getUser().getId());
+        boolean check = PhoenixCommandFramework.isTrustedUser(interaction.getUser().getIdLong());
         return replyAfterCheck(check);
     }
 
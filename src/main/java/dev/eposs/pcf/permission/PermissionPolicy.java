@@ -0,0 +1,142 @@
+package dev.eposs.pcf.permission;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Declarative permission requirement of a handler.
+ * <p>
+ * Handlers declare a policy by returning it from {@code getPermissionPolicy()}. The
+ * {@link dev.eposs.pcf.event.PCFEventListener} evaluates it on the event thread before the interaction is
+ * dispatched and answers denied interactions with the same "Missing permission" reply as the
+ * {@link PermissionChecker}, so they never reach a dispatch slot.
+ * </p>
+ * <p>
+ * Policies are compiled when they are created: ID lists become sorted primitive arrays, permission sets become a
+ * raw bit mask and nested {@link #allOf(PermissionPolicy...)} / {@link #anyOf(PermissionPolicy...)} are flattened
+ * and ordered so cheap checks run first. Results of {@linkplain #isMemberScoped() member scoped} policies are
+ * cached per member by a {@link PermissionCache}, which keys them by policy instance. A handler should therefore
+ * return the same instance on every call, usually from a constant field.
+ * </p>
+ */
+public interface PermissionPolicy {
+
+    /**
+     * Evaluates the policy without any caching.
+     *
+     * @param event the interaction
+     * @return {@code true} if the interaction is allowed
+     */
+    boolean test(@NotNull IReplyCallback event);
+
+    /**
+     * Whether the result only depends on the roles and permissions of the member in the guild, so it can be
+     * cached until they change.
+     *
+     * @return {@code true} if the result may be cached per member
+     */
+    default boolean isMemberScoped() {
+        return false;
+    }
+
+    /**
+     * @param other the policy that must also be satisfied
+     * @return a policy requiring both policies
+     */
+    @NotNull
+    default PermissionPolicy and(@NotNull PermissionPolicy other) {
+        return allOf(this, other);
+    }
+
+    /**
+     * @param other the alternative policy
+     * @return a policy requiring any of both policies
+     */
+    @NotNull
+    default PermissionPolicy or(@NotNull PermissionPolicy other) {
+        return anyOf(this, other);
+    }
+
+    /**
+     * @return a policy allowing only the {@linkplain PhoenixCommandFramework#getBotOwnerIdLong() bot owner}
+     */
+    @NotNull
+    static PermissionPolicy botOwner() {
+        return CompiledPolicies.BotOwner.INSTANCE;
+    }
+
+    /**
+     * @return a policy allowing only {@linkplain PhoenixCommandFramework#isTrustedUser(long) trusted users}
+     */
+    @NotNull
+    static PermissionPolicy trusted() {
+        return CompiledPolicies.Trusted.INSTANCE;
+    }
+
+    /**
+     * Requires all given guild-wide permissions. Interactions outside a guild are denied.
+     *
+     * @param permissions the required permissions
+     * @return the policy
+     */
+    @NotNull
+    static PermissionPolicy permissions(@NotNull Permission... permissions) {
+        return new CompiledPolicies.Permissions(Permission.getRaw(permissions));
+    }
+
+    /**
+     * Requires any of the given roles. Interactions outside a guild are denied.
+     *
+     * @param roleIds the role IDs
+     * @return the policy
+     */
+    @NotNull
+    static PermissionPolicy anyRole(long... roleIds) {
+        return new CompiledPolicies.AnyRole(CompiledPolicies.sorted(roleIds));
+    }
+
+    /**
+     * Allows only interactions from the given guilds.
+     *
+     * @param guildIds the allowed guild IDs
+     * @return the policy
+     */
+    @NotNull
+    static PermissionPolicy guilds(long... guildIds) {
+        return new CompiledPolicies.Guilds(CompiledPolicies.sorted(guildIds));
+    }
+
+    /**
+     * Wraps a custom check. Its result is never cached.
+     *
+     * @param predicate the check
+     * @return the policy
+     */
+    @NotNull
+    static PermissionPolicy custom(@NotNull Predicate<? super IReplyCallback> predicate) {
+        return new CompiledPolicies.Custom(predicate);
+    }
+
+    /**
+     * @param policies the policies
+     * @return a policy requiring all given policies
+     */
+    @NotNull
+    static PermissionPolicy allOf(@NotNull PermissionPolicy... policies) {
+        return CompiledPolicies.composite(true, List.of(policies));
+    }
+
+    /**
+     * @param policies the policies
+     * @return a policy requiring any of the given policies
+     */
+    @NotNull
+    static PermissionPolicy anyOf(@NotNull PermissionPolicy... policies) {
+        return CompiledPolicies.composite(false, List.of(policies));
+    }
+}
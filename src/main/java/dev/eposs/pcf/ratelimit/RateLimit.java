@@ -0,0 +1,143 @@
+package dev.eposs.pcf.ratelimit;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.dispatch.LaneKey;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Token bucket rate limit of a single handler, e.g. "3 uses per 10 seconds per user".
+ * <p>
+ * Handlers declare a limit by returning it from {@code getRateLimit()}. The {@link dev.eposs.pcf.event.PCFEventListener}
+ * checks it before the interaction is dispatched and answers over-limit interactions with an ephemeral reply, so
+ * they never reach a dispatch slot. A rate limit holds the buckets of all its keys, therefore a handler must
+ * return the same instance on every call, usually from a constant field.
+ * </p>
+ * <p>
+ * Buckets are kept in a preallocated lock-free {@link TokenBucketTable} and expire as soon as they are full
+ * again, so the table only has to fit the keys that were active within one {@code period}.
+ * </p>
+ */
+public class RateLimit {
+    public static final int DEFAULT_SLOTS = 1 << 16;
+    public static final String DEFAULT_MESSAGE = "You are doing that too often. Try again %s.";
+
+    private final int permits;
+    private final Duration period;
+    private final ToLongFunction<IReplyCallback> key;
+    private final String message;
+    private final TokenBucketTable buckets;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a rate limit with room for {@value #DEFAULT_SLOTS} active keys and the default message.
+     *
+     * @param permits number of uses per period, also the burst size
+     * @param period  the period in which the permits refill completely
+     * @param key     derives the bucket key of an interaction, e.g. {@link LaneKey#USER} or {@link LaneKey#GUILD}
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public RateLimit(int permits, @NotNull Duration period, @NotNull ToLongFunction<IReplyCallback> key) throws IllegalArgumentException {
+        this(permits, period, key, DEFAULT_SLOTS, DEFAULT_MESSAGE);
+    }
+
+    /**
+     * Creates a rate limit.
+     *
+     * @param permits number of uses per period, also the burst size, must be positive
+     * @param period  the period in which the permits refill completely, must be positive
+     * @param key     derives the bucket key of an interaction, e.g. {@link LaneKey#USER} or {@link LaneKey#GUILD}
+     * @param slots   number of keys that can be tracked at the same time, must be positive
+     * @param message the ephemeral reply to over-limit interactions, {@code %s} is replaced with a relative
+     *                Discord timestamp of the next available use
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public RateLimit(int permits, @NotNull Duration period, @NotNull ToLongFunction<IReplyCallback> key, int slots, @NotNull String message) throws IllegalArgumentException {
+        if (permits <= 0) throw new IllegalArgumentException("Permits must be positive.");
+        if (period.isNegative() || period.isZero()) throw new IllegalArgumentException("Period must be positive.");
+        if (slots <= 0 || slots > 1 << 30) throw new IllegalArgumentException("Slots must be between 1 and 2^30.");
+
+        this.permits = permits;
+        this.period = period;
+        this.key = key;
+        this.message = message;
+        this.buckets = new TokenBucketTable(slots, Math.max(1, period.toNanos() / permits), permits);
+    }
+
+    /**
+     * Takes a permit for an interaction.
+     *
+     * @param event the interaction
+     * @return {@code 0} if the interaction may proceed, otherwise the nanoseconds until the next permit is available
+     */
+    public long tryAcquire(@NotNull IReplyCallback event) {
+        long wait = buckets.tryAcquire(key.applyAsLong(event));
+        if (wait > 0) rejected.increment();
+        return wait;
+    }
+
+    /**
+     * Takes a permit for an interaction and answers it with an ephemeral reply if the limit is exceeded.
+     *
+     * @param event the interaction
+     * @return {@code true} if the interaction may proceed
+     */
+    public boolean admit(@NotNull IReplyCallback event) {
+        long wait = tryAcquire(event);
+        if (wait == 0) return true;
+
+        long retryAt = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(wait) + 999);
+        event.reply(message.formatted("<t:" + retryAt + ":R>")).setEphemeral(true).queue(null, e ->
+                PhoenixCommandFramework.LOGGER.debug("Failed to send rate limit reply", e));
+        return false;
+    }
+
+    /**
+     * Checks whether an interaction would be rejected, without taking a permit. Used for interactions that
+     * precede a use, e.g. autocomplete requests while the user is typing a command.
+     *
+     * @param event the interaction
+     * @return {@code true} if no permit is left for the key of the interaction
+     */
+    public boolean isLimited(@NotNull IReplyCallback event) {
+        return buckets.peek(key.applyAsLong(event)) > 0;
+    }
+
+    /**
+     * Returns the permit taken by {@link #tryAcquire(IReplyCallback)} or {@link #admit(IReplyCallback)} for an
+     * interaction that was rejected afterwards, so the use does not count against the limit.
+     *
+     * @param event the interaction
+     */
+    public void refund(@NotNull IReplyCallback event) {
+        buckets.refund(key.applyAsLong(event));
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    @NotNull
+    public Duration getPeriod() {
+        return period;
+    }
+
+    /**
+     * @return number of interactions rejected so far
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return number of interactions admitted without a check because the bucket table was full
+     */
+    public long getOverflowCount() {
+        return buckets.getOverflowCount();
+    }
+}
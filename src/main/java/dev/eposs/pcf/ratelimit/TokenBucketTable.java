@@ -0,0 +1,152 @@
+package dev.eposs.pcf.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free open-addressing table of token buckets keyed by primitive {@code long} keys, e.g. snowflake IDs.
+ * <p>
+ * Every bucket is a single {@code long}, its theoretical arrival time as used by the generic cell rate
+ * algorithm: a bucket whose arrival time lies in the past is full. A call is admitted by advancing the arrival
+ * time by one emission interval with a CAS, as long as it does not move further than {@code capacity}
+ * intervals into the future. Full buckets are indistinguishable from absent ones, so their slots expire
+ * implicitly and are reused by other keys without any cleanup thread.
+ * </p>
+ * <p>
+ * Keys and buckets live in two preallocated {@link AtomicLongArray}s, so acquiring does not allocate. If a key
+ * finds no free or expired slot within {@link #MAX_PROBES} slots, the call is admitted and counted as an
+ * overflow. Slot reuse races can let a single call be counted against the wrong key; this is accepted in
+ * exchange for lock-freedom.
+ * </p>
+ */
+final class TokenBucketTable {
+    /**
+     * Maximum number of slots probed per key.
+     */
+    static final int MAX_PROBES = 16;
+    /**
+     * Marks a slot that was never used. Snowflake IDs are never zero.
+     */
+    private static final long EMPTY = 0L;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray arrivals;
+    private final int mask;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long origin = System.nanoTime();
+    private final LongAdder overflows = new LongAdder();
+
+    /**
+     * @param slots         number of slots, rounded up to a power of two
+     * @param intervalNanos time to refill one token
+     * @param capacity      maximum number of tokens per bucket
+     */
+    TokenBucketTable(int slots, long intervalNanos, int capacity) {
+        int size = Integer.highestOneBit(Math.max(slots, MAX_PROBES) - 1) << 1;
+        this.keys = new AtomicLongArray(size);
+        this.arrivals = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.intervalNanos = intervalNanos;
+        this.burstNanos = intervalNanos * capacity;
+    }
+
+    /**
+     * Takes a token from the bucket of a key.
+     *
+     * @param key the bucket key
+     * @return {@code 0} if a token was taken, otherwise the nanoseconds until the next token is available
+     */
+    long tryAcquire(long key) {
+        if (key == EMPTY) key = Long.MIN_VALUE;
+        long now = System.nanoTime() - origin + 1;
+        int slot = find(key, now);
+        if (slot < 0) {
+            overflows.increment();
+            return 0;
+        }
+
+        while (true) {
+            long arrival = arrivals.get(slot);
+            long next = Math.max(arrival, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) return wait;
+            if (arrivals.compareAndSet(slot, arrival, next)) return 0;
+        }
+    }
+
+    /**
+     * Checks whether a key has a token left without taking it or claiming a slot.
+     *
+     * @param key the bucket key
+     * @return {@code 0} if a token is available, otherwise the nanoseconds until the next token is available
+     */
+    long peek(long key) {
+        if (key == EMPTY) key = Long.MIN_VALUE;
+        long now = System.nanoTime() - origin + 1;
+        int start = mix(key) & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (start + probe) & mask;
+            if (keys.get(slot) != key) continue;
+            return Math.max(0, Math.max(arrivals.get(slot), now) + intervalNanos - now - burstNanos);
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a token taken by {@link #tryAcquire(long)} to the bucket of a key, e.g. because the call was
+     * rejected by a later check. Does nothing if the key lost its slot in the meantime.
+     *
+     * @param key the bucket key
+     */
+    void refund(long key) {
+        if (key == EMPTY) key = Long.MIN_VALUE;
+        int start = mix(key) & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (start + probe) & mask;
+            if (keys.get(slot) != key) continue;
+            arrivals.getAndAdd(slot, -intervalNanos);
+            return;
+        }
+    }
+
+    /**
+     * @return number of calls admitted because no slot was available
+     */
+    long getOverflowCount() {
+        return overflows.sum();
+    }
+
+    /**
+     * Finds the slot of a key, claiming an empty or expired one if the key has none yet.
+     *
+     * @return the slot index, or {@code -1} if no slot is available
+     */
+    private int find(long key, long now) {
+        int start = mix(key) & mask;
+        int expired = -1;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (start + probe) & mask;
+            long current = keys.get(slot);
+            if (current == key) return slot;
+            if (current == EMPTY) {
+                if (expired >= 0 && claim(expired, key, now)) return expired;
+                if (keys.compareAndSet(slot, EMPTY, key)) return slot;
+                if (keys.get(slot) == key) return slot;
+                continue;
+            }
+            if (expired < 0 && arrivals.get(slot) <= now) expired = slot;
+        }
+        return expired >= 0 && claim(expired, key, now) ? expired : -1;
+    }
+
+    private boolean claim(int slot, long key, long now) {
+        long previous = keys.get(slot);
+        return arrivals.get(slot) <= now && keys.compareAndSet(slot, previous, key);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,163 @@
+package dev.eposs.pcf.reload;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.button.ButtonHandler;
+import dev.eposs.pcf.button.ButtonRegistry;
+import dev.eposs.pcf.command.CommandHandler;
+import dev.eposs.pcf.command.CommandRegistry;
+import dev.eposs.pcf.command.PreparedCommandChange;
+import dev.eposs.pcf.entityselect.EntitySelectHandler;
+import dev.eposs.pcf.entityselect.EntitySelectRegistry;
+import dev.eposs.pcf.modal.ModalHandler;
+import dev.eposs.pcf.modal.ModalRegistry;
+import dev.eposs.pcf.stringselect.StringSelectHandler;
+import dev.eposs.pcf.stringselect.StringSelectRegistry;
+import net.dv8tion.jda.api.JDA;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch of handler registrations and removals across all registries that is applied as one unit, e.g. to
+ * hot-reload a module of a running bot.
+ * <p>
+ * {@link #commit(Collection)} first validates and prepares the new state of every registry. If any step fails,
+ * nothing is published. Otherwise every registry swaps its immutable snapshot in one volatile write, while holding
+ * the locks of all registries, so concurrent registrations cannot interleave with the transaction. Lookups are
+ * lock-free and see either the old or the new snapshot of a registry; events that already resolved their handler
+ * finish on the old one.
+ * </p>
+ * <p>
+ * Removals are applied before additions, so unregistering and registering the same key replaces its handler.
+ * After publishing, only the command scopes affected by the change are synced with Discord.
+ * </p>
+ * <p>
+ * A transaction is not thread-safe and should be committed once.
+ * </p>
+ */
+public class HandlerTransaction {
+    private final Map<CommandRegistry.Type, List<String>> removedCommands = new EnumMap<>(CommandRegistry.Type.class);
+    private final Map<CommandRegistry.Type, List<CommandHandler>> addedCommands = new EnumMap<>(CommandRegistry.Type.class);
+    private final List<String> removedButtons = new ArrayList<>();
+    private final List<ButtonHandler> addedButtons = new ArrayList<>();
+    private final List<String> removedModals = new ArrayList<>();
+    private final List<ModalHandler> addedModals = new ArrayList<>();
+    private final List<String> removedStringSelects = new ArrayList<>();
+    private final List<StringSelectHandler> addedStringSelects = new ArrayList<>();
+    private final List<String> removedEntitySelects = new ArrayList<>();
+    private final List<EntitySelectHandler> addedEntitySelects = new ArrayList<>();
+
+    @NotNull
+    public HandlerTransaction registerCommand(@NotNull CommandRegistry.Type type, @NotNull CommandHandler command) {
+        addedCommands.computeIfAbsent(type, t -> new ArrayList<>()).add(command);
+        return this;
+    }
+
+    @NotNull
+    public HandlerTransaction unregisterCommand(@NotNull CommandRegistry.Type type, @NotNull String name) {
+        removedCommands.computeIfAbsent(type, t -> new ArrayList<>()).add(name);
+        return this;
+    }
+
+    @NotNull
+    public HandlerTransaction registerButton(@NotNull ButtonHandler action) {
+        addedButtons.add(action);
+        return this;
+    }
+
+    @NotNull
+    public HandlerTransaction unregisterButton(@NotNull String idPrefix) {
+        removedButtons.add(idPrefix);
+        return this;
+    }
+
+    @NotNull
+    public HandlerTransaction registerModal(@NotNull ModalHandler action) {
+        addedModals.add(action);
+        return this;
+    }
+
+    @NotNull
+    public HandlerTransaction unregisterModal(@NotNull String customId) {
+        removedModals.add(customId);
+        return this;
+    }
+
+    @NotNull
+    public HandlerTransaction registerStringSelect(@NotNull StringSelectHandler action) {
+        addedStringSelects.add(action);
+        return this;
+    }
+
+    @NotNull
+    public HandlerTransaction unregisterStringSelect(@NotNull String idPrefix) {
+        removedStringSelects.add(idPrefix);
+        return this;
+    }
+
+    @NotNull
+    public HandlerTransaction registerEntitySelect(@NotNull EntitySelectHandler action) {
+        addedEntitySelects.add(action);
+        return this;
+    }
+
+    @NotNull
+    public HandlerTransaction unregisterEntitySelect(@NotNull String idPrefix) {
+        removedEntitySelects.add(idPrefix);
+        return this;
+    }
+
+    /**
+     * Publishes the transaction without syncing commands with Discord. Use {@link #commit(Collection)} if the bot
+     * is already running.
+     *
+     * @return the published command change
+     * @throws IllegalArgumentException if a handler cannot be registered, in which case nothing is published
+     */
+    @NotNull
+    public PreparedCommandChange commit() throws IllegalArgumentException {
+        return commit(List.of());
+    }
+
+    /**
+     * Publishes the transaction and syncs the affected command scopes through the given shards.
+     *
+     * @param shards the JDA instances of the bot, may be empty to skip the sync
+     * @return the published command change
+     * @throws IllegalArgumentException if a handler cannot be registered, in which case nothing is published
+     */
+    @NotNull
+    public PreparedCommandChange commit(@NotNull Collection<? extends JDA> shards) throws IllegalArgumentException {
+        PreparedCommandChange commands;
+        // Fixed lock order, so concurrent transactions cannot deadlock.
+        synchronized (CommandRegistry.class) {
+            synchronized (ButtonRegistry.class) {
+                synchronized (ModalRegistry.class) {
+                    synchronized (StringSelectRegistry.class) {
+                        synchronized (EntitySelectRegistry.class) {
+                            commands = CommandRegistry.prepareChange(removedCommands, addedCommands);
+                            Runnable buttons = ButtonRegistry.prepareChange(removedButtons, addedButtons);
+                            Runnable modals = ModalRegistry.prepareChange(removedModals, addedModals);
+                            Runnable stringSelects = StringSelectRegistry.prepareChange(removedStringSelects, addedStringSelects);
+                            Runnable entitySelects = EntitySelectRegistry.prepareChange(removedEntitySelects, addedEntitySelects);
+
+                            commands.publish();
+                            buttons.run();
+                            modals.run();
+                            stringSelects.run();
+                            entitySelects.run();
+                        }
+                    }
+                }
+            }
+        }
+
+        PhoenixCommandFramework.LOGGER.info("Committed handler transaction");
+        CommandRegistry.setupChangedCommands(commands, shards);
+        return commands;
+    }
+}
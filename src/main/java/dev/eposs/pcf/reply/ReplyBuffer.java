@@ -0,0 +1,234 @@
+package dev.eposs.pcf.reply;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces the replies and follow-up messages of one interaction into as few REST requests as possible.
+ * <p>
+ * Consecutive texts are joined with line breaks and consecutive embeds are collected into the same message, as
+ * long as the Discord limits of a single message allow it: {@value Message#MAX_CONTENT_LENGTH} characters of
+ * content, {@value Message#MAX_EMBED_COUNT} embeds and {@value MessageEmbed#EMBED_MAX_LENGTH_BOT} characters
+ * over all embeds. A message that would exceed a limit, or that differs in visibility, starts a new message.
+ * </p>
+ * <p>
+ * Buffered messages are sent when {@link #flush()} is called, at the latest {@code maxDelay} after the first
+ * message was buffered. The first message is sent as reply if the interaction is not acknowledged yet, all
+ * others as follow-ups through the {@link net.dv8tion.jda.api.interactions.InteractionHook}; they are sent one
+ * after another, so their order is kept.
+ * </p>
+ * <p>
+ * The {@link dev.eposs.pcf.event.PCFEventListener} binds a buffer to every handler invocation, see
+ * {@link #current()}, and flushes it when the handler returns. The default exception handler and the permission
+ * checks reply through the bound buffer as well.
+ * </p>
+ */
+public class ReplyBuffer {
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(500);
+
+    private static final ThreadLocal<ReplyBuffer> CURRENT = new ThreadLocal<>();
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("PCF-Reply-Flush").daemon().factory());
+    private static final LongAdder MESSAGES = new LongAdder();
+    private static final LongAdder REQUESTS = new LongAdder();
+
+    private final IReplyCallback interaction;
+    private final long maxDelayNanos;
+
+    private final StringBuilder content = new StringBuilder();
+    private final List<MessageEmbed> embeds = new ArrayList<>();
+    private int embedLength;
+    private boolean ephemeral;
+    private boolean empty = true;
+    private ScheduledFuture<?> scheduledFlush;
+    private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+    /**
+     * Creates a buffer with the default delay.
+     *
+     * @param interaction the interaction to reply to
+     */
+    public ReplyBuffer(@NotNull IReplyCallback interaction) {
+        this(interaction, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Creates a buffer.
+     *
+     * @param interaction the interaction to reply to
+     * @param maxDelay    how long a message is buffered at most, must not be negative; zero only sends on
+     *                    {@link #flush()} and when a limit is reached
+     * @throws IllegalArgumentException if the delay is negative
+     */
+    public ReplyBuffer(@NotNull IReplyCallback interaction, @NotNull Duration maxDelay) throws IllegalArgumentException {
+        if (maxDelay.isNegative()) throw new IllegalArgumentException("Max delay cannot be negative.");
+
+        this.interaction = interaction;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    /**
+     * Returns the buffer bound to the handler running on the current thread.
+     *
+     * @return the buffer, or {@code null} outside of a handler invocation
+     */
+    @Nullable
+    public static ReplyBuffer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds a buffer to the current thread. Used by the dispatcher around handler invocations.
+     *
+     * @param buffer the buffer to bind, or {@code null} to unbind
+     * @return the previously bound buffer, to be restored afterward
+     */
+    @Nullable
+    public static ReplyBuffer bind(@Nullable ReplyBuffer buffer) {
+        ReplyBuffer previous = CURRENT.get();
+        if (buffer == null) CURRENT.remove();
+        else CURRENT.set(buffer);
+        return previous;
+    }
+
+    /**
+     * Sends a text to an interaction, through the buffer bound to the current thread if it belongs to the same
+     * interaction, otherwise right away.
+     *
+     * @param interaction the interaction
+     * @param text        the text
+     * @param ephemeral   whether only the user of the interaction can see the text
+     */
+    public static void send(@NotNull IReplyCallback interaction, @NotNull String text, boolean ephemeral) {
+        ReplyBuffer buffer = current();
+        if (buffer == null || buffer.interaction != interaction) buffer = new ReplyBuffer(interaction, Duration.ZERO);
+        buffer.send(text, ephemeral);
+        buffer.flush();
+    }
+
+    /**
+     * Buffers a text.
+     *
+     * @param text      the text
+     * @param ephemeral whether only the user of the interaction can see the text
+     * @return this buffer
+     */
+    @NotNull
+    public synchronized ReplyBuffer send(@NotNull String text, boolean ephemeral) {
+        MESSAGES.increment();
+        int separator = content.isEmpty() ? 0 : 1;
+        if (!fits(ephemeral) || content.length() + separator + text.length() > Message.MAX_CONTENT_LENGTH) flush();
+        if (!content.isEmpty()) content.append('\n');
+        content.append(text);
+        buffered(ephemeral);
+        return this;
+    }
+
+    /**
+     * Buffers embeds.
+     *
+     * @param ephemeral whether only the user of the interaction can see the embeds
+     * @param embeds    the embeds
+     * @return this buffer
+     */
+    @NotNull
+    public synchronized ReplyBuffer send(boolean ephemeral, @NotNull MessageEmbed... embeds) {
+        MESSAGES.increment();
+        for (MessageEmbed embed : embeds) {
+            int length = embed.getLength();
+            if (!fits(ephemeral) || this.embeds.size() >= Message.MAX_EMBED_COUNT
+                    || embedLength + length > MessageEmbed.EMBED_MAX_LENGTH_BOT) flush();
+            this.embeds.add(embed);
+            embedLength += length;
+            buffered(ephemeral);
+        }
+        return this;
+    }
+
+    /**
+     * Sends all buffered messages.
+     *
+     * @return a future completing once everything sent so far by this buffer was accepted by Discord
+     */
+    @NotNull
+    public synchronized CompletableFuture<?> flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (empty) return tail;
+
+        MessageCreateData message = new MessageCreateBuilder()
+                .setContent(content.toString())
+                .setEmbeds(embeds)
+                .useComponentsV2(false)
+                .build();
+        boolean hidden = ephemeral;
+        content.setLength(0);
+        embeds.clear();
+        embedLength = 0;
+        empty = true;
+
+        REQUESTS.increment();
+        tail = tail.exceptionally(e -> null).thenCompose(previous -> send(message, hidden));
+        tail.whenComplete((sent, e) -> {
+            if (e != null) PhoenixCommandFramework.LOGGER.error("Failed to send buffered reply", e);
+        });
+        return tail;
+    }
+
+    /**
+     * @return {@code true} if no message is waiting to be sent
+     */
+    public synchronized boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @return the number of messages buffered by all buffers
+     */
+    public static long getMessageCount() {
+        return MESSAGES.sum();
+    }
+
+    /**
+     * @return the number of requests sent by all buffers, at most {@link #getMessageCount()}
+     */
+    public static long getRequestCount() {
+        return REQUESTS.sum();
+    }
+
+    @NotNull
+    private CompletableFuture<?> send(@NotNull MessageCreateData message, boolean ephemeral) {
+        if (interaction.isAcknowledged()) return interaction.getHook().sendMessage(message).setEphemeral(ephemeral).submit();
+        return interaction.reply(message).setEphemeral(ephemeral).submit();
+    }
+
+    private boolean fits(boolean ephemeral) {
+        return empty || this.ephemeral == ephemeral;
+    }
+
+    private void buffered(boolean ephemeral) {
+        this.ephemeral = ephemeral;
+        empty = false;
+        if (scheduledFlush == null && maxDelayNanos > 0) {
+            scheduledFlush = FLUSHER.schedule(this::flush, maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package dev.eposs.pcf.session;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Server-side state of components such as paginators and wizards, referenced by a compact token in the custom
+ * id instead of being packed into it.
+ * <p>
+ * {@link #customId(String, Object)} stores a state and returns {@code idPrefix + token}; the handler of the
+ * prefix gets the state back with {@link #fromCustomId(String, String)}. Tokens are 11 characters long, so
+ * nearly the whole custom id stays available for the prefix.
+ * </p>
+ * <p>
+ * States expire {@code ttl} after their last access, and the least recently used states are evicted once
+ * {@code maxEntries} is exceeded. Once a store holds states, expired ones are swept from memory every
+ * {@code ttl / 10}, at most once per second, by a shared daemon thread. If an {@link ISessionSpillStore} and an {@link ISessionCodec} are given,
+ * expired and evicted states are spilled there instead of being dropped, and are loaded back into memory when
+ * their component is used again. Spill store I/O never happens while holding the lock of the store.
+ * </p>
+ * <p>
+ * Tokens are validated before they are looked up, so custom ids sent by clients never reach the spill store
+ * unless they are well-formed tokens.
+ * </p>
+ *
+ * @param <T> the state type
+ */
+public class ComponentSessionStore<T> {
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(15);
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    /**
+     * Length of the tokens created by this store.
+     */
+    public static final int TOKEN_LENGTH = 11;
+
+    private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final String TOKEN_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+    private static final long MIN_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("PCF-Session-Sweep").daemon().factory());
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ISessionSpillStore spillStore;
+    private final ISessionCodec<T> codec;
+    private final LinkedHashMap<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long sweepIntervalNanos;
+    private boolean sweeping;
+
+    /**
+     * Creates a memory-only store with the default TTL and size.
+     */
+    public ComponentSessionStore() {
+        this(DEFAULT_TTL, DEFAULT_MAX_ENTRIES, null, null);
+    }
+
+    /**
+     * Creates a memory-only store.
+     *
+     * @param ttl        how long a state is kept after its last access, must be positive
+     * @param maxEntries maximum number of states kept in memory, must be positive
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public ComponentSessionStore(@NotNull Duration ttl, int maxEntries) throws IllegalArgumentException {
+        this(ttl, maxEntries, null, null);
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param ttl        how long a state is kept in memory after its last access, must be positive
+     * @param maxEntries maximum number of states kept in memory, must be positive
+     * @param spillStore store receiving expired and evicted states, or {@code null} to drop them
+     * @param codec      encodes states for the spill store, required if a spill store is given
+     * @throws IllegalArgumentException if a value is out of range or the codec is missing
+     */
+    public ComponentSessionStore(@NotNull Duration ttl, int maxEntries, @Nullable ISessionSpillStore spillStore,
+                                 @Nullable ISessionCodec<T> codec) throws IllegalArgumentException {
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("TTL must be positive.");
+        if (maxEntries <= 0) throw new IllegalArgumentException("Max entries must be positive.");
+        if (spillStore != null && codec == null) throw new IllegalArgumentException("A spill store requires a codec.");
+
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.spillStore = spillStore;
+        this.codec = codec;
+        this.sweepIntervalNanos = Math.max(ttlNanos / 10, MIN_SWEEP_INTERVAL_NANOS);
+    }
+
+    /**
+     * Stores a state under a new token.
+     *
+     * @param state the state
+     * @return the token referencing the state
+     */
+    @NotNull
+    public String create(@NotNull T state) {
+        List<Map.Entry<String, T>> evicted;
+        String token;
+        synchronized (this) {
+            long now = System.nanoTime();
+            do {
+                token = newToken();
+            } while (entries.putIfAbsent(token, new Entry<>(state, now)) != null);
+            startSweep();
+            evicted = evict(now);
+        }
+        spill(evicted);
+        return token;
+    }
+
+    /**
+     * Stores a state and builds the custom id of a component referencing it.
+     *
+     * @param idPrefix the id prefix of the handler of the component
+     * @param state    the state
+     * @return the custom id consisting of prefix + token
+     */
+    @NotNull
+    public String customId(@NotNull String idPrefix, @NotNull T state) {
+        return idPrefix + create(state);
+    }
+
+    /**
+     * Returns the state of a token and restarts its TTL. States that were spilled are loaded back into memory.
+     *
+     * @param token the token
+     * @return the state, or empty if the token is invalid or unknown, or the state expired
+     */
+    @NotNull
+    public Optional<T> get(@NotNull String token) {
+        if (!isToken(token)) return Optional.empty();
+
+        Map.Entry<String, T> expired = null;
+        synchronized (this) {
+            Entry<T> entry = entries.get(token);
+            if (entry != null) {
+                long now = System.nanoTime();
+                if (now - entry.accessed <= ttlNanos) {
+                    entry.accessed = now;
+                    return Optional.of(entry.state);
+                }
+                entries.remove(token);
+                expired = Map.entry(token, entry.state);
+            }
+        }
+        if (spillStore == null) return Optional.empty();
+
+        // An expired state not swept yet goes through the spill store, which decides whether it is still valid
+        if (expired != null) spill(List.of(expired));
+        return Optional.ofNullable(restore(token));
+    }
+
+    /**
+     * Returns the state referenced by the custom id of a component.
+     *
+     * @param idPrefix the id prefix of the handler of the component
+     * @param customId the custom id of the component
+     * @return the state, or empty if the custom id does not reference a known state
+     */
+    @NotNull
+    public Optional<T> fromCustomId(@NotNull String idPrefix, @NotNull String customId) {
+        if (customId.length() != idPrefix.length() + TOKEN_LENGTH || !customId.startsWith(idPrefix)) return Optional.empty();
+        return get(customId.substring(idPrefix.length()));
+    }
+
+    /**
+     * Replaces the state of a token, e.g. after a paginator moved to another page.
+     * <p>
+     * The update function runs without holding the lock of the store. If the state is replaced concurrently, the
+     * function is applied again to the newer state, so it should be free of side effects.
+     * </p>
+     *
+     * @param token  the token
+     * @param update computes the new state from the current one
+     * @return the new state, or empty if the token is invalid or unknown, or the state expired
+     */
+    @NotNull
+    public Optional<T> update(@NotNull String token, @NotNull UnaryOperator<T> update) {
+        while (true) {
+            Optional<T> current = get(token);
+            if (current.isEmpty()) return current;
+
+            T state = update.apply(current.get());
+            synchronized (this) {
+                Entry<T> entry = entries.get(token);
+                if (entry != null && entry.state == current.get()) {
+                    entries.put(token, new Entry<>(state, System.nanoTime()));
+                    return Optional.of(state);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the state of a token, e.g. once a wizard is finished.
+     *
+     * @param token the token
+     */
+    public void remove(@NotNull String token) {
+        if (!isToken(token)) return;
+        synchronized (this) {
+            entries.remove(token);
+        }
+        if (spillStore != null) spillStore.delete(token);
+    }
+
+    /**
+     * @return the number of states in memory, including expired ones not evicted yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Checks whether a string is a well-formed token, i.e. the unpadded base64url encoding of 8 bytes.
+     *
+     * @param token the string to check
+     * @return {@code true} if the string can be a token created by a store
+     */
+    public static boolean isToken(@NotNull String token) {
+        if (token.length() != TOKEN_LENGTH) return false;
+        for (int i = 0; i < TOKEN_LENGTH; i++) {
+            int value = TOKEN_ALPHABET.indexOf(token.charAt(i));
+            if (value < 0) return false;
+            // The last character carries the 4 remaining bits, its 2 padding bits must be zero
+            if (i == TOKEN_LENGTH - 1 && (value & 0b11) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Starts the periodic sweep once the first state is stored. Must be called while holding the lock.
+     */
+    private void startSweep() {
+        if (sweeping) return;
+        sweeping = true;
+        Sweep.start(this, sweepIntervalNanos);
+    }
+
+    /**
+     * Removes expired states from memory, spilling them if a spill store is configured.
+     */
+    private void sweep() {
+        List<Map.Entry<String, T>> evicted;
+        synchronized (this) {
+            evicted = evict(System.nanoTime());
+        }
+        spill(evicted);
+    }
+
+    /**
+     * Removes expired states and the least recently used states above the size limit.
+     * Must be called while holding the lock.
+     *
+     * @return the removed states
+     */
+    @NotNull
+    private List<Map.Entry<String, T>> evict(long now) {
+        List<Map.Entry<String, T>> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry<T>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry<T>> eldest = iterator.next();
+            if (entries.size() <= maxEntries && now - eldest.getValue().accessed <= ttlNanos) break;
+            evicted.add(Map.entry(eldest.getKey(), eldest.getValue().state));
+            iterator.remove();
+        }
+        return evicted;
+    }
+
+    private void spill(@NotNull List<Map.Entry<String, T>> evicted) {
+        if (spillStore == null) return;
+
+        for (Map.Entry<String, T> entry : evicted) {
+            try {
+                spillStore.write(entry.getKey(), codec.encode(entry.getValue()));
+            } catch (RuntimeException e) {
+                PhoenixCommandFramework.LOGGER.warn("Failed to spill session {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    @Nullable
+    private T restore(@NotNull String token) {
+        T state;
+        try {
+            byte[] data = spillStore.read(token);
+            if (data == null) return null;
+            state = codec.decode(data);
+        } catch (RuntimeException e) {
+            PhoenixCommandFramework.LOGGER.warn("Failed to restore session {}", token, e);
+            return null;
+        }
+
+        List<Map.Entry<String, T>> evicted;
+        synchronized (this) {
+            long now = System.nanoTime();
+            Entry<T> current = entries.get(token);
+            if (current != null) {
+                current.accessed = now;
+                state = current.state;
+            } else {
+                entries.put(token, new Entry<>(state, now));
+                startSweep();
+            }
+            evicted = evict(now);
+        }
+        spillStore.delete(token);
+        spill(evicted);
+        return state;
+    }
+
+    @NotNull
+    private static String newToken() {
+        long value = ThreadLocalRandom.current().nextLong();
+        byte[] bytes = new byte[Long.BYTES];
+        for (int i = 0; i < Long.BYTES; i++) bytes[i] = (byte) (value >>> (56 - 8 * i));
+        return TOKEN_ENCODER.encodeToString(bytes);
+    }
+
+    /**
+     * Periodic sweep of a store. Only weakly references the store, so unused stores can still be collected, and
+     * cancels itself once that happened.
+     */
+    private static final class Sweep implements Runnable {
+        private final WeakReference<ComponentSessionStore<?>> store;
+        private volatile ScheduledFuture<?> future;
+
+        private Sweep(@NotNull ComponentSessionStore<?> store) {
+            this.store = new WeakReference<>(store);
+        }
+
+        private static void start(@NotNull ComponentSessionStore<?> store, long intervalNanos) {
+            Sweep sweep = new Sweep(store);
+            sweep.future = SWEEPER.scheduleWithFixedDelay(sweep, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            ComponentSessionStore<?> current = store.get();
+            if (current == null) {
+                ScheduledFuture<?> scheduled = future;
+                if (scheduled != null) scheduled.cancel(false);
+                return;
+            }
+            try {
+                current.sweep();
+            } catch (RuntimeException e) {
+                PhoenixCommandFramework.LOGGER.warn("Failed to sweep component sessions", e);
+            }
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T state;
+        private long accessed;
+
+        private Entry(T state, long accessed) {
+            this.state = state;
+            this.accessed = accessed;
+        }
+    }
+}
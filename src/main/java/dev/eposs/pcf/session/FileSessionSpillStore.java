@@ -0,0 +1,127 @@
+package dev.eposs.pcf.session;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ISessionSpillStore} keeping one file per session in a directory.
+ * <p>
+ * Files are written via a temporary file and an atomic move. States older than {@code maxAge} are treated as
+ * missing; their files are deleted by a sweep that runs at most once per {@code maxAge / 10} during writes.
+ * </p>
+ * <p>
+ * Only {@linkplain ComponentSessionStore#isToken(String) well-formed tokens} are accepted, so a token can never
+ * resolve to a path outside the directory.
+ * </p>
+ */
+public class FileSessionSpillStore implements ISessionSpillStore {
+    private static final String SUFFIX = ".session";
+
+    private final Path directory;
+    private final long maxAgeMillis;
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    /**
+     * Creates a store in the given directory, which is created if necessary.
+     *
+     * @param directory the directory holding the session files
+     * @param maxAge    how long spilled states are kept, must be positive
+     * @throws IllegalArgumentException if the max age is not positive
+     * @throws UncheckedIOException     if the directory cannot be created
+     */
+    public FileSessionSpillStore(@NotNull Path directory, @NotNull Duration maxAge) throws IllegalArgumentException, UncheckedIOException {
+        if (maxAge.isNegative() || maxAge.isZero()) throw new IllegalArgumentException("Max age must be positive.");
+
+        this.directory = directory;
+        this.maxAgeMillis = maxAge.toMillis();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create session directory " + directory, e);
+        }
+    }
+
+    @Override
+    public void write(@NotNull String token, @NotNull byte[] data) throws IllegalArgumentException, UncheckedIOException {
+        Path file = fileOf(token);
+        try {
+            Path temp = Files.createTempFile(directory, token, ".tmp");
+            Files.write(temp, data);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write session " + token, e);
+        }
+        sweepIfDue();
+    }
+
+    @Override
+    @Nullable
+    public byte[] read(@NotNull String token) throws IllegalArgumentException, UncheckedIOException {
+        Path file = fileOf(token);
+        try {
+            if (isExpired(Files.getLastModifiedTime(file))) {
+                delete(token);
+                return null;
+            }
+            return Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read session " + token, e);
+        }
+    }
+
+    @Override
+    public void delete(@NotNull String token) throws IllegalArgumentException {
+        Path file = fileOf(token);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            PhoenixCommandFramework.LOGGER.warn("Failed to delete session {}", token, e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is not a well-formed token
+     */
+    @NotNull
+    private Path fileOf(@NotNull String token) throws IllegalArgumentException {
+        if (!ComponentSessionStore.isToken(token)) throw new IllegalArgumentException("Invalid session token.");
+        return directory.resolve(token + SUFFIX);
+    }
+
+    private boolean isExpired(@NotNull FileTime modified) {
+        return System.currentTimeMillis() - modified.toMillis() > maxAgeMillis;
+    }
+
+    private void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        long due = nextSweep.get();
+        if (now < due || !nextSweep.compareAndSet(due, now + Math.max(1, maxAgeMillis / 10))) return;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                if (isExpired(Files.getLastModifiedTime(file))) Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            PhoenixCommandFramework.LOGGER.warn("Failed to sweep session directory {}", directory, e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package dev.eposs.pcf.session;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Converts session states to bytes and back, so a {@link ComponentSessionStore} can spill them to an
+ * {@link ISessionSpillStore}.
+ *
+ * @param <T> the state type
+ */
+public interface ISessionCodec<T> {
+
+    /**
+     * @param state the state to encode
+     * @return the encoded state
+     */
+    @NotNull
+    byte[] encode(@NotNull T state);
+
+    /**
+     * @param data the encoded state
+     * @return the decoded state
+     * @throws IllegalArgumentException if the data cannot be decoded
+     */
+    @NotNull
+    T decode(@NotNull byte[] data) throws IllegalArgumentException;
+}
@@ -0,0 +1,37 @@
+package dev.eposs.pcf.session;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Secondary store for session states that left the memory of a {@link ComponentSessionStore} but may still be
+ * referenced by components of a message.
+ */
+public interface ISessionSpillStore {
+
+    /**
+     * Stores an encoded state, replacing any previous one with the same token.
+     *
+     * @param token the session token
+     * @param data  the encoded state
+     * @throws UncheckedIOException if the state cannot be stored
+     */
+    void write(@NotNull String token, @NotNull byte[] data) throws UncheckedIOException;
+
+    /**
+     * @param token the session token
+     * @return the encoded state, or {@code null} if there is none or it expired
+     * @throws UncheckedIOException if the state cannot be read
+     */
+    @Nullable
+    byte[] read(@NotNull String token) throws UncheckedIOException;
+
+    /**
+     * Removes a state. Missing states are ignored.
+     *
+     * @param token the session token
+     */
+    void delete(@NotNull String token);
+}
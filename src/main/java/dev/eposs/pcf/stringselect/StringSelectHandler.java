@@ -1,10 +1,14 @@
 package dev.eposs.pcf.stringselect;
 
+import dev.eposs.pcf.GuardedHandler;
+import dev.eposs.pcf.customid.CustomIdReader;
+import dev.eposs.pcf.customid.CustomIdWriter;
+import dev.eposs.pcf.session.ComponentSessionStore;
 import net.dv8tion.jda.api.components.selections.StringSelectMenu;
 import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
 import org.jetbrains.annotations.NotNull;
 
-public interface StringSelectHandler {
+public interface StringSelectHandler extends GuardedHandler {
 
     String getIdPrefix();
 
@@ -13,4 +17,16 @@ public interface StringSelectHandler {
     default StringSelectMenu withPrefixedId(@NotNull StringSelectMenu menuWithSuffix) {
         return menuWithSuffix.createCopy().setCustomId(getIdPrefix() + menuWithSuffix.getCustomId()).build();
     }
+
+    default <T> StringSelectMenu withSession(@NotNull StringSelectMenu menu, @NotNull ComponentSessionStore<T> store, @NotNull T state) {
+        return menu.createCopy().setCustomId(store.customId(getIdPrefix(), state)).build();
+    }
+
+    default CustomIdWriter customIdWriter() {
+        return new CustomIdWriter(getIdPrefix());
+    }
+
+    default CustomIdReader customIdReader(@NotNull String customId) throws IllegalArgumentException {
+        return CustomIdReader.of(getIdPrefix(), customId);
+    }
 }
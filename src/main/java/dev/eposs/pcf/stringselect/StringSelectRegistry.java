@@ -1,30 +1,46 @@
 package dev.eposs.pcf.stringselect;
 
+import dev.eposs.pcf.util.PrefixIndex;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class StringSelectRegistry {
     private StringSelectRegistry() {
     }
 
-    private static final Map<String, StringSelectHandler> STRING_SELECTS = new ConcurrentHashMap<>();
+    private static volatile PrefixIndex<StringSelectHandler> stringSelects = PrefixIndex.empty();
 
-    public static void register(StringSelectHandler action) {
-        STRING_SELECTS.put(action.getIdPrefix(), action);
+    public static void register(StringSelectHandler action) throws IllegalArgumentException {
+        register(new StringSelectHandler[]{action});
     }
 
-    public static void register(@NotNull StringSelectHandler... actions) {
-        for (StringSelectHandler action : actions) register(action);
+    public static synchronized void register(@NotNull StringSelectHandler... actions) throws IllegalArgumentException {
+        stringSelects = stringSelects.withAll(Arrays.asList(actions), StringSelectHandler::getIdPrefix);
+    }
+
+    public static synchronized boolean unregister(@NotNull String idPrefix) {
+        PrefixIndex<StringSelectHandler> updated = stringSelects.apply(List.of(idPrefix), List.of(), StringSelectHandler::getIdPrefix);
+        boolean changed = updated != stringSelects;
+        stringSelects = updated;
+        return changed;
+    }
+
+    /**
+     * Compiles the index resulting from the given removals and additions without publishing it.
+     * See {@link dev.eposs.pcf.button.ButtonRegistry#prepareChange(Collection, Collection)} for the contract.
+     */
+    @NotNull
+    public static Runnable prepareChange(@NotNull Collection<String> removedPrefixes, @NotNull Collection<? extends StringSelectHandler> added) throws IllegalArgumentException {
+        PrefixIndex<StringSelectHandler> updated = stringSelects.apply(removedPrefixes, added, StringSelectHandler::getIdPrefix);
+        return () -> stringSelects = updated;
     }
 
     @NotNull
     public static Optional<StringSelectHandler> getStringSelect(String customId) {
-        return STRING_SELECTS.entrySet().stream()
-                .filter(entry -> customId.startsWith(entry.getKey()))
-                .map(Map.Entry::getValue)
-                .findFirst();
+        return Optional.ofNullable(stringSelects.longestMatch(customId));
     }
 }
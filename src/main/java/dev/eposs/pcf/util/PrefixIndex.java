@@ -0,0 +1,203 @@
+package dev.eposs.pcf.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Immutable, compiled prefix index used to route component custom ids to their handlers.
+ * <p>
+ * The index is a char trie whose nodes store their children in sorted arrays, so a lookup walks the
+ * custom id once and costs {@code O(length of custom id)} regardless of how many prefixes are registered.
+ * When several registered prefixes match a custom id, the <b>longest</b> one wins, which makes routing
+ * deterministic for overlapping prefixes such as {@code "ticket:"} and {@code "ticket:close:"}.
+ * </p>
+ * <p>
+ * Instances are never modified. Registries keep the current index in a {@code volatile} field and replace it
+ * with a freshly compiled copy on every registration (copy-on-write), so readers never lock.
+ * </p>
+ *
+ * @param <T> the handler type stored in the index
+ */
+public final class PrefixIndex<T> {
+    private static final PrefixIndex<?> EMPTY = new PrefixIndex<>(Collections.emptyMap());
+
+    private final Map<String, T> entries;
+    private final Node<T> root;
+
+    private PrefixIndex(@NotNull Map<String, T> entries) {
+        this.entries = entries;
+        this.root = compile(entries);
+    }
+
+    /**
+     * Returns the empty index.
+     *
+     * @param <T> the handler type
+     * @return an index without any entries
+     */
+    @SuppressWarnings("unchecked")
+    @NotNull
+    public static <T> PrefixIndex<T> empty() {
+        return (PrefixIndex<T>) EMPTY;
+    }
+
+    /**
+     * Compiles a new index containing all entries of this index plus the given handlers.
+     *
+     * @param handlers the handlers to add
+     * @param prefixOf resolves the id prefix of a handler
+     * @return a new index, or this index if nothing changed
+     * @throws IllegalArgumentException if a prefix is null or empty, or already bound to a different handler
+     * @see #apply(Collection, Iterable, Function)
+     */
+    @NotNull
+    public PrefixIndex<T> withAll(@NotNull Iterable<? extends T> handlers, @NotNull Function<? super T, String> prefixOf) throws IllegalArgumentException {
+        return apply(List.of(), handlers, prefixOf);
+    }
+
+    /**
+     * Compiles a new index with the given prefixes removed and the given handlers added, in that order.
+     * Removing and adding the same prefix therefore replaces its handler.
+     * <p>
+     * Removing a prefix that is not registered is a no-op. Registering the same handler instance under the same
+     * prefix again is a no-op as well. Registering a different handler under an already used prefix (either in
+     * this index or earlier in the same batch) is a conflict and rejected, as is a null or empty prefix. On
+     * conflict nothing is changed.
+     * </p>
+     *
+     * @param removals the prefixes to remove
+     * @param handlers the handlers to add
+     * @param prefixOf resolves the id prefix of a handler
+     * @return a new index, or this index if nothing changed
+     * @throws IllegalArgumentException if a prefix is null or empty, or already bound to a different handler
+     */
+    @NotNull
+    public PrefixIndex<T> apply(@NotNull Collection<String> removals, @NotNull Iterable<? extends T> handlers, @NotNull Function<? super T, String> prefixOf) throws IllegalArgumentException {
+        TreeMap<String, T> copy = new TreeMap<>(entries);
+        boolean changed = false;
+        for (String prefix : removals) {
+            if (copy.remove(prefix) != null) changed = true;
+        }
+        for (T handler : handlers) {
+            String prefix = prefixOf.apply(handler);
+            if (prefix == null || prefix.isEmpty()) {
+                throw new IllegalArgumentException("Id prefix of " + handler.getClass().getName() + " cannot be null or empty.");
+            }
+
+            T existing = copy.putIfAbsent(prefix, handler);
+            if (existing == null) {
+                changed = true;
+            } else if (existing != handler) {
+                throw new IllegalArgumentException("Id prefix \"" + prefix + "\" is already registered by "
+                        + existing.getClass().getName() + ", cannot register " + handler.getClass().getName());
+            }
+        }
+        return changed ? new PrefixIndex<>(Collections.unmodifiableMap(copy)) : this;
+    }
+
+    /**
+     * Finds the handler registered under the longest prefix of the given custom id.
+     * This method does not allocate.
+     *
+     * @param customId the custom id to route
+     * @return the matching handler, or {@code null} if no registered prefix matches
+     */
+    @Nullable
+    public T longestMatch(@NotNull String customId) {
+        Node<T> node = root;
+        T best = node.value;
+        for (int i = 0, length = customId.length(); i < length; i++) {
+            int idx = Arrays.binarySearch(node.keys, customId.charAt(i));
+            if (idx < 0) return best;
+            node = node.children[idx];
+            if (node.value != null) best = node.value;
+        }
+        return best;
+    }
+
+    /**
+     * Returns the handler registered under exactly the given prefix.
+     *
+     * @param prefix the id prefix
+     * @return the handler, or {@code null} if the prefix is not registered
+     */
+    @Nullable
+    public T get(String prefix) {
+        return entries.get(prefix);
+    }
+
+    /**
+     * Returns all registered entries sorted by prefix.
+     *
+     * @return an unmodifiable view of the prefix to handler mapping
+     */
+    @NotNull
+    public Map<String, T> entries() {
+        return entries;
+    }
+
+    /**
+     * @return the number of registered prefixes
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @NotNull
+    private static <T> Node<T> compile(@NotNull Map<String, T> entries) {
+        MutableNode<T> root = new MutableNode<>();
+        for (Map.Entry<String, T> entry : entries.entrySet()) {
+            MutableNode<T> node = root;
+            String prefix = entry.getKey();
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new MutableNode<>());
+            }
+            node.value = entry.getValue();
+        }
+        return root.freeze();
+    }
+
+    /**
+     * Compiled trie node. Children are kept in parallel arrays sorted by their edge character.
+     */
+    private static final class Node<T> {
+        private final char[] keys;
+        private final Node<T>[] children;
+        private final T value;
+
+        private Node(char[] keys, Node<T>[] children, T value) {
+            this.keys = keys;
+            this.children = children;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Temporary trie node only used while compiling.
+     */
+    private static final class MutableNode<T> {
+        private final TreeMap<Character, MutableNode<T>> children = new TreeMap<>();
+        private T value;
+
+        @SuppressWarnings("unchecked")
+        private Node<T> freeze() {
+            char[] keys = new char[children.size()];
+            Node<T>[] nodes = (Node<T>[]) new Node<?>[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableNode<T>> child : children.entrySet()) {
+                keys[i] = child.getKey();
+                nodes[i] = child.getValue().freeze();
+                i++;
+            }
+            return new Node<>(keys, nodes, value);
+        }
+    }
+}
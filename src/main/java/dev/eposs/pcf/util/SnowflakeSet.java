@@ -0,0 +1,90 @@
+package dev.eposs.pcf.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe set of {@code long} snowflake IDs.
+ * <p>
+ * The IDs are kept in a sorted primitive array that is replaced copy-on-write on every modification, so
+ * {@link #contains(long)} is a lock-free binary search that neither boxes nor allocates. Intended for small,
+ * rarely modified sets that are read on every interaction, such as trusted users.
+ * </p>
+ */
+public final class SnowflakeSet {
+    private volatile long[] ids = new long[0];
+
+    /**
+     * @param id the ID to look up
+     * @return {@code true} if the set contains the ID
+     */
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    /**
+     * @param id the ID to add
+     * @return {@code true} if the ID was not contained before
+     */
+    public synchronized boolean add(long id) {
+        long[] current = ids;
+        int index = Arrays.binarySearch(current, id);
+        if (index >= 0) return false;
+
+        int insert = -index - 1;
+        long[] updated = new long[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, insert);
+        updated[insert] = id;
+        System.arraycopy(current, insert, updated, insert + 1, current.length - insert);
+        ids = updated;
+        return true;
+    }
+
+    /**
+     * @param id the ID to remove
+     * @return {@code true} if the ID was contained
+     */
+    public synchronized boolean remove(long id) {
+        long[] current = ids;
+        int index = Arrays.binarySearch(current, id);
+        if (index < 0) return false;
+
+        long[] updated = new long[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        ids = updated;
+        return true;
+    }
+
+    /**
+     * Replaces the content of the set in a single step.
+     *
+     * @param newIds the new IDs, duplicates are ignored
+     */
+    public synchronized void replaceAll(@NotNull long... newIds) {
+        ids = Arrays.stream(newIds).sorted().distinct().toArray();
+    }
+
+    /**
+     * Removes all IDs.
+     */
+    public synchronized void clear() {
+        ids = new long[0];
+    }
+
+    /**
+     * @return the number of IDs in the set
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return a sorted copy of the IDs
+     */
+    @NotNull
+    public long[] toArray() {
+        return ids.clone();
+    }
+}
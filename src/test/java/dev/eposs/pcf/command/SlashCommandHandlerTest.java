@@ -0,0 +1,93 @@
+package dev.eposs.pcf.command;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.SlashCommandInteraction;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlashCommandHandlerTest {
+
+    @Test
+    void cancellingTheAsyncResultCancelsTheSubCommand() throws Exception {
+        CompletableFuture<Void> source = new CompletableFuture<>();
+        SlashCommandHandler command = command(source);
+
+        CompletionStage<?> result = command.executeSubCommandAsync(event());
+        assertFalse(source.isDone());
+
+        assertTrue(result.toCompletableFuture().cancel(true));
+        assertTrue(source.isCancelled());
+    }
+
+    @Test
+    void completedSubCommandCompletesTheAsyncResult() throws Exception {
+        CompletableFuture<Void> source = new CompletableFuture<>();
+        CompletionStage<?> result = command(source).executeSubCommandAsync(event());
+
+        source.complete(null);
+        assertTrue(result.toCompletableFuture().isDone());
+        assertFalse(result.toCompletableFuture().isCancelled());
+    }
+
+    private static SlashCommandHandler command(CompletableFuture<Void> source) {
+        AsyncSubCommandHandler subCommand = new AsyncSubCommandHandler() {
+            @Override
+            public CompletionStage<?> executeAsync(SlashCommandInteractionEvent event) {
+                return source;
+            }
+
+            @Override
+            public SubcommandData getSubCommandData() {
+                return new SubcommandData("sub", "A sub-command");
+            }
+        };
+        return new SlashCommandHandler() {
+            @Override
+            public Map<String, SubCommandHandler> getSubCommands() {
+                return Map.of("sub", subCommand);
+            }
+
+            @Override
+            public CommandData getCommandData() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Set<String> getTargetGuildIDs() {
+                return Set.of();
+            }
+
+            @Override
+            public void execute(GenericCommandInteractionEvent event) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static SlashCommandInteractionEvent event() {
+        SlashCommandInteraction interaction = (SlashCommandInteraction) Proxy.newProxyInstance(SlashCommandHandlerTest.class.getClassLoader(),
+                new Class<?>[]{SlashCommandInteraction.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getName" -> "command";
+                    case "getSubcommandName" -> "sub";
+                    case "getSubcommandGroup" -> null;
+                    case "getFullCommandName" -> "command sub";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        JDA jda = (JDA) Proxy.newProxyInstance(SlashCommandHandlerTest.class.getClassLoader(), new Class<?>[]{JDA.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new SlashCommandInteractionEvent(jda, 0, interaction);
+    }
+}
@@ -0,0 +1,109 @@
+package dev.eposs.pcf.command.option;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.dv8tion.jda.api.interactions.commands.CommandInteractionPayload;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptionBinderTest {
+    enum Color {RED, GREEN}
+
+    record Arguments(@Option(description = "The name") String name,
+                     @Option(description = "The count") int count,
+                     @Option(description = "The id", required = false) long userLimit,
+                     @Option(description = "The ratio", required = false) Double ratio,
+                     @Option(description = "The flag", name = "force", required = false) boolean overwrite,
+                     @Option(description = "The color", required = false) Color color) {
+    }
+
+    record Unannotated(String name) {
+    }
+
+    record Unsupported(@Option(description = "A list") List<String> values) {
+    }
+
+    record Duplicate(@Option(description = "A") String first, @Option(description = "B", name = "first") String second) {
+    }
+
+    record AutoCompletedEnum(@Option(description = "The color", autoComplete = true) Color color) {
+    }
+
+    private static final OptionBinder<Arguments> BINDER = OptionBinder.of(Arguments.class);
+
+    @Test
+    void derivesOptionData() {
+        List<OptionData> options = BINDER.getOptions();
+        assertEquals(List.of("name", "count", "user_limit", "ratio", "force", "color"), options.stream().map(OptionData::getName).toList());
+        assertEquals(List.of(OptionType.STRING, OptionType.INTEGER, OptionType.INTEGER, OptionType.NUMBER, OptionType.BOOLEAN, OptionType.STRING),
+                options.stream().map(OptionData::getType).toList());
+        assertTrue(options.get(0).isRequired());
+        assertFalse(options.get(2).isRequired());
+        assertEquals(List.of("RED", "GREEN"), options.get(5).getChoices().stream().map(choice -> choice.getAsString()).toList());
+    }
+
+    @Test
+    void restrictsIntOptionsToIntRange() {
+        OptionData count = BINDER.getOptions().get(1);
+        assertEquals(Integer.MIN_VALUE, count.getMinValue().longValue());
+        assertEquals(Integer.MAX_VALUE, count.getMaxValue().longValue());
+
+        OptionData userLimit = BINDER.getOptions().get(2);
+        assertNull(userLimit.getMinValue());
+        assertNull(userLimit.getMaxValue());
+    }
+
+    @Test
+    void bindsAllOptions() {
+        Arguments arguments = BINDER.bind(payload(
+                option("name", OptionType.STRING, "phoenix"),
+                option("count", OptionType.INTEGER, 3),
+                option("user_limit", OptionType.INTEGER, 9_007_199_254_740_991L),
+                option("ratio", OptionType.NUMBER, 0.5),
+                option("force", OptionType.BOOLEAN, true),
+                option("color", OptionType.STRING, "GREEN")));
+        assertEquals(new Arguments("phoenix", 3, 9_007_199_254_740_991L, 0.5, true, Color.GREEN), arguments);
+    }
+
+    @Test
+    void bindsMissingOptionsAsDefaults() {
+        Arguments arguments = BINDER.bind(payload(option("name", OptionType.STRING, "phoenix"), option("count", OptionType.INTEGER, -1)));
+        assertEquals(new Arguments("phoenix", -1, 0L, null, false, null), arguments);
+    }
+
+    @Test
+    void ignoresUnknownOptions() {
+        Arguments arguments = BINDER.bind(payload(option("other", OptionType.STRING, "x"), option("name", OptionType.STRING, "a")));
+        assertEquals("a", arguments.name());
+    }
+
+    @Test
+    void rejectsInvalidRecords() {
+        assertThrows(IllegalArgumentException.class, () -> OptionBinder.of(Unannotated.class));
+        assertThrows(IllegalArgumentException.class, () -> OptionBinder.of(Unsupported.class));
+        assertThrows(IllegalArgumentException.class, () -> OptionBinder.of(Duplicate.class));
+        assertThrows(IllegalArgumentException.class, () -> OptionBinder.of(AutoCompletedEnum.class));
+    }
+
+    private static OptionMapping option(String name, OptionType type, Object value) {
+        DataObject data = DataObject.empty().put("name", name).put("type", type.getKey()).put("value", value);
+        return new OptionMapping(data, new TLongObjectHashMap<>(), null, null);
+    }
+
+    private static CommandInteractionPayload payload(OptionMapping... options) {
+        List<OptionMapping> mappings = new ArrayList<>(List.of(options));
+        return (CommandInteractionPayload) Proxy.newProxyInstance(OptionBinderTest.class.getClassLoader(),
+                new Class<?>[]{CommandInteractionPayload.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getOptions")) return mappings;
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,105 @@
+package dev.eposs.pcf.customid;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomIdReaderTest {
+    private static final String PREFIX = "p:";
+
+    enum Mode {OFF, ON, AUTO}
+
+    @Test
+    void roundTripsAllFieldTypes() {
+        String id = new CustomIdWriter(PREFIX)
+                .writeLong(-42)
+                .writeInt(Integer.MIN_VALUE)
+                .writeSnowflake(1_234_567_890_123_456_789L)
+                .writeBoolean(true)
+                .writeEnum(Mode.AUTO)
+                .writeString("hello:world")
+                .writeLong(Long.MAX_VALUE)
+                .writeLong(Long.MIN_VALUE)
+                .build();
+
+        CustomIdReader reader = CustomIdReader.of(PREFIX, id);
+        assertEquals(-42, reader.readLong());
+        assertEquals(Integer.MIN_VALUE, reader.readInt());
+        assertEquals(1_234_567_890_123_456_789L, reader.readSnowflake());
+        assertTrue(reader.readBoolean());
+        assertEquals(Mode.AUTO, reader.readEnum(Mode.class));
+        assertEquals("hello:world", reader.readString());
+        assertEquals(Long.MAX_VALUE, reader.readLong());
+        assertEquals(Long.MIN_VALUE, reader.readLong());
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    void smallValuesTakeOneCharacter() {
+        CustomIdWriter writer = new CustomIdWriter("").writeInt(7).writeEnum(Mode.ON).writeBoolean(false);
+        assertEquals(3, writer.length());
+    }
+
+    @Test
+    void emptyStringRoundTrips() {
+        CustomIdReader reader = CustomIdReader.of(PREFIX, new CustomIdWriter(PREFIX).writeString("").writeInt(1).build());
+        assertEquals("", reader.readString());
+        assertEquals(1, reader.readInt());
+    }
+
+    @Test
+    void tagPrefixesRoundTrip() {
+        String prefix = CustomIdCodec.tagPrefix(1000);
+        assertEquals(CustomIdCodec.MARKER, prefix.charAt(0));
+        CustomIdReader reader = CustomIdReader.of(prefix, new CustomIdWriter(prefix).writeInt(5).build());
+        assertEquals(5, reader.readInt());
+        assertThrows(IllegalArgumentException.class, () -> CustomIdCodec.tagPrefix(-1));
+    }
+
+    @Test
+    void rejectsWrongPrefix() {
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of("other:", PREFIX + "1"));
+    }
+
+    @Test
+    void rejectsTruncatedFields() {
+        String id = new CustomIdWriter(PREFIX).writeString("hello").build();
+        CustomIdReader truncated = CustomIdReader.of(PREFIX, id.substring(0, id.length() - 1));
+        assertThrows(IllegalArgumentException.class, truncated::readString);
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, PREFIX + "123").readSnowflake());
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, PREFIX).readLong());
+    }
+
+    @Test
+    void rejectsInvalidCharactersAndValues() {
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, PREFIX + "*").readLong());
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, PREFIX + "2").readBoolean());
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, PREFIX + "3").readEnum(Mode.class));
+        String large = new CustomIdWriter(PREFIX).writeLong(Integer.MAX_VALUE + 1L).build();
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, large).readInt());
+    }
+
+    @Test
+    void rejectsNegativeLengthsAndOrdinals() {
+        // The zigzag encoding of Long.MIN_VALUE is -1, so its raw varint has all bits set
+        String negative = new CustomIdWriter(PREFIX).writeLong(Long.MIN_VALUE).writeString("x").build();
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, negative).readString());
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, negative).readEnum(Mode.class));
+
+        String tooLong = new CustomIdWriter(PREFIX).writeLong((long) Integer.MAX_VALUE).build();
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, tooLong).readString());
+    }
+
+    @Test
+    void rejectsOverflowingVarints() {
+        // 13 characters of 5 bits each, the last one carrying more than the 4 bits left in a long
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, PREFIX + "_".repeat(12) + "V").readLong());
+        assertThrows(IllegalArgumentException.class, () -> CustomIdReader.of(PREFIX, PREFIX + "_".repeat(13)).readLong());
+    }
+
+    @Test
+    void buildRejectsTooLongIds() {
+        CustomIdWriter writer = new CustomIdWriter(PREFIX).writeString("x".repeat(CustomIdCodec.MAX_LENGTH));
+        assertThrows(IllegalStateException.class, writer::build);
+    }
+}
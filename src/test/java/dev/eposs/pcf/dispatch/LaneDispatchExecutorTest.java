@@ -0,0 +1,133 @@
+package dev.eposs.pcf.dispatch;
+
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyCallbackAction;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaneDispatchExecutorTest {
+
+    @Test
+    void refusedWaitingEntriesAreAnsweredAndReported() {
+        ScriptedExecutor delegate = new ScriptedExecutor();
+        LaneDispatchExecutor lanes = new LaneDispatchExecutor(delegate, e -> 1L);
+        AtomicInteger busyReplies = new AtomicInteger();
+        AtomicInteger dropped = new AtomicInteger();
+
+        assertTrue(lanes.execute(event(busyReplies), () -> {}, () -> {}, dropped::incrementAndGet));
+        assertTrue(lanes.execute(event(busyReplies), () -> {}, () -> {}, dropped::incrementAndGet));
+        assertTrue(lanes.execute(event(busyReplies), () -> {}, () -> {}, dropped::incrementAndGet));
+        assertEquals(1, delegate.accepted.size());
+        assertEquals(2, lanes.getStats().queued());
+
+        delegate.refuse = true;
+        delegate.accepted.getFirst().finish();
+
+        assertEquals(2, dropped.get());
+        assertEquals(2, busyReplies.get());
+        assertEquals(0, lanes.getActiveLanes());
+        assertEquals(0, lanes.getStats().queued());
+        assertEquals(2, lanes.getStats().rejected());
+    }
+
+    @Test
+    void refusedOwnEntryIsReportedThroughTheResult() {
+        ScriptedExecutor delegate = new ScriptedExecutor();
+        delegate.refuse = true;
+        LaneDispatchExecutor lanes = new LaneDispatchExecutor(delegate, e -> 1L);
+        AtomicInteger busyReplies = new AtomicInteger();
+        AtomicInteger dropped = new AtomicInteger();
+
+        assertFalse(lanes.execute(event(busyReplies), () -> {}, () -> {}, dropped::incrementAndGet));
+        assertEquals(0, dropped.get());
+        assertEquals(0, busyReplies.get());
+        assertEquals(0, lanes.getActiveLanes());
+    }
+
+    @Test
+    void entriesDroppedByTheDelegateAdvanceTheLane() {
+        ScriptedExecutor delegate = new ScriptedExecutor();
+        LaneDispatchExecutor lanes = new LaneDispatchExecutor(delegate, e -> 1L);
+        AtomicInteger dropped = new AtomicInteger();
+        AtomicInteger ran = new AtomicInteger();
+
+        assertTrue(lanes.execute(event(new AtomicInteger()), ran::incrementAndGet, () -> {}, dropped::incrementAndGet));
+        assertTrue(lanes.execute(event(new AtomicInteger()), ran::incrementAndGet, () -> {}, dropped::incrementAndGet));
+
+        delegate.accepted.getFirst().onDropped.run();
+        assertEquals(1, dropped.get());
+        assertEquals(2, delegate.accepted.size());
+
+        delegate.accepted.get(1).finish();
+        assertEquals(1, ran.get());
+        assertEquals(0, lanes.getActiveLanes());
+    }
+
+    private static IReplyCallback event(AtomicInteger busyReplies) {
+        ReplyCallbackAction action = (ReplyCallbackAction) Proxy.newProxyInstance(LaneDispatchExecutorTest.class.getClassLoader(),
+                new Class<?>[]{ReplyCallbackAction.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "setEphemeral" -> proxy;
+                    case "queue" -> {
+                        busyReplies.incrementAndGet();
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return (IReplyCallback) Proxy.newProxyInstance(LaneDispatchExecutorTest.class.getClassLoader(),
+                new Class<?>[]{IReplyCallback.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "isAcknowledged" -> false;
+                    case "reply" -> action;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Accepts tasks without running them until {@link Task#finish()} is called, or refuses all tasks.
+     */
+    private static final class ScriptedExecutor implements IDispatchExecutor {
+        final List<Task> accepted = new ArrayList<>();
+        int refused;
+        boolean refuse;
+
+        @Override
+        public boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task) {
+            return execute(event, task, () -> {});
+        }
+
+        @Override
+        public boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task, @NotNull Runnable afterRelease) {
+            return execute(event, task, afterRelease, () -> {});
+        }
+
+        @Override
+        public boolean execute(@NotNull IReplyCallback event, @NotNull Runnable task, @NotNull Runnable afterRelease,
+                               @NotNull Runnable onDropped) {
+            if (refuse) {
+                refused++;
+                return false;
+            }
+            accepted.add(new Task(task, afterRelease, onDropped));
+            return true;
+        }
+
+        @NotNull
+        @Override
+        public DispatchStats getStats() {
+            return new DispatchStats(0, 0, 0, refused, 0);
+        }
+    }
+
+    private record Task(Runnable task, Runnable afterRelease, Runnable onDropped) {
+        void finish() {
+            task.run();
+            afterRelease.run();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package dev.eposs.pcf.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTableTest {
+    /**
+     * Long enough that no token refills while a test runs.
+     */
+    private static final long HOUR = TimeUnit.HOURS.toNanos(1);
+
+    @Test
+    void admitsBurstThenRejects() {
+        TokenBucketTable table = new TokenBucketTable(64, HOUR, 3);
+        for (int i = 0; i < 3; i++) assertEquals(0, table.tryAcquire(42));
+
+        long wait = table.tryAcquire(42);
+        assertTrue(wait > HOUR - TimeUnit.MINUTES.toNanos(1) && wait <= HOUR, "wait " + wait);
+    }
+
+    @Test
+    void keysAreIndependent() {
+        TokenBucketTable table = new TokenBucketTable(64, HOUR, 1);
+        assertEquals(0, table.tryAcquire(1));
+        assertTrue(table.tryAcquire(1) > 0);
+        assertEquals(0, table.tryAcquire(2));
+        assertEquals(0, table.tryAcquire(Long.MAX_VALUE));
+    }
+
+    @Test
+    void zeroKeyIsTracked() {
+        TokenBucketTable table = new TokenBucketTable(64, HOUR, 1);
+        assertEquals(0, table.tryAcquire(0));
+        assertTrue(table.tryAcquire(0) > 0);
+    }
+
+    @Test
+    void tokensRefillOverTime() throws InterruptedException {
+        long interval = TimeUnit.MILLISECONDS.toNanos(20);
+        TokenBucketTable table = new TokenBucketTable(64, interval, 1);
+        assertEquals(0, table.tryAcquire(7));
+
+        long wait = table.tryAcquire(7);
+        assertTrue(wait > 0 && wait <= interval, "wait " + wait);
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(0, table.tryAcquire(7));
+    }
+
+    @Test
+    void refundReturnsToken() {
+        TokenBucketTable table = new TokenBucketTable(64, HOUR, 2);
+        assertEquals(0, table.tryAcquire(5));
+        assertEquals(0, table.tryAcquire(5));
+        assertTrue(table.tryAcquire(5) > 0);
+
+        table.refund(5);
+        assertEquals(0, table.tryAcquire(5));
+        assertTrue(table.tryAcquire(5) > 0);
+    }
+
+    @Test
+    void refundOfUnknownKeyIsIgnored() {
+        TokenBucketTable table = new TokenBucketTable(64, HOUR, 1);
+        table.refund(9);
+        assertEquals(0, table.tryAcquire(9));
+        assertTrue(table.tryAcquire(9) > 0);
+    }
+
+    @Test
+    void peekDoesNotTakeToken() {
+        TokenBucketTable table = new TokenBucketTable(64, HOUR, 1);
+        assertEquals(0, table.peek(3));
+        assertEquals(0, table.peek(3));
+        assertEquals(0, table.tryAcquire(3));
+
+        assertTrue(table.peek(3) > 0);
+        table.refund(3);
+        assertEquals(0, table.peek(3));
+    }
+
+    @Test
+    void fullTableAdmitsAndCountsOverflow() {
+        TokenBucketTable table = new TokenBucketTable(TokenBucketTable.MAX_PROBES, HOUR, 1);
+        for (long key = 1; key <= TokenBucketTable.MAX_PROBES; key++) assertEquals(0, table.tryAcquire(key));
+        assertEquals(0, table.getOverflowCount());
+
+        assertEquals(0, table.tryAcquire(TokenBucketTable.MAX_PROBES + 1));
+        assertEquals(1, table.getOverflowCount());
+    }
+
+    @Test
+    void expiredSlotsAreReused() throws InterruptedException {
+        long interval = TimeUnit.MILLISECONDS.toNanos(10);
+        TokenBucketTable table = new TokenBucketTable(TokenBucketTable.MAX_PROBES, interval, 1);
+        for (long key = 1; key <= TokenBucketTable.MAX_PROBES; key++) assertEquals(0, table.tryAcquire(key));
+
+        TimeUnit.NANOSECONDS.sleep(interval * 2);
+        assertEquals(0, table.tryAcquire(TokenBucketTable.MAX_PROBES + 1));
+        assertEquals(0, table.getOverflowCount());
+        assertTrue(table.tryAcquire(TokenBucketTable.MAX_PROBES + 1) > 0);
+    }
+}
@@ -0,0 +1,95 @@
+package dev.eposs.pcf.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+    private record Handler(String prefix) {
+    }
+
+    private static PrefixIndex<Handler> indexOf(Handler... handlers) {
+        return PrefixIndex.<Handler>empty().withAll(List.of(handlers), Handler::prefix);
+    }
+
+    @Test
+    void emptyIndexMatchesNothing() {
+        PrefixIndex<Handler> index = PrefixIndex.empty();
+        assertNull(index.longestMatch("anything"));
+        assertNull(index.longestMatch(""));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void longestPrefixWins() {
+        Handler ticket = new Handler("ticket:");
+        Handler close = new Handler("ticket:close:");
+        PrefixIndex<Handler> index = indexOf(ticket, close);
+
+        assertSame(ticket, index.longestMatch("ticket:open:42"));
+        assertSame(close, index.longestMatch("ticket:close:42"));
+        assertSame(ticket, index.longestMatch("ticket:clo"));
+        assertSame(ticket, index.longestMatch("ticket:"));
+    }
+
+    @Test
+    void customIdShorterThanPrefixDoesNotMatch() {
+        PrefixIndex<Handler> index = indexOf(new Handler("ticket:"));
+        assertNull(index.longestMatch("tick"));
+        assertNull(index.longestMatch("other"));
+    }
+
+    @Test
+    void exactLookupDoesNotMatchLongerIds() {
+        Handler ticket = new Handler("ticket:");
+        PrefixIndex<Handler> index = indexOf(ticket);
+        assertSame(ticket, index.get("ticket:"));
+        assertNull(index.get("ticket:close:"));
+    }
+
+    @Test
+    void entriesAreSortedByPrefix() {
+        PrefixIndex<Handler> index = indexOf(new Handler("b"), new Handler("a"), new Handler("ab"));
+        assertEquals(List.of("a", "ab", "b"), List.copyOf(index.entries().keySet()));
+        assertThrows(UnsupportedOperationException.class, () -> index.entries().put("c", new Handler("c")));
+    }
+
+    @Test
+    void conflictingPrefixIsRejectedWithoutChanges() {
+        PrefixIndex<Handler> index = indexOf(new Handler("a"));
+        assertThrows(IllegalArgumentException.class, () -> index.withAll(List.of(new Handler("b"), new Handler("a")), Handler::prefix));
+        assertEquals(Map.of("a", index.get("a")), index.entries());
+    }
+
+    @Test
+    void emptyPrefixIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> indexOf(new Handler("")));
+        assertThrows(IllegalArgumentException.class, () -> indexOf(new Handler(null)));
+    }
+
+    @Test
+    void registeringSameHandlerAgainIsNoOp() {
+        Handler handler = new Handler("a");
+        PrefixIndex<Handler> index = indexOf(handler);
+        assertSame(index, index.withAll(List.of(handler), Handler::prefix));
+    }
+
+    @Test
+    void removeAndAddReplacesHandler() {
+        Handler old = new Handler("a");
+        Handler replacement = new Handler("a");
+        PrefixIndex<Handler> index = indexOf(old, new Handler("ab"));
+
+        PrefixIndex<Handler> replaced = index.apply(List.of("a"), List.of(replacement), Handler::prefix);
+        assertSame(replacement, replaced.longestMatch("ax"));
+        assertSame(old, index.longestMatch("ax"));
+
+        PrefixIndex<Handler> removed = replaced.apply(List.of("a", "missing"), List.of(), Handler::prefix);
+        assertNull(removed.longestMatch("ax"));
+        assertNotNull(removed.longestMatch("abc"));
+        assertEquals(1, removed.size());
+    }
+}
@@ -0,0 +1,81 @@
+package dev.eposs.pcf.testkit;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * Backs a fake interaction and its {@link InteractionHook}. Response methods return {@link RecordingAction}s
+ * writing to the {@link ReplyRecorder} of the interaction; all other methods are answered by name.
+ */
+final class FakeInteraction implements InvocationHandler {
+    final ReplyRecorder recorder = new ReplyRecorder();
+    final InteractionHook hook;
+
+    private final Map<String, Object> answers;
+    private final JDA jda;
+    private final Message message;
+    private Object interaction;
+    private volatile boolean hookEphemeral;
+
+    FakeInteraction(@NotNull Map<String, Object> answers, @NotNull JDA jda, @NotNull Message message) {
+        this.answers = answers;
+        this.jda = jda;
+        this.message = message;
+        this.hook = Fakes.proxy(InteractionHook.class, this::invokeHook);
+    }
+
+    /**
+     * Creates the interaction proxy.
+     */
+    @NotNull
+    <T> T create(@NotNull Class<T> type) {
+        T proxy = Fakes.proxy(type, this);
+        interaction = proxy;
+        return proxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object answer = answers.get(method.getName());
+        if (answer != null) return answer;
+
+        String name = method.getName();
+        if (name.equals("isAcknowledged")) return recorder.isAcknowledged();
+        if (name.equals("getHook")) return hook;
+        if (name.equals("deferReply")) return RecordingAction.create(recorder, RecordedReply.Kind.DEFER_REPLY, hook, false, method, args);
+        if (name.equals("replyModal")) return RecordingAction.create(recorder, RecordedReply.Kind.MODAL, null, false, method, args);
+        if (name.startsWith("reply")) return RecordingAction.create(recorder, RecordedReply.Kind.REPLY, hook, false, method, args);
+        if (name.equals("deferEdit")) return RecordingAction.create(recorder, RecordedReply.Kind.DEFER_EDIT, hook, false, method, args);
+        if (name.startsWith("edit")) return RecordingAction.create(recorder, RecordedReply.Kind.EDIT_MESSAGE, hook, false, method, args);
+        return Fakes.fallback(proxy, method, args);
+    }
+
+    private Object invokeHook(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "getInteraction" -> {
+                return interaction;
+            }
+            case "getJDA" -> {
+                return jda;
+            }
+            case "isExpired" -> {
+                return false;
+            }
+            case "setEphemeral" -> {
+                hookEphemeral = (boolean) args[0];
+                return proxy;
+            }
+        }
+        if (name.startsWith("send")) return RecordingAction.create(recorder, RecordedReply.Kind.FOLLOW_UP, message, hookEphemeral, method, args);
+        if (name.startsWith("edit")) return RecordingAction.create(recorder, RecordedReply.Kind.EDIT_ORIGINAL, message, hookEphemeral, method, args);
+        if (name.startsWith("delete")) return RecordingAction.create(recorder, RecordedReply.Kind.DELETE_ORIGINAL, null, hookEphemeral, method, args);
+        return Fakes.fallback(proxy, method, args);
+    }
+}
@@ -0,0 +1,575 @@
+package dev.eposs.pcf.testkit;
+
+import dev.eposs.pcf.metrics.HandlerType;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.components.Component;
+import net.dv8tion.jda.api.components.buttons.Button;
+import net.dv8tion.jda.api.components.selections.EntitySelectMenu;
+import net.dv8tion.jda.api.components.selections.StringSelectMenu;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Mentions;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.MessageContextInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.UserContextInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import net.dv8tion.jda.api.interactions.DiscordLocale;
+import net.dv8tion.jda.api.interactions.Interaction;
+import net.dv8tion.jda.api.interactions.InteractionContextType;
+import net.dv8tion.jda.api.interactions.InteractionType;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.SlashCommandInteraction;
+import net.dv8tion.jda.api.interactions.commands.context.MessageContextInteraction;
+import net.dv8tion.jda.api.interactions.commands.context.UserContextInteraction;
+import net.dv8tion.jda.api.interactions.components.buttons.ButtonInteraction;
+import net.dv8tion.jda.api.interactions.components.selections.EntitySelectInteraction;
+import net.dv8tion.jda.api.interactions.components.selections.StringSelectInteraction;
+import net.dv8tion.jda.api.interactions.modals.ModalInteraction;
+import net.dv8tion.jda.api.requests.restaction.interactions.MessageEditCallbackAction;
+import net.dv8tion.jda.api.requests.restaction.interactions.ReplyCallbackAction;
+import net.dv8tion.jda.api.utils.TimeUtil;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
+import net.dv8tion.jda.api.utils.messages.MessageEditData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Factory for in-memory fakes of the interaction events handled by the
+ * {@link dev.eposs.pcf.event.PCFEventListener}, for testing handlers without a Discord connection.
+ * <p>
+ * The events are JDA events wrapping fake interactions. Every response a handler sends, directly or through
+ * the {@link net.dv8tion.jda.api.interactions.InteractionHook}, completes immediately and is captured by the
+ * {@link ReplyRecorder} of the interaction:
+ * </p>
+ * <pre>{@code
+ * ButtonInteractionEvent event = FakeInteractions.button("paginator:page:2");
+ * listener.onButtonInteraction(event);
+ * List<RecordedReply> replies = FakeInteractions.recorderOf(event).getReplies();
+ * }</pre>
+ * <p>
+ * The fakes have no members, channels or cached entities, so permission policies that need a member deny the
+ * interaction. Modal field values are not available, as JDA cannot create them outside of a real interaction.
+ * </p>
+ */
+public final class FakeInteractions {
+    private FakeInteractions() {
+    }
+
+    public static final Origin DEFAULT_ORIGIN = new Origin(100_000_000_000_000_001L, 100_000_000_000_000_002L, 100_000_000_000_000_003L);
+
+    /**
+     * The bot the fake events belong to.
+     */
+    public static final JDA JDA = Fakes.stub(JDA.class, Map.of(
+            "getStatus", net.dv8tion.jda.api.JDA.Status.CONNECTED,
+            "getShardInfo", new net.dv8tion.jda.api.JDA.ShardInfo(0, 1)
+    ));
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /**
+     * Returns the recorder of a fake interaction event.
+     *
+     * @param event an event created by this factory
+     * @return the recorder capturing the responses to the interaction
+     * @throws IllegalArgumentException if the event was not created by this factory
+     */
+    @NotNull
+    public static ReplyRecorder recorderOf(@NotNull GenericInteractionCreateEvent event) throws IllegalArgumentException {
+        Interaction interaction = event.getInteraction();
+        if (!Proxy.isProxyClass(interaction.getClass()) || !(Proxy.getInvocationHandler(interaction) instanceof FakeInteraction fake)) {
+            throw new IllegalArgumentException("Not a fake interaction: " + event);
+        }
+        return fake.recorder;
+    }
+
+    /**
+     * Creates a slash command invocation from the default origin without options.
+     *
+     * @param name       the command name
+     * @param subcommand the sub-command name, or {@code null}
+     * @return the event
+     */
+    @NotNull
+    public static SlashCommandInteractionEvent slashCommand(@NotNull String name, @Nullable String subcommand) {
+        return slashCommand(DEFAULT_ORIGIN, name, subcommand, Map.of());
+    }
+
+    /**
+     * Creates a slash command invocation.
+     *
+     * @param origin     the user, guild and channel of the interaction
+     * @param name       the command name
+     * @param subcommand the sub-command name, or {@code null}
+     * @param options    the option values by name: strings, {@link Long}s, {@link Double}s or {@link Boolean}s
+     * @return the event
+     * @throws IllegalArgumentException if an option value has an unsupported type
+     */
+    @NotNull
+    public static SlashCommandInteractionEvent slashCommand(@NotNull Origin origin, @NotNull String name, @Nullable String subcommand,
+                                                            @NotNull Map<String, ?> options) throws IllegalArgumentException {
+        Map<String, Object> answers = interaction(origin, InteractionType.COMMAND);
+        Guild guild = (Guild) answers.get("getGuild");
+        answers.put("getName", name);
+        if (subcommand != null) answers.put("getSubcommandName", subcommand);
+        answers.put("getFullCommandName", subcommand == null ? name : name + " " + subcommand);
+        answers.put("getCommandType", Command.Type.SLASH);
+        answers.put("getCommandIdLong", (long) name.hashCode() & Long.MAX_VALUE);
+        answers.put("isGuildCommand", guild != null);
+
+        List<OptionMapping> mappings = new ArrayList<>();
+        options.forEach((option, value) -> mappings.add(new OptionMapping(optionData(option, value), new TLongObjectHashMap<>(), null, guild)));
+        answers.put("getOptions", List.copyOf(mappings));
+        return new FakeSlashCommandEvent(create(SlashCommandInteraction.class, answers));
+    }
+
+    /**
+     * Creates a button click from the default origin.
+     *
+     * @param customId the custom id of the button
+     * @return the event
+     */
+    @NotNull
+    public static ButtonInteractionEvent button(@NotNull String customId) {
+        return button(DEFAULT_ORIGIN, customId);
+    }
+
+    /**
+     * Creates a button click.
+     *
+     * @param origin   the user, guild and channel of the interaction
+     * @param customId the custom id of the button
+     * @return the event
+     */
+    @NotNull
+    public static ButtonInteractionEvent button(@NotNull Origin origin, @NotNull String customId) {
+        Map<String, Object> answers = component(origin, customId, Component.Type.BUTTON);
+        Button button = Button.primary(customId, "Fake");
+        answers.put("getComponent", button);
+        answers.put("getButton", button);
+        return new FakeButtonEvent(create(ButtonInteraction.class, answers));
+    }
+
+    /**
+     * Creates a modal submission from the default origin.
+     *
+     * @param modalId the custom id of the modal
+     * @return the event
+     */
+    @NotNull
+    public static ModalInteractionEvent modal(@NotNull String modalId) {
+        return modal(DEFAULT_ORIGIN, modalId);
+    }
+
+    /**
+     * Creates a modal submission without field values.
+     *
+     * @param origin  the user, guild and channel of the interaction
+     * @param modalId the custom id of the modal
+     * @return the event
+     */
+    @NotNull
+    public static ModalInteractionEvent modal(@NotNull Origin origin, @NotNull String modalId) {
+        Map<String, Object> answers = interaction(origin, InteractionType.MODAL_SUBMIT);
+        answers.put("getModalId", modalId);
+        return new FakeModalEvent(create(ModalInteraction.class, answers));
+    }
+
+    /**
+     * Creates a string select menu selection from the default origin.
+     *
+     * @param customId the custom id of the select menu
+     * @param values   the selected values
+     * @return the event
+     */
+    @NotNull
+    public static StringSelectInteractionEvent stringSelect(@NotNull String customId, @NotNull List<String> values) {
+        return stringSelect(DEFAULT_ORIGIN, customId, values);
+    }
+
+    /**
+     * Creates a string select menu selection. The select menu offers exactly the selected values.
+     *
+     * @param origin   the user, guild and channel of the interaction
+     * @param customId the custom id of the select menu
+     * @param values   the selected values
+     * @return the event
+     */
+    @NotNull
+    public static StringSelectInteractionEvent stringSelect(@NotNull Origin origin, @NotNull String customId, @NotNull List<String> values) {
+        Map<String, Object> answers = component(origin, customId, Component.Type.STRING_SELECT);
+        StringSelectMenu.Builder menu = StringSelectMenu.create(customId).setMaxValues(Math.max(1, values.size()));
+        if (values.isEmpty()) menu.addOption("Fake", "fake");
+        values.forEach(value -> menu.addOption(value, value));
+        StringSelectMenu built = menu.build();
+        answers.put("getComponent", built);
+        answers.put("getSelectMenu", built);
+        answers.put("getValues", List.copyOf(values));
+        return new FakeStringSelectEvent(create(StringSelectInteraction.class, answers));
+    }
+
+    /**
+     * Creates a user select menu selection from the default origin, without selected entities.
+     *
+     * @param customId the custom id of the select menu
+     * @return the event
+     */
+    @NotNull
+    public static EntitySelectInteractionEvent entitySelect(@NotNull String customId) {
+        return entitySelect(DEFAULT_ORIGIN, customId);
+    }
+
+    /**
+     * Creates a user select menu selection without selected entities.
+     *
+     * @param origin   the user, guild and channel of the interaction
+     * @param customId the custom id of the select menu
+     * @return the event
+     */
+    @NotNull
+    public static EntitySelectInteractionEvent entitySelect(@NotNull Origin origin, @NotNull String customId) {
+        Map<String, Object> answers = component(origin, customId, Component.Type.USER_SELECT);
+        EntitySelectMenu menu = EntitySelectMenu.create(customId, EntitySelectMenu.SelectTarget.USER).build();
+        answers.put("getComponent", menu);
+        answers.put("getSelectMenu", menu);
+        answers.put("getMentions", Fakes.stub(Mentions.class, Map.of()));
+        return new FakeEntitySelectEvent(create(EntitySelectInteraction.class, answers));
+    }
+
+    /**
+     * Creates a user context command invocation from the default origin, targeting the invoking user.
+     *
+     * @param name the command name
+     * @return the event
+     */
+    @NotNull
+    public static UserContextInteractionEvent userContext(@NotNull String name) {
+        return userContext(DEFAULT_ORIGIN, name, DEFAULT_ORIGIN.userId());
+    }
+
+    /**
+     * Creates a user context command invocation.
+     *
+     * @param origin       the user, guild and channel of the interaction
+     * @param name         the command name
+     * @param targetUserId the user the command was used on
+     * @return the event
+     */
+    @NotNull
+    public static UserContextInteractionEvent userContext(@NotNull Origin origin, @NotNull String name, long targetUserId) {
+        Map<String, Object> answers = command(origin, name, Command.Type.USER);
+        answers.put("getTarget", user(targetUserId));
+        return new FakeUserContextEvent(create(UserContextInteraction.class, answers));
+    }
+
+    /**
+     * Creates a message context command invocation from the default origin.
+     *
+     * @param name the command name
+     * @return the event
+     */
+    @NotNull
+    public static MessageContextInteractionEvent messageContext(@NotNull String name) {
+        return messageContext(DEFAULT_ORIGIN, name);
+    }
+
+    /**
+     * Creates a message context command invocation, targeting an empty message.
+     *
+     * @param origin the user, guild and channel of the interaction
+     * @param name   the command name
+     * @return the event
+     */
+    @NotNull
+    public static MessageContextInteractionEvent messageContext(@NotNull Origin origin, @NotNull String name) {
+        Map<String, Object> answers = command(origin, name, Command.Type.MESSAGE);
+        answers.put("getTarget", message(nextSnowflake()));
+        return new FakeMessageContextEvent(create(MessageContextInteraction.class, answers));
+    }
+
+    /**
+     * Creates an event that resolves to a given handler, e.g. to replay recorded traffic. Slash commands are
+     * invoked without sub-command and options, select menus without selected values.
+     *
+     * @param origin    the user, guild and channel of the interaction
+     * @param type      the handler type
+     * @param handlerId the handler id as reported to the metrics sink: the command name, the custom id prefix of
+     *                  a component or the custom id of a modal
+     * @return the event
+     * @throws IllegalArgumentException if the handler type is not dispatched through an interaction event of its own
+     */
+    @NotNull
+    public static GenericInteractionCreateEvent of(@NotNull Origin origin, @NotNull HandlerType type, @NotNull String handlerId) throws IllegalArgumentException {
+        return switch (type) {
+            case SLASH_COMMAND -> slashCommand(origin, handlerId, null, Map.of());
+            case USER_CONTEXT -> userContext(origin, handlerId, origin.userId());
+            case MESSAGE_CONTEXT -> messageContext(origin, handlerId);
+            case BUTTON -> button(origin, handlerId);
+            case MODAL -> modal(origin, handlerId);
+            case STRING_SELECT -> stringSelect(origin, handlerId, List.of());
+            case ENTITY_SELECT -> entitySelect(origin, handlerId);
+            case SUB_COMMAND, AUTOCOMPLETE -> throw new IllegalArgumentException("Cannot create an interaction event for " + type);
+        };
+    }
+
+    @NotNull
+    private static <T> T create(@NotNull Class<T> type, @NotNull Map<String, Object> answers) {
+        return new FakeInteraction(answers, JDA, message(0)).create(type);
+    }
+
+    @NotNull
+    private static Map<String, Object> command(@NotNull Origin origin, @NotNull String name, @NotNull Command.Type type) {
+        Map<String, Object> answers = interaction(origin, InteractionType.COMMAND);
+        answers.put("getName", name);
+        answers.put("getFullCommandName", name);
+        answers.put("getCommandType", type);
+        answers.put("getCommandIdLong", (long) name.hashCode() & Long.MAX_VALUE);
+        answers.put("isGuildCommand", origin.guildId() != 0);
+        return answers;
+    }
+
+    @NotNull
+    private static Map<String, Object> component(@NotNull Origin origin, @NotNull String customId, @NotNull Component.Type type) {
+        Map<String, Object> answers = interaction(origin, InteractionType.COMPONENT);
+        long messageId = nextSnowflake();
+        answers.put("getComponentId", customId);
+        answers.put("getComponentType", type);
+        answers.put("getMessage", message(messageId));
+        answers.put("getMessageIdLong", messageId);
+        return answers;
+    }
+
+    @NotNull
+    private static Map<String, Object> interaction(@NotNull Origin origin, @NotNull InteractionType type) {
+        long id = nextSnowflake();
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getJDA", JDA);
+        answers.put("getIdLong", id);
+        answers.put("getId", Long.toUnsignedString(id));
+        answers.put("getTypeRaw", type.getKey());
+        answers.put("getType", type);
+        answers.put("getToken", "fake-" + id);
+        answers.put("getUser", user(origin.userId()));
+        answers.put("getChannelIdLong", origin.channelId());
+        answers.put("getUserLocale", DiscordLocale.ENGLISH_US);
+        answers.put("getContext", origin.guildId() == 0 ? InteractionContextType.BOT_DM : InteractionContextType.GUILD);
+        if (origin.guildId() != 0) {
+            answers.put("getGuild", Fakes.stub(Guild.class, Map.of(
+                    "getJDA", JDA,
+                    "getIdLong", origin.guildId(),
+                    "getId", Long.toUnsignedString(origin.guildId()),
+                    "getName", "guild-" + origin.guildId()
+            )));
+            answers.put("getGuildLocale", DiscordLocale.ENGLISH_US);
+        }
+        return answers;
+    }
+
+    @NotNull
+    private static User user(long userId) {
+        return Fakes.stub(User.class, Map.of(
+                "getJDA", JDA,
+                "getIdLong", userId,
+                "getId", Long.toUnsignedString(userId),
+                "getName", "user-" + userId,
+                "getEffectiveName", "user-" + userId,
+                "getAsMention", "<@" + Long.toUnsignedString(userId) + ">"
+        ));
+    }
+
+    @NotNull
+    private static Message message(long messageId) {
+        return Fakes.stub(Message.class, Map.of(
+                "getJDA", JDA,
+                "getIdLong", messageId,
+                "getId", Long.toUnsignedString(messageId),
+                "getContentRaw", "",
+                "getContentDisplay", ""
+        ));
+    }
+
+    @NotNull
+    private static DataObject optionData(@NotNull String name, @NotNull Object value) throws IllegalArgumentException {
+        OptionType type = switch (value) {
+            case String ignored -> OptionType.STRING;
+            case Long ignored -> OptionType.INTEGER;
+            case Double ignored -> OptionType.NUMBER;
+            case Boolean ignored -> OptionType.BOOLEAN;
+            default -> throw new IllegalArgumentException("Unsupported value of option " + name + ": " + value.getClass().getName());
+        };
+        return DataObject.empty().put("name", name).put("type", type.getKey()).put("value", value);
+    }
+
+    /**
+     * @return a unique snowflake with the current time
+     */
+    private static long nextSnowflake() {
+        return TimeUtil.getDiscordTimestamp(System.currentTimeMillis()) | (SEQUENCE.getAndIncrement() & 0x3FFFFF);
+    }
+
+    /*
+     * Event subclasses overriding the response methods JDA implements by casting to its internal classes. They
+     * need a name ending in "Event", as the ListenerAdapter derives the listener method from the class name.
+     */
+
+    private static final class FakeSlashCommandEvent extends SlashCommandInteractionEvent {
+        private final SlashCommandInteraction interaction;
+
+        private FakeSlashCommandEvent(@NotNull SlashCommandInteraction interaction) {
+            super(JDA, 0, interaction);
+            this.interaction = interaction;
+        }
+
+        @NotNull
+        @Override
+        public ReplyCallbackAction reply(@NotNull MessageCreateData message) {
+            return interaction.reply(message);
+        }
+    }
+
+
+    private static final class FakeButtonEvent extends ButtonInteractionEvent {
+        private final ButtonInteraction interaction;
+
+        private FakeButtonEvent(@NotNull ButtonInteraction interaction) {
+            super(JDA, 0, interaction);
+            this.interaction = interaction;
+        }
+
+        @NotNull
+        @Override
+        public ReplyCallbackAction reply(@NotNull MessageCreateData message) {
+            return interaction.reply(message);
+        }
+
+        @NotNull
+        @Override
+        public MessageEditCallbackAction editMessage(@NotNull MessageEditData message) {
+            return interaction.editMessage(message);
+        }
+    }
+
+
+    private static final class FakeModalEvent extends ModalInteractionEvent {
+        private final ModalInteraction interaction;
+
+        private FakeModalEvent(@NotNull ModalInteraction interaction) {
+            super(JDA, 0, interaction);
+            this.interaction = interaction;
+        }
+
+        @NotNull
+        @Override
+        public ReplyCallbackAction reply(@NotNull MessageCreateData message) {
+            return interaction.reply(message);
+        }
+
+        @NotNull
+        @Override
+        public MessageEditCallbackAction editMessage(@NotNull MessageEditData message) {
+            return interaction.editMessage(message);
+        }
+    }
+
+
+    private static final class FakeStringSelectEvent extends StringSelectInteractionEvent {
+        private final StringSelectInteraction interaction;
+
+        private FakeStringSelectEvent(@NotNull StringSelectInteraction interaction) {
+            super(JDA, 0, interaction);
+            this.interaction = interaction;
+        }
+
+        @NotNull
+        @Override
+        public ReplyCallbackAction reply(@NotNull MessageCreateData message) {
+            return interaction.reply(message);
+        }
+
+        @NotNull
+        @Override
+        public MessageEditCallbackAction editMessage(@NotNull MessageEditData message) {
+            return interaction.editMessage(message);
+        }
+    }
+
+
+    private static final class FakeEntitySelectEvent extends EntitySelectInteractionEvent {
+        private final EntitySelectInteraction interaction;
+
+        private FakeEntitySelectEvent(@NotNull EntitySelectInteraction interaction) {
+            super(JDA, 0, interaction);
+            this.interaction = interaction;
+        }
+
+        @NotNull
+        @Override
+        public ReplyCallbackAction reply(@NotNull MessageCreateData message) {
+            return interaction.reply(message);
+        }
+
+        @NotNull
+        @Override
+        public MessageEditCallbackAction editMessage(@NotNull MessageEditData message) {
+            return interaction.editMessage(message);
+        }
+    }
+
+
+    private static final class FakeUserContextEvent extends UserContextInteractionEvent {
+        private final UserContextInteraction interaction;
+
+        private FakeUserContextEvent(@NotNull UserContextInteraction interaction) {
+            super(JDA, 0, interaction);
+            this.interaction = interaction;
+        }
+
+        @NotNull
+        @Override
+        public ReplyCallbackAction reply(@NotNull MessageCreateData message) {
+            return interaction.reply(message);
+        }
+    }
+
+
+    private static final class FakeMessageContextEvent extends MessageContextInteractionEvent {
+        private final MessageContextInteraction interaction;
+
+        private FakeMessageContextEvent(@NotNull MessageContextInteraction interaction) {
+            super(JDA, 0, interaction);
+            this.interaction = interaction;
+        }
+
+        @NotNull
+        @Override
+        public ReplyCallbackAction reply(@NotNull MessageCreateData message) {
+            return interaction.reply(message);
+        }
+    }
+
+    /**
+     * Where a fake interaction comes from.
+     *
+     * @param userId    the invoking user
+     * @param guildId   the guild, or 0 for direct messages
+     * @param channelId the channel
+     */
+    public record Origin(long userId, long guildId, long channelId) {
+    }
+}
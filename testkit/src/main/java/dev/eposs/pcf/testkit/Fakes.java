@@ -0,0 +1,68 @@
+package dev.eposs.pcf.testkit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dynamic proxy helpers for the JDA fakes.
+ * <p>
+ * Fakes answer a fixed set of methods by name. Everything else falls back to the default implementation of the
+ * interface if there is one, so derived getters such as {@code isFromGuild()} or {@code getOption(String)} work
+ * on top of the answered ones, and to an empty collection, {@code null}, {@code false} or {@code 0} otherwise.
+ * </p>
+ */
+final class Fakes {
+    private Fakes() {
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    static <T> T proxy(@NotNull Class<T> type, @NotNull InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(Fakes.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    @NotNull
+    static <T> T stub(@NotNull Class<T> type, @NotNull Map<String, Object> answers) {
+        return proxy(type, (proxy, method, args) -> {
+            Object answer = answers.get(method.getName());
+            return answer != null ? answer : fallback(proxy, method, args);
+        });
+    }
+
+    /**
+     * Answers a call no fake handled explicitly.
+     */
+    @Nullable
+    static Object fallback(@NotNull Object proxy, @NotNull Method method, @Nullable Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "toString" -> {
+                return "Fake" + method.getDeclaringClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            }
+        }
+        if (method.isDefault()) return InvocationHandler.invokeDefault(proxy, method, args);
+
+        Class<?> returnType = method.getReturnType();
+        if (returnType == List.class || returnType == Collection.class) return List.of();
+        if (returnType == Set.class) return Set.of();
+        if (returnType == boolean.class) return false;
+        if (returnType == int.class) return 0;
+        if (returnType == long.class) return 0L;
+        if (returnType == double.class) return 0.0;
+        if (returnType.isInstance(proxy)) return proxy;
+        return null;
+    }
+}
@@ -0,0 +1,211 @@
+package dev.eposs.pcf.testkit;
+
+import dev.eposs.pcf.PhoenixCommandFramework;
+import dev.eposs.pcf.dispatch.DispatchStats;
+import dev.eposs.pcf.event.PCFEventListener;
+import dev.eposs.pcf.metrics.HandlerType;
+import dev.eposs.pcf.metrics.IMetricsSink;
+import dev.eposs.pcf.metrics.LatencyHistogram;
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends interactions from a {@link TrafficProfile} to a {@link PCFEventListener} at a fixed rate and reports
+ * throughput, latency percentiles and the error mix, see {@link LoadReport}.
+ * <p>
+ * The driver is open-loop: interactions are sent on schedule no matter how fast the listener handles them, and
+ * response times are measured from the scheduled send time. A listener that cannot keep up therefore shows
+ * growing response times instead of a silently lower rate. The driver runs on the calling thread; with an
+ * executor that runs handlers inline it sends late, which the offered rate of the report reveals.
+ * </p>
+ * <p>
+ * While running, the driver wraps the {@linkplain PhoenixCommandFramework#getMetricsSink() metrics sink} to
+ * collect queue wait, execution time and exceptions, and restores it afterwards. Only one run can be active at
+ * a time.
+ * </p>
+ */
+public class LoadDriver {
+    public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final AtomicBoolean RUNNING = new AtomicBoolean();
+
+    private final PCFEventListener listener;
+    private final TrafficProfile profile;
+    private final Duration drainTimeout;
+
+    /**
+     * Creates a driver with the default drain timeout.
+     *
+     * @param listener the listener under test
+     * @param profile  the traffic to send
+     */
+    public LoadDriver(@NotNull PCFEventListener listener, @NotNull TrafficProfile profile) {
+        this(listener, profile, DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    /**
+     * Creates a driver.
+     *
+     * @param listener     the listener under test
+     * @param profile      the traffic to send
+     * @param drainTimeout how long to wait for running handlers after the last interaction was sent
+     */
+    public LoadDriver(@NotNull PCFEventListener listener, @NotNull TrafficProfile profile, @NotNull Duration drainTimeout) {
+        this.listener = listener;
+        this.profile = profile;
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Sends interactions at a fixed rate, then waits until all handlers finished or the drain timeout expired.
+     *
+     * @param rate     interactions per second, must be positive
+     * @param duration how long to send interactions, must be positive
+     * @return the report of the run
+     * @throws IllegalArgumentException if the rate or duration is not positive
+     * @throws IllegalStateException    if another run is active
+     */
+    @NotNull
+    public LoadReport run(double rate, @NotNull Duration duration) throws IllegalArgumentException, IllegalStateException {
+        if (!(rate > 0)) throw new IllegalArgumentException("Rate must be positive.");
+        if (duration.isNegative() || duration.isZero()) throw new IllegalArgumentException("Duration must be positive.");
+        if (!RUNNING.compareAndSet(false, true)) throw new IllegalStateException("Another load run is active.");
+
+        IMetricsSink previous = PhoenixCommandFramework.getMetricsSink();
+        Collector collector = new Collector(previous);
+        PhoenixCommandFramework.setMetricsSink(collector);
+        try {
+            return send(rate, duration, collector);
+        } finally {
+            PhoenixCommandFramework.setMetricsSink(previous);
+            RUNNING.set(false);
+        }
+    }
+
+    @NotNull
+    private LoadReport send(double rate, @NotNull Duration duration, @NotNull Collector collector) {
+        DispatchStats before = listener.getDispatchExecutor().getStats();
+        LatencyHistogram responseTime = new LatencyHistogram();
+        LongAdder answered = new LongAdder();
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long sent = 0;
+        for (long scheduled = start; scheduled < end; scheduled = start + (long) (sent * 1e9 / rate)) {
+            long delay = scheduled - System.nanoTime();
+            if (delay > 0) LockSupport.parkNanos(delay);
+
+            GenericInteractionCreateEvent event = profile.next(sent);
+            long sendTime = scheduled;
+            FakeInteractions.recorderOf(event).setListener(reply -> {
+                if (!reply.isAccepted()) {
+                    collector.error("rejected " + reply.kind() + ": " + reply.failure());
+                } else if (reply.kind().isAcknowledgement()) {
+                    responseTime.record(reply.nanoTime() - sendTime);
+                    answered.increment();
+                }
+            });
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                collector.error("listener threw " + e.getClass().getName());
+            }
+            sent++;
+        }
+        long sendElapsed = System.nanoTime() - start;
+
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        while (!isDrained(collector) && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+        }
+        long elapsed = System.nanoTime() - start;
+
+        DispatchStats after = listener.getDispatchExecutor().getStats();
+        long completed = collector.completed.sum();
+        return new LoadReport(sent, answered.sum(), completed, after.rejected() - before.rejected(), after.dropped() - before.dropped(),
+                Duration.ofNanos(elapsed), sent / (sendElapsed / 1e9), completed / (elapsed / 1e9),
+                responseTime.snapshot(), collector.queueWait.snapshot(), collector.execution.snapshot(), collector.errors());
+    }
+
+    private boolean isDrained(@NotNull Collector collector) {
+        DispatchStats stats = listener.getDispatchExecutor().getStats();
+        return collector.inFlight.get() == 0 && stats.queued() == 0 && stats.active() == 0;
+    }
+
+    /**
+     * Metrics sink aggregating over all dispatched interactions, forwarding everything to the sink it replaced.
+     */
+    private static final class Collector implements IMetricsSink {
+        private final IMetricsSink delegate;
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final LatencyHistogram execution = new LatencyHistogram();
+        private final LongAdder completed = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        private Collector(IMetricsSink delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void recordQueueWait(@NotNull HandlerType type, @NotNull String handlerId, long nanos) {
+            if (isTopLevel(type)) queueWait.record(nanos);
+            delegate.recordQueueWait(type, handlerId, nanos);
+        }
+
+        @Override
+        public void recordExecution(@NotNull HandlerType type, @NotNull String handlerId, long nanos) {
+            if (isTopLevel(type)) {
+                execution.record(nanos);
+                completed.increment();
+            }
+            delegate.recordExecution(type, handlerId, nanos);
+        }
+
+        @Override
+        public void recordException(@NotNull HandlerType type, @NotNull String handlerId, @NotNull Throwable e) {
+            if (isTopLevel(type)) error(e.getClass().getName());
+            delegate.recordException(type, handlerId, e);
+        }
+
+        @Override
+        public void executionStarted(@NotNull HandlerType type, @NotNull String handlerId) {
+            if (isTopLevel(type)) inFlight.incrementAndGet();
+            delegate.executionStarted(type, handlerId);
+        }
+
+        @Override
+        public void executionFinished(@NotNull HandlerType type, @NotNull String handlerId) {
+            if (isTopLevel(type)) inFlight.decrementAndGet();
+            delegate.executionFinished(type, handlerId);
+        }
+
+        /**
+         * Sub-commands are reported inside the execution of their command, so counting them as well would count
+         * their interaction twice.
+         */
+        private static boolean isTopLevel(@NotNull HandlerType type) {
+            return type != HandlerType.SUB_COMMAND;
+        }
+
+        private void error(@NotNull String kind) {
+            errors.computeIfAbsent(kind, key -> new LongAdder()).increment();
+        }
+
+        @NotNull
+        private Map<String, Long> errors() {
+            Map<String, Long> snapshot = new TreeMap<>();
+            errors.forEach((kind, count) -> snapshot.put(kind, count.sum()));
+            return snapshot;
+        }
+    }
+}
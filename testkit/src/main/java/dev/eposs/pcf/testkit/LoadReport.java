@@ -0,0 +1,62 @@
+package dev.eposs.pcf.testkit;
+
+import dev.eposs.pcf.metrics.LatencyHistogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Result of a {@link LoadDriver} run. Latencies are in nanoseconds.
+ *
+ * @param sent         number of interactions sent
+ * @param answered     number of interactions that got acknowledged
+ * @param completed    number of handler executions that finished, successfully or not
+ * @param rejected     number of interactions the dispatch executor rejected with a "busy" reply
+ * @param dropped      number of interactions the dispatch executor dropped without a reply
+ * @param elapsed      time from the first interaction until all executions finished or the drain timeout expired
+ * @param offeredRate  interactions sent per second
+ * @param throughput   handler executions completed per second
+ * @param responseTime time from the scheduled send time of an interaction until it was acknowledged
+ * @param queueWait    time between interaction arrival and handler start
+ * @param execution    handler execution time
+ * @param errors       number of failures by kind: exception class names of failed handlers, rejected replies and
+ *                     exceptions thrown by the listener itself
+ */
+public record LoadReport(long sent, long answered, long completed, long rejected, long dropped, Duration elapsed,
+                         double offeredRate, double throughput, LatencyHistogram.Snapshot responseTime,
+                         LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot execution, Map<String, Long> errors) {
+    /**
+     * @return number of interactions that never got acknowledged
+     */
+    public long unanswered() {
+        return sent - answered;
+    }
+
+    /**
+     * @return a human-readable summary of the run, latencies in milliseconds
+     */
+    @NotNull
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append("sent %d in %.1f s (%.1f/s), completed %d (%.1f/s)%n".formatted(sent, elapsed.toNanos() / 1e9, offeredRate, completed, throughput));
+        out.append("answered %d, unanswered %d, rejected %d, dropped %d%n".formatted(answered, unanswered(), rejected, dropped));
+        appendLatency(out, "response time", responseTime);
+        appendLatency(out, "queue wait", queueWait);
+        appendLatency(out, "execution", execution);
+        if (errors.isEmpty()) {
+            out.append("no errors").append(System.lineSeparator());
+        } else {
+            out.append("errors:").append(System.lineSeparator());
+            errors.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .forEach(error -> out.append("  %8d  %s%n".formatted(error.getValue(), error.getKey())));
+        }
+        return out.toString();
+    }
+
+    private static void appendLatency(@NotNull StringBuilder out, @NotNull String name, @NotNull LatencyHistogram.Snapshot latency) {
+        out.append("%-14s p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f ms (n=%d)%n".formatted(name,
+                latency.p50() / 1e6, latency.p90() / 1e6, latency.p99() / 1e6, latency.p999() / 1e6, latency.max() / 1e6, latency.count()));
+    }
+}
@@ -0,0 +1,51 @@
+package dev.eposs.pcf.testkit;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * A response sent to a fake interaction, as captured by its {@link ReplyRecorder}.
+ *
+ * @param kind      how the response was sent
+ * @param content   the message content, or {@code null} if none was set
+ * @param embeds    the message embeds
+ * @param ephemeral whether the response was ephemeral
+ * @param nanoTime  {@link System#nanoTime()} when the response was sent
+ * @param failure   why Discord would have rejected the response, or {@code null} if it was accepted
+ */
+public record RecordedReply(Kind kind, @Nullable String content, List<MessageEmbed> embeds, boolean ephemeral,
+                            long nanoTime, @Nullable String failure) {
+    /**
+     * @return {@code true} if the response was accepted
+     */
+    public boolean isAccepted() {
+        return failure == null;
+    }
+
+    public enum Kind {
+        REPLY(true),
+        DEFER_REPLY(true),
+        DEFER_EDIT(true),
+        EDIT_MESSAGE(true),
+        MODAL(true),
+        FOLLOW_UP(false),
+        EDIT_ORIGINAL(false),
+        DELETE_ORIGINAL(false);
+
+        private final boolean acknowledgement;
+
+        Kind(boolean acknowledgement) {
+            this.acknowledgement = acknowledgement;
+        }
+
+        /**
+         * @return {@code true} if this is an interaction callback, which is only allowed once per interaction;
+         * {@code false} if it goes through the interaction hook, which requires an acknowledged interaction
+         */
+        public boolean isAcknowledgement() {
+            return acknowledgement;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package dev.eposs.pcf.testkit;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
+import net.dv8tion.jda.api.utils.messages.MessageEditData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Fake of the {@code RestAction} returned by a response method. Message setters are captured, and the response
+ * is {@linkplain ReplyRecorder#record recorded} once the action is queued, submitted or completed.
+ */
+final class RecordingAction implements InvocationHandler {
+    private final ReplyRecorder recorder;
+    @Nullable
+    private final Object result;
+
+    private RecordedReply.Kind kind;
+    private String content;
+    private final List<MessageEmbed> embeds = new ArrayList<>();
+    private boolean ephemeral;
+
+    /**
+     * @param result the value the action completes with, e.g. the interaction hook
+     */
+    private RecordingAction(@NotNull ReplyRecorder recorder, @NotNull RecordedReply.Kind kind, @Nullable Object result, boolean ephemeral) {
+        this.recorder = recorder;
+        this.kind = kind;
+        this.result = result;
+        this.ephemeral = ephemeral;
+    }
+
+    /**
+     * Creates the action returned by a response method.
+     *
+     * @param method the response method, its return type is the type of the action
+     * @param args   the arguments of the response method, applied to the action as initial message data
+     */
+    @NotNull
+    static Object create(@NotNull ReplyRecorder recorder, @NotNull RecordedReply.Kind kind, @Nullable Object result, boolean ephemeral,
+                         @NotNull Method method, @Nullable Object[] args) {
+        RecordingAction action = new RecordingAction(recorder, kind, result, ephemeral);
+        if (args != null && method.getName().endsWith("Format")) {
+            action.content = String.format((String) args[0], (Object[]) args[1]);
+        } else if (args != null) {
+            for (Object arg : args) action.apply(arg);
+        }
+        return Fakes.proxy(method.getReturnType(), action);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "setContent", "addContent" -> {
+                content = method.getName().equals("addContent") && content != null ? content + args[0] : (String) args[0];
+                withMessage();
+            }
+            case "setEphemeral" -> ephemeral = (boolean) args[0];
+            case "setEmbeds" -> {
+                embeds.clear();
+                apply(args[0]);
+            }
+            case "addEmbeds", "applyData", "applyMessage" -> apply(args[0]);
+            case "queue" -> {
+                RecordedReply reply = send();
+                Consumer<Object> success = args != null && args.length > 0 ? cast(args[0]) : null;
+                Consumer<Throwable> failure = args != null && args.length > 1 ? cast(args[1]) : null;
+                if (reply.isAccepted() && success != null) success.accept(result);
+                else if (!reply.isAccepted() && failure != null) failure.accept(new IllegalStateException(reply.failure()));
+                return null;
+            }
+            case "submit" -> {
+                RecordedReply reply = send();
+                return reply.isAccepted() ? CompletableFuture.completedFuture(result) : CompletableFuture.failedFuture(new IllegalStateException(reply.failure()));
+            }
+            case "complete" -> {
+                RecordedReply reply = send();
+                if (!reply.isAccepted()) throw new IllegalStateException(reply.failure());
+                return result;
+            }
+            default -> {
+                return Fakes.fallback(proxy, method, args);
+            }
+        }
+        return proxy;
+    }
+
+    @NotNull
+    private RecordedReply send() {
+        return recorder.record(kind, content, embeds, ephemeral);
+    }
+
+    /**
+     * Applies a message argument: content, embeds, or complete message data.
+     */
+    private void apply(@Nullable Object arg) {
+        switch (arg) {
+            case Boolean flag -> ephemeral = flag;
+            case Collection<?> collection -> collection.forEach(this::apply);
+            case String text -> setMessage(text, List.of());
+            case MessageEmbed embed -> setMessage(content, List.of(embed));
+            case MessageEmbed[] array -> setMessage(content, List.of(array));
+            case MessageCreateData data -> setMessage(data.getContent(), data.getEmbeds());
+            case MessageEditData data -> setMessage(data.getContent(), data.getEmbeds());
+            case null, default -> {
+            }
+        }
+    }
+
+    private void setMessage(@Nullable String content, @NotNull List<MessageEmbed> embeds) {
+        this.content = content;
+        this.embeds.addAll(embeds);
+        withMessage();
+    }
+
+    /**
+     * Turns a deferral into a message once message data is set, as the default response methods of JDA are
+     * implemented as a deferral with data.
+     */
+    private void withMessage() {
+        if (kind == RecordedReply.Kind.DEFER_REPLY) kind = RecordedReply.Kind.REPLY;
+        else if (kind == RecordedReply.Kind.DEFER_EDIT) kind = RecordedReply.Kind.EDIT_MESSAGE;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private static <T> Consumer<T> cast(@Nullable Object consumer) {
+        return (Consumer<T>) consumer;
+    }
+}
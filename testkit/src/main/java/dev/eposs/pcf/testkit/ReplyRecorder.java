@@ -0,0 +1,84 @@
+package dev.eposs.pcf.testkit;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Records every response sent to one fake interaction, see {@link FakeInteractions#recorderOf}.
+ * <p>
+ * The recorder enforces the acknowledgement rules of Discord: an interaction callback (reply, defer, modal or
+ * message edit) is only accepted once, and follow-ups through the hook only after the interaction was
+ * acknowledged. Responses breaking these rules are recorded with a {@linkplain RecordedReply#failure() failure}
+ * and fail like the real request would, so races between a handler and the deferral watchdog show up in tests.
+ * </p>
+ */
+public final class ReplyRecorder {
+    private final List<RecordedReply> replies = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean acknowledged = new AtomicBoolean();
+    private volatile Consumer<RecordedReply> listener;
+
+    ReplyRecorder() {
+    }
+
+    /**
+     * @return {@code true} if an interaction callback was accepted
+     */
+    public boolean isAcknowledged() {
+        return acknowledged.get();
+    }
+
+    /**
+     * @return all responses in the order they were sent, including rejected ones
+     */
+    @NotNull
+    public List<RecordedReply> getReplies() {
+        return List.copyOf(replies);
+    }
+
+    /**
+     * @return the first accepted response, or {@code null} if nothing was accepted yet
+     */
+    @Nullable
+    public RecordedReply getFirstReply() {
+        for (RecordedReply reply : replies) {
+            if (reply.isAccepted()) return reply;
+        }
+        return null;
+    }
+
+    /**
+     * Sets the listener receiving every response as it is recorded, e.g. to measure response latency.
+     *
+     * @param listener the listener, or {@code null} to remove it
+     */
+    public void setListener(@Nullable Consumer<RecordedReply> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Records a response.
+     *
+     * @return the recorded response
+     */
+    @NotNull
+    RecordedReply record(@NotNull RecordedReply.Kind kind, @Nullable String content, @NotNull List<MessageEmbed> embeds, boolean ephemeral) {
+        String failure = null;
+        if (kind.isAcknowledgement()) {
+            if (!acknowledged.compareAndSet(false, true)) failure = "Interaction has already been acknowledged";
+        } else if (!acknowledged.get()) {
+            failure = "Interaction has not been acknowledged";
+        }
+
+        RecordedReply reply = new RecordedReply(kind, content, List.copyOf(embeds), ephemeral, System.nanoTime(), failure);
+        replies.add(reply);
+        Consumer<RecordedReply> current = listener;
+        if (current != null) current.accept(reply);
+        return reply;
+    }
+}
@@ -0,0 +1,118 @@
+package dev.eposs.pcf.testkit;
+
+import dev.eposs.pcf.audit.AuditJournalReader;
+import dev.eposs.pcf.audit.AuditRecord;
+import dev.eposs.pcf.metrics.HandlerType;
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source of the interactions sent by the {@link LoadDriver}.
+ * <p>
+ * A profile creates the interaction with a given sequence number. It is called from a single thread, but must
+ * return a new event on every call, as every event records its own replies.
+ * </p>
+ */
+@FunctionalInterface
+public interface TrafficProfile {
+    /**
+     * Creates the next interaction.
+     *
+     * @param sequence the number of interactions created before in this run
+     * @return the event, usually created with {@link FakeInteractions}
+     */
+    @NotNull
+    GenericInteractionCreateEvent next(long sequence);
+
+    /**
+     * Creates a synthetic profile mixing other profiles by weight. The choice is a deterministic function of the
+     * sequence number, so runs with the same number of interactions send the same traffic.
+     *
+     * @param entries the profiles and their weights
+     * @return the mixed profile
+     * @throws IllegalArgumentException if no entry is given
+     */
+    @NotNull
+    static TrafficProfile mix(@NotNull Entry... entries) throws IllegalArgumentException {
+        if (entries.length == 0) throw new IllegalArgumentException("A traffic mix needs at least one entry.");
+
+        long[] cumulative = new long[entries.length];
+        long total = 0;
+        for (int i = 0; i < entries.length; i++) {
+            total += entries[i].weight();
+            cumulative[i] = total;
+        }
+        long weights = total;
+        return sequence -> {
+            long pick = Long.remainderUnsigned(scramble(sequence), weights);
+            int i = 0;
+            while (cumulative[i] <= pick) i++;
+            return entries[i].profile().next(sequence);
+        };
+    }
+
+    /**
+     * Creates a profile replaying the interactions recorded by an {@link dev.eposs.pcf.audit.AuditJournal}, in the
+     * order they were recorded and with their original user, guild and channel, looping once all were sent.
+     * The events are created with {@link FakeInteractions#of}, so sub-commands, options and selected values are
+     * not replayed.
+     *
+     * @param directory the directory of the journal
+     * @param from      the earliest interaction to replay, or {@code null} for no lower bound
+     * @param to        the time to replay interactions before, or {@code null} for no upper bound
+     * @return the profile
+     * @throws IllegalArgumentException if the journal contains no replayable interaction in the time range
+     * @throws UncheckedIOException     if the journal cannot be read
+     */
+    @NotNull
+    static TrafficProfile recorded(@NotNull Path directory, @Nullable Instant from, @Nullable Instant to) throws IllegalArgumentException, UncheckedIOException {
+        AuditJournalReader reader = new AuditJournalReader(directory);
+        Map<Integer, String> names = reader.handlerNames();
+        List<AuditRecord> records = new ArrayList<>();
+        List<String> handlerIds = new ArrayList<>();
+        reader.query(0, 0, from, to, record -> {
+            String handlerId = names.get(record.handlerTag());
+            if (handlerId == null || record.type() == HandlerType.SUB_COMMAND || record.type() == HandlerType.AUTOCOMPLETE) return;
+            records.add(record);
+            handlerIds.add(handlerId);
+        });
+        if (records.isEmpty()) throw new IllegalArgumentException("No replayable interactions recorded in " + directory);
+
+        return sequence -> {
+            int i = (int) Long.remainderUnsigned(sequence, records.size());
+            AuditRecord record = records.get(i);
+            return FakeInteractions.of(new FakeInteractions.Origin(record.userId(), record.guildId(), record.channelId()),
+                    record.type(), handlerIds.get(i));
+        };
+    }
+
+    /**
+     * Spreads consecutive sequence numbers uniformly, see {@link java.util.SplittableRandom}.
+     */
+    private static long scramble(long sequence) {
+        long z = sequence * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A weighted part of a {@linkplain #mix(Entry...) traffic mix}.
+     *
+     * @param weight  the relative share of the profile, must be positive
+     * @param profile the profile
+     */
+    record Entry(int weight, @NotNull TrafficProfile profile) {
+        public Entry {
+            if (weight <= 0) throw new IllegalArgumentException("Weight must be positive.");
+        }
+    }
+}